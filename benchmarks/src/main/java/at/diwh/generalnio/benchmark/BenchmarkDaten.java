@@ -0,0 +1,163 @@
+package at.diwh.generalnio.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import at.diwh.generalnio.core.GeneralNIOFileAccess;
+
+/**
+ * Erzeugt die synthetischen Testdaten für die Benchmarks in einem temporären Verzeichnis. Alles ist mit einem festen
+ * Seed erzeugt, damit zwei Messungen mit denselben Daten arbeiten.
+ *
+ * @author diwh
+ */
+final class BenchmarkDaten {
+
+    private static final long SEED = 4711L;
+
+    private BenchmarkDaten() {
+        // nur statische Methoden
+    }
+
+    /**
+     * Eine Textdatei mit Zeilen zufälliger Länge (1 bis 2 x <i>mittlereLaenge</i>), mit ein paar Umlauten, damit
+     * UTF-8 auch wirklich dekodieren muss.
+     *
+     * @param datei - Ziel
+     * @param zeilen - Anzahl Zeilen
+     * @param mittlereLaenge - mittlere Zeilenlänge in Zeichen
+     * @param charset - Encoding
+     * @throws IOException - Fehler
+     */
+    static void erzeugeTextdatei(Path datei, int zeilen, int mittlereLaenge, Charset charset) throws IOException {
+        Random random = new Random(SEED);
+        String zeichen = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ;,.äöüß";
+        try (BufferedWriter writer = Files.newBufferedWriter(datei, charset)) {
+            for (int i = 0; i < zeilen; i++) {
+                int laenge = 1 + random.nextInt(2 * mittlereLaenge);
+                for (int j = 0; j < laenge; j++) {
+                    writer.write(zeichen.charAt(random.nextInt(zeichen.length())));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * @param datei - Ziel
+     * @param groesse - Größe in Bytes
+     * @throws IOException - Fehler
+     */
+    static void erzeugeBinaerdatei(Path datei, long groesse) throws IOException {
+        Random random = new Random(SEED);
+        byte[] block = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(datei)) {
+            for (long geschrieben = 0; geschrieben < groesse; geschrieben = geschrieben + block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, groesse - geschrieben));
+            }
+        }
+    }
+
+    /**
+     * Ein Verzeichnisbaum mit <i>breite</i> Unterverzeichnissen pro Ebene und <i>dateien</i> Dateien pro
+     * Verzeichnis; die Dateien heißen datei_&lt;n&gt;.txt, .csv oder .log, die Verzeichnisse ordner_&lt;n&gt; bzw.
+     * archiv_&lt;n&gt;.
+     *
+     * @param wurzel - wird angelegt
+     * @param tiefe - Anzahl Ebenen unter der Wurzel
+     * @param breite - Unterverzeichnisse pro Verzeichnis
+     * @param dateien - Dateien pro Verzeichnis
+     * @throws IOException - Fehler
+     */
+    static void erzeugeVerzeichnisbaum(Path wurzel, int tiefe, int breite, int dateien) throws IOException {
+        Files.createDirectories(wurzel);
+        String[] endungen = {".txt", ".csv", ".log"};
+        for (int i = 0; i < dateien; i++) {
+            Files.write(wurzel.resolve("datei_" + i + endungen[i % endungen.length]), new byte[i % 7]);
+        }
+        if (tiefe > 0) {
+            for (int i = 0; i < breite; i++) {
+                String name = (i % 4 == 0 ? "archiv_" : "ordner_") + i;
+                erzeugeVerzeichnisbaum(wurzel.resolve(name), tiefe - 1, breite, dateien);
+            }
+        }
+    }
+
+    /**
+     * Ein DB2-Export wie /testdata/demo.txt, nur mit den Datenzeilen <i>wiederholungen</i> mal hintereinander.
+     *
+     * @param datei - Ziel
+     * @param wiederholungen - wie oft der Datenblock vorkommt
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    static void erzeugeFixedWidthDatei(Path datei, int wiederholungen) throws IOException, URISyntaxException {
+        List<String> kopf = new ArrayList<>();
+        List<String> daten = new ArrayList<>();
+        List<String> fuss = new ArrayList<>();
+        int[] abschnitt = {0}; // 0 = Kopf bis inkl. ---- Zeile, 1 = Daten, 2 = ab "record(s) selected."
+        GeneralNIOFileAccess.leseFile("/testdata/demo.txt", BenchmarkDaten.class, StandardCharsets.ISO_8859_1, 1,
+            (String zeile) -> {
+                if (abschnitt[0] == 1 && zeile.contains("record(s) selected.")) {
+                    abschnitt[0] = 2;
+                }
+                (abschnitt[0] == 0 ? kopf : abschnitt[0] == 1 ? daten : fuss).add(zeile);
+                if (abschnitt[0] == 0 && zeile.startsWith("---")) {
+                    abschnitt[0] = 1;
+                }
+            });
+        try (Writer writer = Files.newBufferedWriter(datei, StandardCharsets.ISO_8859_1)) {
+            schreibeZeilen(writer, kopf);
+            for (int i = 0; i < wiederholungen; i++) {
+                schreibeZeilen(writer, daten);
+            }
+            schreibeZeilen(writer, fuss);
+        }
+    }
+
+    private static void schreibeZeilen(Writer writer, List<String> zeilen) throws IOException {
+        for (String zeile : zeilen) {
+            writer.write(zeile);
+            writer.write("\r\n");
+        }
+    }
+
+    /**
+     * Löscht ein Verzeichnis samt Inhalt.
+     *
+     * @param verzeichnis - wird gelöscht, wenn es existiert
+     * @throws IOException - Fehler
+     */
+    static void loesche(Path verzeichnis) throws IOException {
+        if (verzeichnis == null || !Files.exists(verzeichnis)) {
+            return;
+        }
+        Files.walkFileTree(verzeichnis, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
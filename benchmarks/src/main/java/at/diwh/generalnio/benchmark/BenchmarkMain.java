@@ -0,0 +1,43 @@
+package at.diwh.generalnio.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Startet die Benchmarks wie org.openjdk.jmh.Main (alle JMH-Kommandozeilenoptionen gelten), aber immer mit dem
+ * GC-Profiler, damit neben dem Durchsatz auch die Allokationsrate (gc.alloc.rate.norm = Bytes pro Operation)
+ * ausgegeben wird. Das Ergebnis landet zusätzlich in jmh-result.json; zwei solche Dateien lassen sich z.B. mit
+ * einem JMH-Visualizer gegeneinander vergleichen.<br/>
+ * <br/>
+ * <code>java -jar target/benchmarks.jar</code> - alle Benchmarks<br/>
+ * <code>java -jar target/benchmarks.jar LeseBinaerBenchmark -p blocksize=2048,65536</code> - Auswahl
+ *
+ * @author diwh
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+        // nur main
+    }
+
+    /**
+     * @param args - JMH-Optionen, z.B. ein Regex für die Benchmarks
+     * @throws Exception - Fehler
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions kommandozeile = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(kommandozeile);
+        builder.addProfiler(GCProfiler.class);
+        if (!kommandozeile.getResult().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+            builder.result("jmh-result.json");
+        }
+        Options optionen = builder.build();
+        new Runner(optionen).run();
+    }
+}
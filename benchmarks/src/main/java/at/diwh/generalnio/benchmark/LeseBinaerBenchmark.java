@@ -0,0 +1,104 @@
+package at.diwh.generalnio.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.diwh.generalnio.core.ByteBufferPool;
+import at.diwh.generalnio.core.GeneralNIOFileAccess;
+import at.diwh.generalnio.core.PooledBuffer;
+
+/**
+ * Binärdatei lesen mit verschiedenen Blockgrößen; 0 heißt ganze Datei. <i>leseFile</i> kopiert jeden Block in ein
+ * eigenes byte[], <i>leseFileMapped</i> liefert Slices eines Mappings, <i>leseBloecke</i> verwendet ein byte[]
+ * wieder, <i>leseBuffer</i> und <i>leseFileGepoolt</i> lesen über einen FileChannel in direkte ByteBuffer (bei 0 so
+ * groß wie die Datei). Ergebnis in Dateien pro Sekunde.
+ *
+ * @author diwh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeseBinaerBenchmark {
+
+    @Param({"0", "2048", "65536", "1048576"})
+    private int blocksize;
+
+    @Param({"16777216"})
+    private long groesse;
+
+    private Path verzeichnis;
+    private String datei;
+    private ByteBuffer puffer;
+    private ByteBufferPool pool;
+
+    @Setup
+    public void erzeugeDaten() throws Exception {
+        this.verzeichnis = Files.createTempDirectory("gnio-bench-binaer");
+        Path p = this.verzeichnis.resolve("daten.bin");
+        BenchmarkDaten.erzeugeBinaerdatei(p, this.groesse);
+        this.datei = p.toString();
+        int puffergroesse = this.blocksize > 0 ? this.blocksize : (int) this.groesse;
+        this.puffer = ByteBuffer.allocateDirect(puffergroesse);
+        this.pool = new ByteBufferPool(2, puffergroesse, true);
+    }
+
+    @TearDown
+    public void loescheDaten() throws Exception {
+        BenchmarkDaten.loesche(this.verzeichnis);
+    }
+
+    @Benchmark
+    public void leseFile(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseFile(this.datei, null, null, this.blocksize, (byte[] block) -> bh.consume(block));
+    }
+
+    @Benchmark
+    public void leseFileMapped(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseFileMapped(this.datei, null, this.blocksize, (ByteBuffer block) -> bh.consume(
+            block.get(block.limit() - 1)));
+    }
+
+    @Benchmark
+    public void leseBloecke(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseBloecke(this.datei, null, this.blocksize, (block, laenge) -> {
+            bh.consume(block[laenge - 1]);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void leseBuffer(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseBuffer(this.datei, null, this.puffer, block -> {
+            bh.consume(block.get(block.limit() - 1));
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void leseFileGepoolt(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseFileGepoolt(this.datei, null, this.pool, (PooledBuffer block) -> {
+            ByteBuffer buffer = block.getBuffer();
+            bh.consume(buffer.get(buffer.limit() - 1));
+            block.freigeben();
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package at.diwh.generalnio.benchmark;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.diwh.generalnio.core.GeneralNIOFileAccess;
+
+/**
+ * Textdatei lesen: <i>leseFile</i> zeilenweise (blocksize 1) und als Ganzes (blocksize 0), <i>leseZeilen</i> mit
+ * LineHandler, <i>leseZeichen</i> in einen StringBuilder und <i>leseFileParallel</i> auf dem gemeinsamen
+ * ForkJoinPool, dazu zum Vergleich <i>scanneZeilen</i> ohne String pro Zeile. Ergebnis in Dateien pro Sekunde.
+ *
+ * @author diwh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeseTextBenchmark {
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    private String charsetName;
+
+    @Param({"200000"})
+    private int zeilen;
+
+    private Path verzeichnis;
+    private String datei;
+    private Charset charset;
+
+    @Setup
+    public void erzeugeDaten() throws Exception {
+        this.charset = Charset.forName(this.charsetName);
+        this.verzeichnis = Files.createTempDirectory("gnio-bench-text");
+        Path p = this.verzeichnis.resolve("text.txt");
+        BenchmarkDaten.erzeugeTextdatei(p, this.zeilen, 60, this.charset);
+        this.datei = p.toString();
+    }
+
+    @TearDown
+    public void loescheDaten() throws Exception {
+        BenchmarkDaten.loesche(this.verzeichnis);
+    }
+
+    @Benchmark
+    public void leseFileZeilenweise(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseFile(this.datei, null, this.charset, 1, (String zeile) -> bh.consume(zeile));
+    }
+
+    @Benchmark
+    public void leseFileGanz(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseFile(this.datei, null, this.charset, 0, (String text) -> bh.consume(text));
+    }
+
+    @Benchmark
+    public void leseZeilen(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.leseZeilen(this.datei, null, this.charset, zeile -> {
+            bh.consume(zeile);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void leseZeichen(Blackhole bh) throws Exception {
+        bh.consume(GeneralNIOFileAccess.leseZeichen(this.datei, null, this.charset));
+    }
+
+    @Benchmark
+    public long leseFileParallel() throws Exception {
+        // der Blackhole ist nicht für mehrere Threads gedacht, daher zählt jeder Bereich selbst mit
+        Zaehler zaehler = GeneralNIOFileAccess.leseFileParallel(this.datei, null, this.charset, Zaehler::new,
+            Zaehler::plus);
+        return zaehler.zeichen;
+    }
+
+    @Benchmark
+    public void scanneZeilen(Blackhole bh) throws Exception {
+        GeneralNIOFileAccess.scanneZeilen(this.datei, null, this.charset, zeile -> bh.consume(zeile.getByteLaenge()));
+    }
+
+    /**
+     * Zählt die Zeichen eines Bereichs bei leseFileParallel.
+     */
+    private static final class Zaehler implements Consumer<String> {
+        private long zeichen;
+
+        @Override
+        public void accept(String zeile) {
+            this.zeichen = this.zeichen + zeile.length();
+        }
+
+        private Zaehler plus(Zaehler rechts) {
+            this.zeichen = this.zeichen + rechts.zeichen;
+            return this;
+        }
+    }
+}
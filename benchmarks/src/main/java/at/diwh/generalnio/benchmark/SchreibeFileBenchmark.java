@@ -0,0 +1,96 @@
+package at.diwh.generalnio.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.generalnio.core.GeneralNIOFileAccess;
+
+/**
+ * <i>schreibeFile</i> mit Überschreiben und Anhängen, einmal mit einem großen String und einmal mit vielen
+ * Datensätzen (Iterable-Variante).<br/>
+ * <br/>
+ * Jede Iteration ist ein einzelner Durchlauf mit genau {@value #SCHREIBVORGAENGE} Schreibvorgängen; die Datei wird
+ * vor jeder Iteration gelöscht. Beim Anhängen wächst sie also höchstens auf {@value #SCHREIBVORGAENGE} mal den
+ * geschriebenen Text (bei 10000 Datensätzen etwa 350 KB pro Schreibvorgang, zusammen rund 7 MB) und nicht mit der
+ * Zahl der Aufrufe, die in eine feste Messzeit passen. JMH zählt den ganzen Durchlauf als eine Operation, das
+ * Ergebnis ist also in Millisekunden für {@value #SCHREIBVORGAENGE} Schreibvorgänge. Ein anderes <code>-bs</code>
+ * auf der Kommandozeile ändert diese Obergrenze entsprechend.
+ *
+ * @author diwh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = SchreibeFileBenchmark.SCHREIBVORGAENGE)
+@Measurement(iterations = 20, batchSize = SchreibeFileBenchmark.SCHREIBVORGAENGE)
+@Fork(1)
+public class SchreibeFileBenchmark {
+
+    /** Schreibvorgänge pro Iteration, begrenzt die Dateigröße beim Anhängen */
+    static final int SCHREIBVORGAENGE = 20;
+
+    @Param({"false", "true"})
+    private boolean append;
+
+    @Param({"10000"})
+    private int datensaetze;
+
+    private Path verzeichnis;
+    private String datei;
+    private String text;
+    private List<String> zeilen;
+
+    @Setup
+    public void erzeugeDaten() throws Exception {
+        this.verzeichnis = Files.createTempDirectory("gnio-bench-schreiben");
+        this.datei = this.verzeichnis.resolve("out.txt").toString();
+        this.zeilen = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.datensaetze; i++) {
+            String zeile = "Datensatz " + i + ";Wert " + (i * 31 % 1000) + ";Größe " + (i % 97) + "\n";
+            this.zeilen.add(zeile);
+            sb.append(zeile);
+        }
+        this.text = sb.toString();
+    }
+
+    @Setup(Level.Iteration)
+    public void leereDatei() throws Exception {
+        Files.deleteIfExists(this.verzeichnis.resolve("out.txt"));
+    }
+
+    @TearDown
+    public void loescheDaten() throws Exception {
+        BenchmarkDaten.loesche(this.verzeichnis);
+    }
+
+    @Benchmark
+    public void schreibeString() throws Exception {
+        GeneralNIOFileAccess.schreibeFile(this.datei, this.text, Boolean.valueOf(this.append),
+            StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void schreibeDatensaetze() throws Exception {
+        GeneralNIOFileAccess.schreibeFile(this.datei, this.zeilen, Boolean.valueOf(this.append),
+            StandardCharsets.UTF_8);
+    }
+}
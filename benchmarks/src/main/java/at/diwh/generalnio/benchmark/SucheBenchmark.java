@@ -0,0 +1,119 @@
+package at.diwh.generalnio.benchmark;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.diwh.generalnio.core.GeneralNIOFileAccess;
+
+/**
+ * Die <i>holeAlle...</i>-Suchen und <i>holeDateibaum</i> über einen synthetischen Baum, dazu als Vergleich die
+ * nackten JDK-Varianten Files.walk und Files.walkFileTree. Ergebnis in Suchen pro Sekunde.
+ *
+ * @author diwh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SucheBenchmark {
+
+    /**
+     * Tiefe, Breite und Dateien pro Verzeichnis; 3/6/20 sind 259 Verzeichnisse und gut 5000 Dateien.
+     */
+    @Param({"3"})
+    private int tiefe;
+
+    @Param({"6"})
+    private int breite;
+
+    @Param({"20"})
+    private int dateien;
+
+    private Path verzeichnis;
+    private String wurzel;
+
+    @Setup
+    public void erzeugeDaten() throws Exception {
+        this.verzeichnis = Files.createTempDirectory("gnio-bench-suche");
+        Path baum = this.verzeichnis.resolve("baum");
+        BenchmarkDaten.erzeugeVerzeichnisbaum(baum, this.tiefe, this.breite, this.dateien);
+        this.wurzel = baum.toString();
+    }
+
+    @TearDown
+    public void loescheDaten() throws Exception {
+        BenchmarkDaten.loesche(this.verzeichnis);
+    }
+
+    @Benchmark
+    public List<String> holeAlleFilesMitNameEnthaelt() throws Exception {
+        return GeneralNIOFileAccess.holeAlleFilesMitNameEnthaeltVonVerzeichnis(this.wurzel, "_1");
+    }
+
+    @Benchmark
+    public List<String> holeAlleFilesMitNameEndet() throws Exception {
+        return GeneralNIOFileAccess.holeAlleFilesMitNameEndetVonVerzeichnis(this.wurzel, ".csv");
+    }
+
+    @Benchmark
+    public List<String> holeAlleUnterverzeichnisseMitNameEnthaelt() throws Exception {
+        return GeneralNIOFileAccess.holeAlleUnterverzeichnisseMitNameEnthaeltVonVerzeichnis(this.wurzel, "archiv");
+    }
+
+    @Benchmark
+    public List<Path> holeDateibaum() throws Exception {
+        return GeneralNIOFileAccess.holeDateibaum(this.wurzel, new ArrayList<>());
+    }
+
+    @Benchmark
+    public List<Path> holeDateibaumParallel() throws Exception {
+        return GeneralNIOFileAccess.holeDateibaumParallel(this.wurzel, new ArrayList<>());
+    }
+
+    @Benchmark
+    public List<String> jdkFilesWalk() throws Exception {
+        try (Stream<Path> pfade = Files.walk(this.verzeichnis.resolve("baum"))) {
+            return pfade.filter(p -> p.getFileName().toString().endsWith(".csv") && Files.isRegularFile(p))
+                .map(Path::toString).collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public List<String> jdkWalkFileTree() throws Exception {
+        List<String> treffer = new ArrayList<>();
+        Files.walkFileTree(this.verzeichnis.resolve("baum"), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".csv")) {
+                    treffer.add(file.toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return treffer;
+    }
+}
@@ -0,0 +1,108 @@
+package at.diwh.generalnio.benchmark;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.diwh.generalnio.consumer.FixedWidthToCsvConsumer;
+import at.diwh.generalnio.consumer.TransformTxtToCsvConsumer;
+import at.diwh.generalnio.core.GeneralNIOFileAccess;
+
+/**
+ * Umwandlung eines DB2-Exports mit fixen Spalten in CSV: der TransformTxtToCsvConsumer sammelt alles in einer Liste,
+ * der FixedWidthToCsvConsumer schreibt direkt in einen Writer (hier einen, der alles verwirft). Die Daten sind der
+ * Block aus /testdata/demo.txt, <i>wiederholungen</i> mal hintereinander. Ergebnis in Dateien pro Sekunde.
+ *
+ * @author diwh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformTxtToCsvBenchmark {
+
+    @Param({"50"})
+    private int wiederholungen;
+
+    private Path verzeichnis;
+    private String datei;
+
+    @Setup
+    public void erzeugeDaten() throws Exception {
+        this.verzeichnis = Files.createTempDirectory("gnio-bench-csv");
+        Path p = this.verzeichnis.resolve("export.txt");
+        BenchmarkDaten.erzeugeFixedWidthDatei(p, this.wiederholungen);
+        this.datei = p.toString();
+    }
+
+    @TearDown
+    public void loescheDaten() throws Exception {
+        BenchmarkDaten.loesche(this.verzeichnis);
+    }
+
+    @Benchmark
+    public List<String> transformTxtToCsv() throws Exception {
+        TransformTxtToCsvConsumer<String> consumer = new TransformTxtToCsvConsumer<>();
+        GeneralNIOFileAccess.leseFile(this.datei, null, StandardCharsets.ISO_8859_1, 1, consumer);
+        return consumer.getData();
+    }
+
+    @Benchmark
+    public long fixedWidthToCsv(Blackhole bh) throws Exception {
+        FixedWidthToCsvConsumer<String> consumer = new FixedWidthToCsvConsumer<>(new VerwerfenderWriter(bh), true,
+            false);
+        GeneralNIOFileAccess.leseFile(this.datei, null, StandardCharsets.ISO_8859_1, 1, consumer);
+        return consumer.getAnzahlZeilen();
+    }
+
+    /**
+     * Schreibt nirgendwohin, damit nur die Umwandlung gemessen wird; der Blackhole verhindert, dass der JIT das
+     * Schreiben ganz wegoptimiert.
+     */
+    private static final class VerwerfenderWriter extends Writer {
+        private final Blackhole bh;
+
+        private VerwerfenderWriter(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            this.bh.consume(len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            this.bh.consume(len);
+        }
+
+        @Override
+        public void flush() {
+            // nichts zu tun
+        }
+
+        @Override
+        public void close() {
+            // nichts zu tun
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package at.diwh.generalnio.consumer;
+
+/**
+ * Bekommt ein Binärfile Block für Block, siehe <i>GeneralNIOFileAccess.leseBloecke</i>.<br/>
+ * <b>Achtung:</b> Der Puffer wird für den nächsten Block wiederverwendet, es wird also pro Block kein neues byte[]
+ * angelegt. Wer die Daten über den Aufruf hinaus braucht, muss sie kopieren (z.B. Arrays.copyOf(puffer, laenge)).
+ * 
+ * @author diwh
+ */
+@FunctionalInterface
+public interface BlockHandler {
+
+    /**
+     * @param puffer - die Daten stehen ab Index 0
+     * @param laenge - so viele Bytes sind gültig
+     * @return - true: weiterlesen, false: aufhören
+     */
+    boolean block(byte[] puffer, int laenge);
+}
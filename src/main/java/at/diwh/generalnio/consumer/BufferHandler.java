@@ -0,0 +1,19 @@
+package at.diwh.generalnio.consumer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bekommt ein Binärfile Block für Block in einem ByteBuffer, siehe <i>GeneralNIOFileAccess.leseBuffer</i>.<br/>
+ * <b>Achtung:</b> Es ist immer derselbe Buffer, er ist nur innerhalb des Aufrufs gültig.
+ * 
+ * @author diwh
+ */
+@FunctionalInterface
+public interface BufferHandler {
+
+    /**
+     * @param buffer - position 0, limit = Anzahl gültiger Bytes; darf gelesen und dabei verschoben werden
+     * @return - true: weiterlesen, false: aufhören
+     */
+    boolean buffer(ByteBuffer buffer);
+}
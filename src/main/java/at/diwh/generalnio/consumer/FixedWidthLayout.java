@@ -0,0 +1,125 @@
+package at.diwh.generalnio.consumer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Ein vorberechnetes Spaltenlayout für Textdateien mit fixer Spaltenbreite, wie sie z.B. DB2 beim Export schreibt.
+ * Die Spaltengrenzen werden einmal aus der Trennzeile ("------- ---- ---") ermittelt und als Offset-Tabelle
+ * abgelegt; pro Zeile wird dann nur mehr gerechnet und nichts mehr angelegt.<br/>
+ * Felder werden wie mit String.trim() getrimmt, aber ohne dafür einen String zu erzeugen.
+ * 
+ * @author diwh
+ */
+public final class FixedWidthLayout {
+
+    private final int[] start;
+    private final int[] ende;
+    private final String trennzeile;
+
+    private FixedWidthLayout(int[] start, int[] ende, String trennzeile) {
+        super();
+        this.start = start;
+        this.ende = ende;
+        this.trennzeile = trennzeile;
+    }
+
+    /**
+     * Ermittelt das Layout aus einer Trennzeile: jede Gruppe von Strichen ist eine Spalte, das Leerzeichen danach
+     * gehört noch zur Spalte. Das letzte Feld reicht bis zum Zeilenende, auch wenn der Sender es nicht mit
+     * Leerzeichen aufgefüllt hat.
+     * 
+     * @param trennzeile - z.B. "------- -------------- ----------"
+     * @return - das Layout
+     */
+    public static FixedWidthLayout ausTrennzeile(String trennzeile) {
+        String[] spalten = trennzeile.split(" ");
+        int[] start = new int[spalten.length];
+        int[] ende = new int[spalten.length];
+        int position = 0;
+        for (int i = 0; i < spalten.length; i++) {
+            start[i] = position;
+            position = position + spalten[i].length() + 1;
+            ende[i] = position;
+        }
+        return new FixedWidthLayout(start, ende, trennzeile);
+    }
+
+    /**
+     * @return die Anzahl der Spalten
+     */
+    public int getAnzahlFelder() {
+        return this.start.length;
+    }
+
+    /**
+     * @return die Trennzeile, aus der das Layout ermittelt wurde
+     */
+    public String getTrennzeile() {
+        return this.trennzeile;
+    }
+
+    /**
+     * @param zeile - eine Datenzeile
+     * @param feld - die Spalte, ab 0
+     * @return - true, wenn das Feld nach dem Trimmen leer ist
+     */
+    public boolean istLeer(String zeile, int feld) {
+        long grenzen = getrimmt(zeile, feld);
+        return von(grenzen) == bis(grenzen);
+    }
+
+    /**
+     * Schreibt den getrimmten Inhalt eines Felds direkt in den Writer, ohne substring und trim.
+     * 
+     * @param zeile - eine Datenzeile
+     * @param feld - die Spalte, ab 0
+     * @param out - hierhin wird geschrieben
+     * @throws IOException - Fehler beim Schreiben
+     */
+    public void schreibeFeld(String zeile, int feld, Writer out) throws IOException {
+        long grenzen = getrimmt(zeile, feld);
+        out.write(zeile, von(grenzen), bis(grenzen) - von(grenzen));
+    }
+
+    /**
+     * Hängt den getrimmten Inhalt eines Felds an einen StringBuilder an, ohne substring und trim.
+     * 
+     * @param zeile - eine Datenzeile
+     * @param feld - die Spalte, ab 0
+     * @param sb - hier wird angehängt
+     */
+    public void haengeFeldAn(String zeile, int feld, StringBuilder sb) {
+        long grenzen = getrimmt(zeile, feld);
+        sb.append(zeile, von(grenzen), bis(grenzen));
+    }
+
+    /**
+     * Trimmt ein Feld wie String.trim(). Damit dafür nichts angelegt werden muss, kommen beide Grenzen in einem long
+     * zurück, auszupacken mit {@link #von(long)} und {@link #bis(long)}.
+     * 
+     * @param zeile - eine Datenzeile
+     * @param feld - die Spalte, ab 0
+     * @return - Anfang (inklusive) in den oberen, Ende (exklusive) in den unteren 32 Bit
+     */
+    private long getrimmt(String zeile, int feld) {
+        int laenge = zeile.length();
+        int von = Math.min(this.start[feld], laenge);
+        int bis = Math.min(this.ende[feld], laenge);
+        while (von < bis && zeile.charAt(von) <= ' ') {
+            von++;
+        }
+        while (bis > von && zeile.charAt(bis - 1) <= ' ') {
+            bis--;
+        }
+        return ((long) von << 32) | bis;
+    }
+
+    private static int von(long grenzen) {
+        return (int) (grenzen >>> 32);
+    }
+
+    private static int bis(long grenzen) {
+        return (int) grenzen;
+    }
+}
@@ -0,0 +1,180 @@
+package at.diwh.generalnio.consumer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Wandelt eine Textdatei mit fixer Spaltenbreite (z.B. einen DB2-Export) beim zeilenweisen Lesen direkt in CSV um und
+ * schreibt das Ergebnis sofort in einen Writer, es wird also nichts im Speicher gesammelt.<br/>
+ * Wie beim {@link TransformTxtToCsvConsumer} beginnt ein Datenblock nach einer Zeile, die mit --- anfängt, und endet
+ * mit der Zeile, in der <i>record(s) selected.</i> steht. Das Spaltenlayout wird aber nicht fix vorgegeben, sondern
+ * aus genau dieser Trennzeile ermittelt ({@link FixedWidthLayout}); mehrere Blöcke mit verschiedenen Layouts in einer
+ * Datei sind daher kein Problem.<br/>
+ * Fehler beim Schreiben landen in <i>getExceptions()</i>, danach wird nichts mehr geschrieben.
+ * 
+ * @author diwh
+ * @param <T> - Generic
+ */
+public class FixedWidthToCsvConsumer<T> implements Consumer<T> {
+
+    private final Writer out;
+    private final String trenner;
+    private final String zeilenumbruch;
+    private final boolean leereZeilenUeberspringen;
+    private final boolean mitKopfzeile;
+    private final List<String> exceptions = new ArrayList<>();
+    private final Block block = new Block();
+    private String vorherigeZeile;
+    private long anzahlZeilen;
+
+    /**
+     * Mit ";" als Trenner und System.lineSeparator() als Zeilenumbruch.
+     * 
+     * @param out - hierhin wird das CSV geschrieben; wird nicht geschlossen, das macht der Aufrufer
+     * @param leereZeilenUeberspringen - true: Zeilen, in denen alle Felder leer sind, werden nicht geschrieben
+     * @param mitKopfzeile - true: die Zeile vor der Trennzeile (die Spaltennamen) wird als erste CSV-Zeile
+     *            geschrieben
+     */
+    public FixedWidthToCsvConsumer(Writer out, boolean leereZeilenUeberspringen, boolean mitKopfzeile) {
+        this(out, ";", System.lineSeparator(), leereZeilenUeberspringen, mitKopfzeile);
+    }
+
+    /**
+     * @param out - hierhin wird das CSV geschrieben; wird nicht geschlossen, das macht der Aufrufer
+     * @param trenner - kommt nach jedem Feld, auch nach dem letzten
+     * @param zeilenumbruch - kommt nach jeder CSV-Zeile
+     * @param leereZeilenUeberspringen - true: Zeilen, in denen alle Felder leer sind, werden nicht geschrieben
+     * @param mitKopfzeile - true: die Zeile vor der Trennzeile (die Spaltennamen) wird als erste CSV-Zeile
+     *            geschrieben
+     */
+    public FixedWidthToCsvConsumer(Writer out, String trenner, String zeilenumbruch, boolean leereZeilenUeberspringen,
+        boolean mitKopfzeile) {
+        super();
+        this.out = out;
+        this.trenner = trenner;
+        this.zeilenumbruch = zeilenumbruch;
+        this.leereZeilenUeberspringen = leereZeilenUeberspringen;
+        this.mitKopfzeile = mitKopfzeile;
+    }
+
+    @Override
+    public void accept(T t) {
+        String input = (String) t;
+        if (!this.exceptions.isEmpty()) {
+            return; // nach einem Schreibfehler hat es keinen Sinn mehr
+        }
+        try {
+            if (this.block.istDatenzeile(input)) {
+                if (schreibeZeile(this.block.layout, input, this.trenner, this.leereZeilenUeberspringen, this.out)) {
+                    this.out.write(this.zeilenumbruch);
+                    this.anzahlZeilen++;
+                }
+            } else if (this.block.layout != null && this.mitKopfzeile && this.vorherigeZeile != null) {
+                // gerade eine Trennzeile: die Zeile davor sind die Spaltennamen
+                schreibeZeile(this.block.layout, this.vorherigeZeile, this.trenner, false, this.out);
+                this.out.write(this.zeilenumbruch);
+            }
+        } catch (IOException e) {
+            this.exceptions.add(e.getMessage());
+        }
+        this.vorherigeZeile = input;
+    }
+
+    /**
+     * Dieselbe Umwandlung als Stufe für eine Pipeline (at.diwh.generalnio.core.Pipeline): jede Datenzeile wird als
+     * CSV-Zeile ohne Zeilenumbruch weitergegeben, alles andere wird verschluckt. Die Stufe merkt sich, ob sie gerade in
+     * einem Datenblock ist, sie gehört also zu genau einer Pipeline.
+     * 
+     * @param trenner - kommt nach jedem Feld, auch nach dem letzten
+     * @param leereZeilenUeberspringen - true: Zeilen, in denen alle Felder leer sind, werden nicht weitergegeben
+     * @return - die Stufe
+     */
+    public static BiConsumer<String, Consumer<String>> alsStufe(String trenner, boolean leereZeilenUeberspringen) {
+        Block block = new Block();
+        StringWriter csv = new StringWriter();
+        return (zeile, weiter) -> {
+            if (!block.istDatenzeile(zeile)) {
+                return;
+            }
+            csv.getBuffer().setLength(0);
+            try {
+                if (schreibeZeile(block.layout, zeile, trenner, leereZeilenUeberspringen, csv)) {
+                    weiter.accept(csv.toString());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // kommt bei einem StringWriter nicht vor
+            }
+        };
+    }
+
+    /**
+     * Erkennt die Datenblöcke: sie beginnen nach einer Zeile, die mit --- anfängt, und enden mit der Zeile, in der
+     * <i>record(s) selected.</i> steht.
+     */
+    private static final class Block {
+        private FixedWidthLayout layout; // null: gerade außerhalb eines Blocks
+
+        /**
+         * @return true bei einer Datenzeile; Trennzeile und Endezeile schalten nur um
+         */
+        private boolean istDatenzeile(String zeile) {
+            if (this.layout == null) {
+                if (zeile.startsWith("---")) {
+                    this.layout = FixedWidthLayout.ausTrennzeile(zeile);
+                }
+                return false;
+            }
+            if (zeile.contains("record(s) selected.")) {
+                this.layout = null;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Schreibt die getrimmten Felder einer Zeile, jedes gefolgt vom Trenner, ohne Zeilenumbruch.
+     * 
+     * @return false, wenn die Zeile übersprungen wurde, weil alle Felder leer sind
+     */
+    private static boolean schreibeZeile(FixedWidthLayout layout, String zeile, String trenner,
+        boolean leereZeilenUeberspringen, Writer out) throws IOException {
+        if (leereZeilenUeberspringen && istLeer(layout, zeile)) {
+            return false;
+        }
+        for (int i = 0; i < layout.getAnzahlFelder(); i++) {
+            layout.schreibeFeld(zeile, i, out);
+            out.write(trenner);
+        }
+        return true;
+    }
+
+    private static boolean istLeer(FixedWidthLayout layout, String zeile) {
+        for (int i = 0; i < layout.getAnzahlFelder(); i++) {
+            if (!layout.istLeer(zeile, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Liste von Exceptions als String
+     */
+    public List<String> getExceptions() {
+        return new ArrayList<>(this.exceptions); // sodass der Aufrufer nicht ein getExceptions.add... machen kann
+    }
+
+    /**
+     * @return die Anzahl der geschriebenen Datenzeilen (ohne Kopfzeile)
+     */
+    public long getAnzahlZeilen() {
+        return this.anzahlZeilen;
+    }
+}
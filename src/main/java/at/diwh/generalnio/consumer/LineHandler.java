@@ -0,0 +1,18 @@
+package at.diwh.generalnio.consumer;
+
+/**
+ * Bekommt ein Textfile Zeile für Zeile, siehe <i>GeneralNIOFileAccess.leseZeilen</i>. Im Gegensatz zu einem
+ * Consumer&lt;T&gt; steht der Typ schon beim Aufruf fest, es gibt also keinen Cast pro Zeile, und der Rückgabewert
+ * ersetzt den {@link ShortCircuitingConsumer}.
+ * 
+ * @author diwh
+ */
+@FunctionalInterface
+public interface LineHandler {
+
+    /**
+     * @param zeile - die Zeile ohne Zeilenumbruch
+     * @return - true: weiterlesen, false: aufhören
+     */
+    boolean zeile(String zeile);
+}
@@ -2,14 +2,15 @@ package at.diwh.generalnio.consumer;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Consumer;
 /**
+ * Speichert nur die ersten N Zeilen. Da der Consumer ein {@link ShortCircuitingConsumer} ist, hört leseFile nach der
+ * N-ten Zeile auf zu lesen.
  * 
  * @author diwh
  *
  * @param <T> - Generic
  */
-public class ReadNxLinesTextConsumer<T> implements Consumer<T> {
+public class ReadNxLinesTextConsumer<T> implements ShortCircuitingConsumer<T> {
 
     private List<String> data = new ArrayList<>();
     private Integer numberOfLinesToBeRead;
@@ -43,6 +44,11 @@ public class ReadNxLinesTextConsumer<T> implements Consumer<T> {
         }
     }
 
+    @Override
+    public boolean istFertig() {
+        return this.counter.intValue() >= this.numberOfLinesToBeRead.intValue();
+    }
+
     /**
      * @return Liste von Exceptions als String
      */
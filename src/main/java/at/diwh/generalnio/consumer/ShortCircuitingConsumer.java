@@ -0,0 +1,19 @@
+package at.diwh.generalnio.consumer;
+
+import java.util.function.Consumer;
+
+/**
+ * Ein Consumer, der dem Leser sagen kann, dass er nichts mehr braucht. Die Lesemethoden aus GeneralNIOFileAccess
+ * fragen vor jeder Zeile bzw. jedem Block <i>istFertig()</i> ab und hören auf zu lesen, sobald true kommt.<br/>
+ * Damit kostet z.B. das Lesen der Kopfzeile einer CSV-Datei nur mehr die eine Zeile und nicht die ganze Datei.
+ * 
+ * @author diwh
+ * @param <T> - Generic
+ */
+public interface ShortCircuitingConsumer<T> extends Consumer<T> {
+
+    /**
+     * @return true, wenn der Consumer keine weiteren Daten mehr braucht
+     */
+    boolean istFertig();
+}
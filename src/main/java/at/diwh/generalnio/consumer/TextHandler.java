@@ -0,0 +1,15 @@
+package at.diwh.generalnio.consumer;
+
+/**
+ * Bekommt ein Textfile als Ganzes, siehe <i>GeneralNIOFileAccess.leseText</i>.
+ * 
+ * @author diwh
+ */
+@FunctionalInterface
+public interface TextHandler {
+
+    /**
+     * @param text - der ganze Inhalt der Datei
+     */
+    void text(String text);
+}
@@ -8,7 +8,9 @@ import java.util.function.Consumer;
 /**
  * Demo wie man eine Textdatei in eine CSV Datei verwandelt. Die Textdatei ist hier eine verunstaltete DEMO Datei Wie im
  * Original zeigt die Zeile, in der <i>record(s) selected.</i> steht, das Ende des Blocks und eine Zeile, die mit ---
- * beginnt zeigt den Anfang des Blocks an, der in CVS verwandelt werden soll.
+ * beginnt zeigt den Anfang des Blocks an, der in CVS verwandelt werden soll.<br/>
+ * Für große Dateien besser den {@link FixedWidthToCsvConsumer} nehmen, der schreibt direkt in einen Writer, statt alle
+ * Zeilen in <i>getData()</i> zu sammeln.
  * 
  * @author diwh
  * @param <T> - Generic
@@ -20,8 +22,8 @@ public class TransformTxtToCsvConsumer<T> implements Consumer<T> {
     private Boolean breakLineGefunden = Boolean.FALSE;
     private static final String LAENGENMA = "------- -------------- ---------- ------------ --------------------------------------------- ------ ------------ ------------- ---------------- -------- ------------- ------------- ---------------------------------------------- -------------- -------------- ----------------- ---------------------------------------------- ------------------- ------------------- ---------------------------------- -------- ----------------------- ---------------------- ---------------- ---- ---- ------ ------ --------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------";
     private static final String FELDNAMEN = "YAYTOPA 6              YUNAASOENA EUUNESNAEESO PE_NENA                                       APNR   EE           EUUNESANAETUN ANTOESSUNTSAETUN ARARTNRS ARARTNRSAETUN ASNR_PETRANT  NENA_PETRANT                                   TAYAET_PETRANT TASASO_PETRANT ASNR_AARSRASARTAR NENA_AARSRASARTAR                              TAYAET_AARSRASARTAR TASASO_AARSRASARTAR STREßA                             POE      ORT                     URSEASA                URANAAARSASUOAAN AERT ARET ARETU6 ARETU6 ARETTAAT";
-    private String[] geteilteFelder = LAENGENMA.split(" ");
-    private String[] geteilteFeldnamen = FELDNAMEN.split(" ");
+    private static final FixedWidthLayout LAYOUT = FixedWidthLayout.ausTrennzeile(LAENGENMA);
+    private final StringBuilder csv = new StringBuilder();
 
     @Override
     public void accept(T t) {
@@ -30,25 +32,12 @@ public class TransformTxtToCsvConsumer<T> implements Consumer<T> {
             if (input.contains("record(s) selected.")) {
                 breakLineGefunden = Boolean.FALSE;
             } else {
-                int feldnamenIndex = 0;
-                StringBuilder csv = new StringBuilder();
-                int startPos = 0;
-                int endPos = 0;
-                int dataStringLength = input.length();
-                for (String element : geteilteFelder) {
-                    int laengeFeld = element.length() + 1; // ((feldnamenIndex + 1) < geteilteFelder.length ? 1 : 0);
-                    endPos = endPos + laengeFeld;
-                    System.out.println("Scanne von Position " + startPos + " bis Position " + endPos);
-                    // letzte Spalte wird nicht mit Leerzeichen gefüllt vom Sender, d.h. Sonderfall am Ende!
-                    if (endPos > dataStringLength) {
-                        endPos = dataStringLength;
-                    }
-                    String feld = input.substring(startPos, endPos);
-                    csv.append(feld.trim());
+                // Spaltengrenzen kommen vorberechnet aus dem Layout; letzte Spalte wird nicht mit Leerzeichen
+                // gefüllt vom Sender, das kürzt das Layout selbst auf die Zeilenlänge
+                csv.setLength(0);
+                for (int i = 0; i < LAYOUT.getAnzahlFelder(); i++) {
+                    LAYOUT.haengeFeldAn(input, i, csv);
                     csv.append(";");
-                    startPos = endPos;
-                    System.out.println("Feldname: " + geteilteFeldnamen[feldnamenIndex] + " -> [" + feld.trim() + "]");
-                    feldnamenIndex++;
                 }
                 data.add(csv.toString());
             }
@@ -59,6 +48,20 @@ public class TransformTxtToCsvConsumer<T> implements Consumer<T> {
         }
     }
 
+    /**
+     * @return die Feldnamen, mit demselben Layout aus FELDNAMEN geschnitten wie die Daten
+     */
+    public List<String> getFeldnamen() {
+        List<String> feldnamen = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < LAYOUT.getAnzahlFelder(); i++) {
+            sb.setLength(0);
+            LAYOUT.haengeFeldAn(FELDNAMEN, i, sb);
+            feldnamen.add(sb.toString());
+        }
+        return feldnamen;
+    }
+
     /**
      * @return Liste von Exceptions als String
      */
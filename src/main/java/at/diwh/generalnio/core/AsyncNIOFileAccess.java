@@ -0,0 +1,366 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.OpenOption;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Die asynchrone Variante von {@link GeneralNIOFileAccess}: alle Methoden kehren sofort mit einem CompletableFuture
+ * zurück, gelesen und geschrieben wird über AsynchronousFileChannel. Damit kann ein Thread viele Dateien gleichzeitig
+ * anstoßen, ohne pro Datei blockiert zu sein; das Ergebnis wird mit thenAccept, thenCompose usw. weiterverkettet.<br/>
+ * <br/>
+ * Die Consumer werden auf den Threads des übergebenen ExecutorService aufgerufen, pro Datei aber immer schön der
+ * Reihe nach: der nächste Block wird erst gelesen, wenn der Consumer mit dem vorigen fertig ist.
+ * 
+ * @author diwh
+ */
+public class AsyncNIOFileAccess {
+
+    private static final int ZEICHENPUFFER = 8192;
+    /** beim zeilenweisen Lesen ist die Blocksize egal, gelesen wird in Blöcken dieser Größe */
+    private static final int ZEILENPUFFER = 64 * 1024;
+
+    private final ExecutorService executor;
+
+    /**
+     * Verwendet den Standard-Threadpool der AsynchronousFileChannel.
+     */
+    public AsyncNIOFileAccess() {
+        this(null);
+    }
+
+    /**
+     * @param executor - der Threadpool, auf dem die I/O-Completion und damit auch die Consumer laufen; null heißt
+     *            Standard-Threadpool
+     */
+    public AsyncNIOFileAccess(ExecutorService executor) {
+        super();
+        this.executor = executor;
+    }
+
+    /**
+     * Die asynchrone Variante von <i>GeneralNIOFileAccess.leseFile</i> für Filesystem-Files, mit derselben Bedeutung
+     * von <i>charset</i> und <i>blocksize</i>: <br/>
+     * Mit Charset und blocksize &gt; 0 wird zeilenweise gelesen (String pro Zeile), ohne Charset in Blöcken der
+     * angegebenen Größe (byte[] pro Block). Bei blocksize 0 oder kleiner wird die ganze Datei als ein String bzw.
+     * byte[] übergeben.<br/>
+     * Ist der Consumer ein ShortCircuitingConsumer, wird mit dem Lesen aufgehört, sobald er fertig ist.
+     * 
+     * @param <T> - wird abgeleitet aus dem Typ, den der Consumer erwartet
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param charset - wenn wir ein Textfile lesen, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param blocksize - die Blockgröße; 0 oder eine neg. Zahl bedeutet immer: File im Ganzen lesen
+     * @param consumer - eine Implementierung eines java.util.function.Consumer&lt;T&gt;
+     * @return - wird fertig, wenn die Datei gelesen ist, bzw. mit der Exception, die dabei aufgetreten ist
+     */
+    @SuppressWarnings("unchecked") // muss leider sein, weil Generics
+    public <T> CompletableFuture<Void> leseFile(String f, Charset charset, int blocksize, Consumer<T> consumer) {
+        if (blocksize <= 0) {
+            if (charset != null) {
+                return leseFileGanz(f, charset).thenAccept(text -> consumer.accept((T) text));
+            }
+            return leseFileGanz(f).thenAccept(daten -> consumer.accept((T) daten));
+        }
+        CompletableFuture<Void> ergebnis = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        try {
+            channel = oeffne(f, StandardOpenOption.READ);
+        } catch (IOException e) {
+            ergebnis.completeExceptionally(e);
+            return ergebnis;
+        }
+        BlockVerarbeiter verarbeiter;
+        int puffergroesse = blocksize;
+        if (charset != null) {
+            verarbeiter = new ZeilenZerleger((Consumer<String>) consumer, charset);
+            puffergroesse = ZEILENPUFFER;
+        } else {
+            verarbeiter = puffer -> {
+                consumer.accept((T) Arrays.copyOfRange(puffer.array(), puffer.position(), puffer.limit()));
+                puffer.position(puffer.limit());
+                return !GeneralNIOFileAccess.istFertig(consumer);
+            };
+        }
+        leseBlock(channel, ByteBuffer.allocate(puffergroesse), 0, verarbeiter, ergebnis);
+        return ergebnis;
+    }
+
+    /**
+     * Liest eine Binärdatei als Ganzes.
+     * 
+     * @param f - das File als String (Filesystem Filename)
+     * @return - der Inhalt der Datei
+     */
+    public CompletableFuture<byte[]> leseFileGanz(String f) {
+        CompletableFuture<byte[]> ergebnis = new CompletableFuture<>();
+        try {
+            AsynchronousFileChannel channel = oeffne(f, StandardOpenOption.READ);
+            long groesse = channel.size();
+            if (groesse > Integer.MAX_VALUE - 8) {
+                schliesse(channel);
+                throw new IOException("Datei zu groß für ein byte[]: " + f);
+            }
+            ByteBuffer puffer = ByteBuffer.allocate((int) groesse);
+            leseGanz(channel, puffer, ergebnis);
+        } catch (IOException e) {
+            ergebnis.completeExceptionally(e);
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Liest eine Textdatei als Ganzes.
+     * 
+     * @param f - das File als String (Filesystem Filename)
+     * @param charset - das Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @return - der Inhalt der Datei
+     */
+    public CompletableFuture<String> leseFileGanz(String f, Charset charset) {
+        return leseFileGanz(f).thenApply(daten -> new String(daten, charset));
+    }
+
+    /**
+     * Die asynchrone Variante von <i>GeneralNIOFileAccess.schreibeFile</i>: mit <i>charset</i> wird ein String
+     * geschrieben, ohne ein byte[].<br/>
+     * <b>Achtung:</b> AsynchronousFileChannel kennt kein APPEND; bei <i>append</i> wird ab der beim Öffnen aktuellen
+     * Dateigröße geschrieben. Zwei gleichzeitige asynchrone Appends auf dieselbe Datei überschreiben sich daher!
+     * 
+     * @param <T> - der Typ des Datenblocks, String bzw. byte[] sind möglich
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param dataToWrite - der zu schreibende Datenblock
+     * @param append - true, wenn an eine bestehende Datei angehängt werden soll, false: Datei wird überschrieben
+     * @param charset - wenn wir ein Textfile beschreiben, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @return - wird fertig, wenn alles geschrieben ist
+     */
+    public <T> CompletableFuture<Void> schreibeFile(String f, T dataToWrite, Boolean append, Charset charset) {
+        CompletableFuture<Void> ergebnis = new CompletableFuture<>();
+        try {
+            ByteBuffer daten;
+            if (charset != null) {  // Textfile, sonst wäre ein Charset ziemlich sinnlos
+                daten = charset.newEncoder().encode(CharBuffer.wrap((String) dataToWrite));
+            } else {
+                daten = ByteBuffer.wrap((byte[]) dataToWrite);
+            }
+            AsynchronousFileChannel channel;
+            long position = 0;
+            if (!append.booleanValue()) { // knallhart überschreiben
+                channel = oeffne(f, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            } else {
+                channel = oeffne(f, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                position = channel.size();
+            }
+            schreibeBlock(channel, daten, position, ergebnis);
+        } catch (IOException e) {
+            ergebnis.completeExceptionally(e);
+        }
+        return ergebnis;
+    }
+
+    private AsynchronousFileChannel oeffne(String f, OpenOption... optionen) throws IOException {
+        Set<OpenOption> optionenSet = new HashSet<>();
+        Collections.addAll(optionenSet, optionen);
+        return AsynchronousFileChannel.open(Paths.get(f), optionenSet, this.executor);
+    }
+
+    private static void leseBlock(AsynchronousFileChannel channel, ByteBuffer puffer, long position,
+        BlockVerarbeiter verarbeiter, CompletableFuture<Void> ergebnis) {
+        channel.read(puffer, position, null, new CompletionHandler<Integer, Void>() {
+
+            @Override
+            public void completed(Integer anzahl, Void attachment) {
+                try {
+                    boolean dateiende = anzahl.intValue() == -1;
+                    puffer.flip();
+                    // am Dateiende ohne Rest gibt es nichts mehr zu verarbeiten, sonst käme noch ein leerer Block
+                    boolean weiter = dateiende && !puffer.hasRemaining() || verarbeiter.verarbeite(puffer);
+                    if (weiter && dateiende) {
+                        verarbeiter.ende(puffer);
+                    }
+                    if (!weiter || dateiende) {
+                        schliesse(channel);
+                        ergebnis.complete(null);
+                        return;
+                    }
+                    puffer.compact(); // was der Verarbeiter nicht gebraucht hat, bleibt für den nächsten Block
+                    leseBlock(channel, puffer, position + anzahl.intValue(), verarbeiter, ergebnis);
+                } catch (Exception e) {
+                    failed(e, attachment);
+                }
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                schliesse(channel);
+                ergebnis.completeExceptionally(exc);
+            }
+        });
+    }
+
+    private static void leseGanz(AsynchronousFileChannel channel, ByteBuffer puffer,
+        CompletableFuture<byte[]> ergebnis) {
+        if (!puffer.hasRemaining()) {
+            schliesse(channel);
+            ergebnis.complete(puffer.array());
+            return;
+        }
+        channel.read(puffer, puffer.position(), null, new CompletionHandler<Integer, Void>() {
+
+            @Override
+            public void completed(Integer anzahl, Void attachment) {
+                if (anzahl.intValue() == -1) { // Datei ist inzwischen kürzer geworden
+                    schliesse(channel);
+                    ergebnis.complete(Arrays.copyOf(puffer.array(), puffer.position()));
+                    return;
+                }
+                leseGanz(channel, puffer, ergebnis);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                schliesse(channel);
+                ergebnis.completeExceptionally(exc);
+            }
+        });
+    }
+
+    private static void schreibeBlock(AsynchronousFileChannel channel, ByteBuffer daten, long position,
+        CompletableFuture<Void> ergebnis) {
+        if (!daten.hasRemaining()) {
+            schliesse(channel);
+            ergebnis.complete(null);
+            return;
+        }
+        channel.write(daten, position, null, new CompletionHandler<Integer, Void>() {
+
+            @Override
+            public void completed(Integer anzahl, Void attachment) {
+                schreibeBlock(channel, daten, position + anzahl.intValue(), ergebnis);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                schliesse(channel);
+                ergebnis.completeExceptionally(exc);
+            }
+        });
+    }
+
+    private static void schliesse(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // beim Schließen eines Lese-Channels gibt es nichts mehr zu retten
+        }
+    }
+
+    /**
+     * Verarbeitet einen gelesenen Block; was nicht verbraucht wird (position &lt; limit), bleibt für den nächsten
+     * Block im Puffer.
+     */
+    private interface BlockVerarbeiter {
+
+        /**
+         * @return - false, wenn nicht mehr weitergelesen werden soll
+         */
+        boolean verarbeite(ByteBuffer puffer) throws IOException;
+
+        /**
+         * Wird am Dateiende aufgerufen, der Puffer enthält den unverbrauchten Rest.
+         */
+        default void ende(ByteBuffer puffer) throws IOException {
+            // nichts zu tun
+        }
+    }
+
+    /**
+     * Dekodiert die Blöcke und zerlegt sie in Zeilen, wie BufferedReader.readLine: '\n', '\r' und "\r\n" beenden eine
+     * Zeile, der Zeilenumbruch selbst wird nicht übergeben.
+     */
+    private static final class ZeilenZerleger implements BlockVerarbeiter {
+
+        private final Consumer<String> consumer;
+        private final CharsetDecoder decoder;
+        private final CharBuffer zeichen = CharBuffer.allocate(ZEICHENPUFFER);
+        private final StringBuilder zeile = new StringBuilder();
+        private boolean letztesWarCR;
+
+        ZeilenZerleger(Consumer<String> consumer, Charset charset) {
+            super();
+            this.consumer = consumer;
+            this.decoder = charset.newDecoder();
+        }
+
+        @Override
+        public boolean verarbeite(ByteBuffer puffer) throws CharacterCodingException {
+            return dekodiere(puffer, false);
+        }
+
+        @Override
+        public void ende(ByteBuffer puffer) throws CharacterCodingException {
+            if (dekodiere(puffer, true)) {
+                this.decoder.flush(this.zeichen);
+                if (zerlege() && this.zeile.length() > 0) {
+                    this.consumer.accept(this.zeile.toString());
+                }
+            }
+        }
+
+        private boolean dekodiere(ByteBuffer puffer, boolean dateiende) throws CharacterCodingException {
+            while (true) {
+                CoderResult ergebnis = this.decoder.decode(puffer, this.zeichen, dateiende);
+                if (ergebnis.isError()) {
+                    ergebnis.throwException();
+                }
+                if (!zerlege()) {
+                    return false;
+                }
+                if (ergebnis.isUnderflow()) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean zerlege() {
+            this.zeichen.flip();
+            try {
+                while (this.zeichen.hasRemaining()) {
+                    char c = this.zeichen.get();
+                    if (this.letztesWarCR && c == '\n') {
+                        this.letztesWarCR = false;
+                        continue;
+                    }
+                    this.letztesWarCR = c == '\r';
+                    if (c == '\n' || c == '\r') {
+                        this.consumer.accept(this.zeile.toString());
+                        this.zeile.setLength(0);
+                        if (GeneralNIOFileAccess.istFertig(this.consumer)) {
+                            return false;
+                        }
+                    } else {
+                        this.zeile.append(c);
+                    }
+                }
+                return true;
+            } finally {
+                this.zeichen.clear();
+            }
+        }
+    }
+}
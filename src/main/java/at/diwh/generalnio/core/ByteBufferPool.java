@@ -0,0 +1,79 @@
+package at.diwh.generalnio.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Ein Pool von ByteBuffern fixer Größe, die einmal angelegt und danach immer wieder verliehen werden. Damit entsteht
+ * beim blockweisen Lesen im eingeschwungenen Zustand kein einziges neues Objekt mehr pro Block.<br/>
+ * Ist kein Puffer frei, wartet <i>ausleihen</i> so lange, bis jemand einen Puffer mit <i>freigeben</i> zurückgibt.
+ * Das ist gewollt, denn so bremst ein langsamer Consumer den Leser automatisch ein.
+ * 
+ * @author diwh
+ */
+public class ByteBufferPool {
+
+    private final BlockingQueue<PooledBuffer> freiePuffer;
+    private final int anzahlPuffer;
+    private final int puffergroesse;
+
+    /**
+     * Konstruktor, der verwendet werden MUSS
+     * 
+     * @param anzahlPuffer - wie viele Puffer gleichzeitig verliehen sein dürfen, mindestens 1
+     * @param puffergroesse - die Größe jedes Puffers in Bytes, entspricht der Blocksize beim Lesen
+     * @param direkt - true: Direct-Buffer außerhalb des Heaps (gut für FileChannel), false: Heap-Buffer
+     */
+    public ByteBufferPool(int anzahlPuffer, int puffergroesse, boolean direkt) {
+        super();
+        if (anzahlPuffer < 1 || puffergroesse < 1) {
+            throw new IllegalArgumentException("anzahlPuffer und puffergroesse müssen größer 0 sein");
+        }
+        this.anzahlPuffer = anzahlPuffer;
+        this.puffergroesse = puffergroesse;
+        this.freiePuffer = new ArrayBlockingQueue<>(anzahlPuffer);
+        for (int i = 0; i < anzahlPuffer; i++) {
+            ByteBuffer buffer = direkt ? ByteBuffer.allocateDirect(puffergroesse) : ByteBuffer.allocate(puffergroesse);
+            this.freiePuffer.add(new PooledBuffer(buffer, this));
+        }
+    }
+
+    /**
+     * Holt einen freien Puffer aus dem Pool, wartet notfalls bis einer frei wird.
+     * 
+     * @return - der geleerte Puffer (position 0, limit = capacity)
+     * @throws InterruptedException - wenn der wartende Thread unterbrochen wird
+     */
+    public PooledBuffer ausleihen() throws InterruptedException {
+        PooledBuffer pooledBuffer = this.freiePuffer.take();
+        pooledBuffer.ausgeliehen();
+        return pooledBuffer;
+    }
+
+    /**
+     * Wird von PooledBuffer.freigeben() aufgerufen.
+     * 
+     * @param pooledBuffer - der zurückgegebene Puffer
+     */
+    void zurueckgeben(PooledBuffer pooledBuffer) {
+        this.freiePuffer.add(pooledBuffer);
+    }
+
+    /**
+     * @return die Anzahl der Puffer, die derzeit nicht verliehen sind
+     */
+    public int getAnzahlFrei() {
+        return this.freiePuffer.size();
+    }
+
+    @SuppressWarnings("javadoc")
+    public int getAnzahlPuffer() {
+        return this.anzahlPuffer;
+    }
+
+    @SuppressWarnings("javadoc")
+    public int getPuffergroesse() {
+        return this.puffergroesse;
+    }
+}
@@ -0,0 +1,195 @@
+package at.diwh.generalnio.core;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Eine Zeile, wie sie der {@link LineScanner} liefert: eine Sicht auf einen Bytebereich im Lesepuffer, die zugleich
+ * eine CharSequence ist. Es wird erst dekodiert, wenn jemand tatsächlich auf die Zeichen zugreift; wer nur zählt oder
+ * die Bytes weiterreicht, bekommt die Zeile ohne jede Kopie.<br/>
+ * Bei ISO-8859-1 (und allen anderen Zeichensätzen, in denen jedes Byte genau ein Zeichen ist) wird überhaupt nicht
+ * dekodiert, charAt liest direkt das Byte. Bei ASCII-kompatiblen Zeichensätzen wie UTF-8 gilt dasselbe für Zeilen,
+ * die nur aus ASCII-Zeichen bestehen.<br/>
+ * <br/>
+ * <b>Achtung:</b> Das Objekt wird für jede Zeile wiederverwendet und ist nur innerhalb von <i>accept</i> gültig. Wer
+ * die Zeile behalten will, nimmt <i>toString()</i> oder <i>getBytes()</i>.<br/>
+ * Fehlerhafte Bytes werden wie bei <i>leseZeilen</i> nicht ersetzt: der erste Zugriff auf die Zeichen wirft dann eine
+ * UncheckedIOException mit der CharacterCodingException; der {@link LineScanner} packt sie wieder aus. Die Bytes
+ * selbst (byteAt, getBytes, kopiereNach) gehen immer.
+ *
+ * @author diwh
+ */
+public final class ByteLine implements CharSequence {
+
+    private final Charset charset;
+    private final boolean einByteProZeichen;
+    private final boolean asciiKompatibel;
+    private final CharsetDecoder decoder;
+
+    private byte[] daten;
+    private int offset;
+    private int laenge;
+    private long position;
+
+    // Zustand der Dekodierung der aktuellen Zeile
+    private boolean geprueft;
+    private boolean direkt;
+    private CharBuffer zeichen = CharBuffer.allocate(0);
+    private String text;
+
+    ByteLine(Charset charset) {
+        super();
+        this.charset = charset;
+        this.einByteProZeichen = TextDecoder.istEinByteProZeichen(charset);
+        this.asciiKompatibel = TextDecoder.istAsciiKompatibel(charset);
+        this.decoder = this.einByteProZeichen ? null : charset.newDecoder(); // meldet Fehler, wie newBufferedReader
+    }
+
+    void setze(byte[] daten, int offset, int laenge, long position) {
+        this.daten = daten;
+        this.offset = offset;
+        this.laenge = laenge;
+        this.position = position;
+        this.geprueft = false;
+        this.text = null;
+    }
+
+    /**
+     * @return - die Position des ersten Bytes der Zeile in der Datei
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * @return - die Länge der Zeile in Bytes, ohne Zeilenumbruch
+     */
+    public int getByteLaenge() {
+        return this.laenge;
+    }
+
+    /**
+     * @return - der Zeichensatz, mit dem bei Bedarf dekodiert wird
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * @return - true bei einer Leerzeile
+     */
+    public boolean istLeer() {
+        return this.laenge == 0;
+    }
+
+    /**
+     * @param index - Position in der Zeile, in Bytes
+     * @return - das Byte
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= this.laenge) {
+            throw new IndexOutOfBoundsException("index " + index + ", Länge " + this.laenge);
+        }
+        return this.daten[this.offset + index];
+    }
+
+    /**
+     * @return - eine Kopie der Bytes der Zeile
+     */
+    public byte[] getBytes() {
+        return Arrays.copyOfRange(this.daten, this.offset, this.offset + this.laenge);
+    }
+
+    /**
+     * Kopiert die Bytes der Zeile in einen Puffer, z.B. um sie ohne Dekodieren weiterzuschreiben.
+     *
+     * @param ziel - muss genug Platz haben
+     */
+    public void kopiereNach(ByteBuffer ziel) {
+        ziel.put(this.daten, this.offset, this.laenge);
+    }
+
+    @Override
+    public int length() {
+        pruefe();
+        return this.direkt ? this.laenge : this.zeichen.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        pruefe();
+        if (this.direkt) {
+            return (char) (byteAt(index) & 0xff);
+        }
+        return this.zeichen.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        pruefe();
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", Länge " + length());
+        }
+        if (this.direkt) {
+            return new String(this.daten, this.offset + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        return new String(this.zeichen.array(), start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (this.text == null) {
+            pruefe();
+            this.text = this.direkt
+                ? new String(this.daten, this.offset, this.laenge, StandardCharsets.ISO_8859_1)
+                : this.zeichen.toString();
+        }
+        return this.text;
+    }
+
+    /**
+     * Entscheidet beim ersten Zugriff auf die Zeichen, ob die Bytes direkt gelesen werden können, und dekodiert
+     * sonst in den wiederverwendeten CharBuffer.
+     */
+    private void pruefe() {
+        if (this.geprueft) {
+            return;
+        }
+        this.direkt = this.einByteProZeichen || (this.asciiKompatibel
+            && TextDecoder.istNurAscii(this.daten, this.offset, this.laenge));
+        if (!this.direkt) {
+            dekodiere();
+        }
+        this.geprueft = true; // erst nach erfolgreichem Dekodieren, ein zweiter Zugriff wirft also wieder
+    }
+
+    private void dekodiere() {
+        int benoetigt = (int) Math.ceil(this.laenge * (double) this.decoder.maxCharsPerByte());
+        if (this.zeichen.capacity() < benoetigt) {
+            this.zeichen = CharBuffer.allocate(benoetigt);
+        }
+        this.zeichen.clear();
+        this.decoder.reset();
+        CoderResult ergebnis = this.decoder.decode(ByteBuffer.wrap(this.daten, this.offset, this.laenge), this.zeichen,
+            true);
+        if (!ergebnis.isError()) {
+            ergebnis = this.decoder.flush(this.zeichen);
+        }
+        if (ergebnis.isError()) {
+            try {
+                ergebnis.throwException();
+            } catch (CharacterCodingException e) {
+                throw new UncheckedIOException("Zeile ab Byte " + this.position + " ist kein gültiges "
+                    + this.charset.name(), e);
+            }
+        }
+        this.zeichen.flip();
+    }
+}
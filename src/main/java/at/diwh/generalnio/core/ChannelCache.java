@@ -0,0 +1,322 @@
+package at.diwh.generalnio.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Ein LRU-Cache offener, nur lesender FileChannels, damit oft gelesene Dateien nicht bei jedem Zugriff geöffnet und
+ * geschlossen werden müssen. Gelesen wird positional (FileChannel.read(dst, position)), das ist ohne weitere
+ * Synchronisierung für beliebig viele Threads gleichzeitig sicher.<br/>
+ * <br/>
+ * Es sind höchstens <i>maxOffen</i> Channels im Cache; kommt ein weiterer dazu, fliegt der am längsten nicht benutzte
+ * hinaus. Channels werden gezählt ausgeliehen: ein verdrängter Channel wird erst geschlossen, wenn ihn niemand mehr
+ * benutzt.<br/>
+ * Wird eine Datei ersetzt (umbenannt, neu angelegt), liest ein gecachter Channel weiter die alte Datei; dafür gibt es
+ * <i>entferne</i>.<br/>
+ * <br/>
+ * Beispiel: <br/>
+ * <code>byte[] satz = ChannelCache.standard().leseBereich(pfad, 4711 * 128, 128);</code>
+ *
+ * @author diwh
+ */
+public final class ChannelCache implements Closeable {
+
+    /**
+     * Größe des Standard-Caches
+     */
+    public static final int STANDARD_MAX_OFFEN = 256;
+
+    private static final class StandardHolder {
+        private static final ChannelCache STANDARD = new ChannelCache(STANDARD_MAX_OFFEN);
+    }
+
+    private static final class Eintrag {
+        private final FileChannel channel;
+        private int ausgeliehen;
+        private boolean verdraengt;
+
+        private Eintrag(FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Ein ausgeliehener Channel; mit try-with-resources verwenden, <i>close()</i> gibt ihn nur zurück.
+     */
+    public final class Ausleihe implements AutoCloseable {
+        private final Eintrag eintrag;
+        private boolean zurueckgegeben;
+
+        private Ausleihe(Eintrag eintrag) {
+            this.eintrag = eintrag;
+        }
+
+        /**
+         * @return - der Channel; bitte nur positional lesen und nicht selbst schließen
+         */
+        public FileChannel getChannel() {
+            return this.eintrag.channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.zurueckgegeben) {
+                this.zurueckgegeben = true;
+                gibZurueck(this.eintrag);
+            }
+        }
+    }
+
+    private final int maxOffen;
+    private final LinkedHashMap<Path, Eintrag> eintraege;
+    private boolean geschlossen;
+    private long treffer;
+    private long fehlgriffe;
+
+    /**
+     * @param maxOffen - so viele Channels bleiben höchstens offen (ausgeliehene verdrängte nicht mitgezählt)
+     */
+    public ChannelCache(int maxOffen) {
+        super();
+        if (maxOffen <= 0) {
+            throw new IllegalArgumentException("maxOffen muss größer 0 sein: " + maxOffen);
+        }
+        this.maxOffen = maxOffen;
+        this.eintraege = new LinkedHashMap<>(16, 0.75f, true); // Zugriffsreihenfolge = LRU
+    }
+
+    /**
+     * @return - ein gemeinsamer Cache für die ganze JVM mit {@link #STANDARD_MAX_OFFEN} Channels, wird beim ersten
+     *         Aufruf angelegt
+     */
+    public static ChannelCache standard() {
+        return StandardHolder.STANDARD;
+    }
+
+    /**
+     * Leiht einen Channel aus; ist die Datei nicht im Cache, wird sie geöffnet.
+     *
+     * @param pfad - die Datei
+     * @return - die Ausleihe, muss geschlossen werden
+     * @throws IOException - Fehler beim Öffnen
+     */
+    public Ausleihe leihe(Path pfad) throws IOException {
+        Path schluessel = pfad.toAbsolutePath().normalize();
+        synchronized (this) {
+            pruefeOffen();
+            Eintrag eintrag = this.eintraege.get(schluessel);
+            if (eintrag != null) {
+                this.treffer++;
+                eintrag.ausgeliehen++;
+                return new Ausleihe(eintrag);
+            }
+            this.fehlgriffe++;
+        }
+        // Öffnen ohne Lock, damit eine langsame Platte nicht alle anderen Zugriffe aufhält
+        FileChannel channel = FileChannel.open(schluessel, StandardOpenOption.READ);
+        List<FileChannel> zuSchliessen = new ArrayList<>();
+        Ausleihe ausleihe = null;
+        synchronized (this) {
+            if (this.geschlossen) {
+                zuSchliessen.add(channel);
+            } else {
+                Eintrag eintrag = this.eintraege.get(schluessel);
+                if (eintrag == null) {
+                    eintrag = new Eintrag(channel);
+                    this.eintraege.put(schluessel, eintrag);
+                    verdraenge(zuSchliessen);
+                } else { // ein anderer Thread war schneller
+                    zuSchliessen.add(channel);
+                }
+                eintrag.ausgeliehen++;
+                ausleihe = new Ausleihe(eintrag);
+            }
+        }
+        schliesse(zuSchliessen);
+        if (ausleihe == null) {
+            throw new IOException("ChannelCache ist geschlossen");
+        }
+        return ausleihe;
+    }
+
+    /**
+     * Liest ab <i>position</i> so viele Bytes, wie in <i>ziel</i> Platz haben, außer die Datei ist vorher zu Ende.
+     *
+     * @param pfad - die Datei
+     * @param position - ab hier wird gelesen
+     * @param ziel - hier landen die Bytes, ab seiner aktuellen Position
+     * @return - die Anzahl gelesener Bytes, 0 wenn position hinter dem Dateiende liegt
+     * @throws IOException - Fehler
+     */
+    public int leseBereich(Path pfad, long position, ByteBuffer ziel) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("position darf nicht negativ sein: " + position);
+        }
+        int anfang = ziel.position();
+        try {
+            leseVoll(pfad, position, ziel);
+        } catch (ClosedByInterruptException e) {
+            entferneWennZu(pfad); // dieser Thread wurde unterbrochen, der Channel ist jetzt für alle zu
+            throw e;
+        } catch (ClosedChannelException e) {
+            // ein anderer Thread wurde beim Lesen unterbrochen und hat damit den Channel geschlossen: neu öffnen
+            entferneWennZu(pfad);
+            int bisher = ziel.position() - anfang;
+            leseVoll(pfad, position + bisher, ziel);
+        }
+        return ziel.position() - anfang;
+    }
+
+    /**
+     * Liest <i>laenge</i> Bytes ab <i>position</i>; am Dateiende kann das Ergebnis kürzer sein.
+     *
+     * @param pfad - die Datei
+     * @param position - ab hier wird gelesen
+     * @param laenge - so viele Bytes höchstens
+     * @return - die gelesenen Bytes
+     * @throws IOException - Fehler
+     */
+    public byte[] leseBereich(Path pfad, long position, int laenge) throws IOException {
+        byte[] daten = new byte[laenge];
+        int gelesen = leseBereich(pfad, position, ByteBuffer.wrap(daten));
+        return gelesen == laenge ? daten : Arrays.copyOf(daten, gelesen);
+    }
+
+    private void leseVoll(Path pfad, long position, ByteBuffer ziel) throws IOException {
+        try (Ausleihe ausleihe = leihe(pfad)) {
+            FileChannel channel = ausleihe.getChannel();
+            long p = position;
+            while (ziel.hasRemaining()) {
+                int n = channel.read(ziel, p);
+                if (n < 0) {
+                    break;
+                }
+                p = p + n;
+            }
+        }
+    }
+
+    /**
+     * Nimmt eine Datei aus dem Cache, z.B. weil sie ersetzt wurde; der Channel wird geschlossen, sobald ihn niemand
+     * mehr benutzt.
+     *
+     * @param pfad - die Datei
+     * @throws IOException - Fehler beim Schließen
+     */
+    public void entferne(Path pfad) throws IOException {
+        List<FileChannel> zuSchliessen = new ArrayList<>();
+        synchronized (this) {
+            Eintrag eintrag = this.eintraege.remove(pfad.toAbsolutePath().normalize());
+            if (eintrag != null) {
+                markiereVerdraengt(eintrag, zuSchliessen);
+            }
+        }
+        schliesse(zuSchliessen);
+    }
+
+    private void entferneWennZu(Path pfad) throws IOException {
+        synchronized (this) {
+            Eintrag eintrag = this.eintraege.get(pfad.toAbsolutePath().normalize());
+            if (eintrag == null || eintrag.channel.isOpen()) {
+                return; // schon durch einen frischen Channel ersetzt
+            }
+        }
+        entferne(pfad);
+    }
+
+    /**
+     * @return - die Anzahl der Channels im Cache
+     */
+    public synchronized int getAnzahlOffen() {
+        return this.eintraege.size();
+    }
+
+    /**
+     * @return - wie oft ein Channel schon im Cache war
+     */
+    public synchronized long getTreffer() {
+        return this.treffer;
+    }
+
+    /**
+     * @return - wie oft eine Datei geöffnet werden musste
+     */
+    public synchronized long getFehlgriffe() {
+        return this.fehlgriffe;
+    }
+
+    /**
+     * Schließt alle nicht ausgeliehenen Channels sofort, die ausgeliehenen bei der Rückgabe; danach kann nichts mehr
+     * ausgeliehen werden.
+     */
+    @Override
+    public void close() throws IOException {
+        List<FileChannel> zuSchliessen = new ArrayList<>();
+        synchronized (this) {
+            this.geschlossen = true;
+            for (Eintrag eintrag : this.eintraege.values()) {
+                markiereVerdraengt(eintrag, zuSchliessen);
+            }
+            this.eintraege.clear();
+        }
+        schliesse(zuSchliessen);
+    }
+
+    private void pruefeOffen() throws IOException {
+        if (this.geschlossen) {
+            throw new IOException("ChannelCache ist geschlossen");
+        }
+    }
+
+    private synchronized void gibZurueck(Eintrag eintrag) throws IOException {
+        eintrag.ausgeliehen--;
+        if (eintrag.verdraengt && eintrag.ausgeliehen == 0) {
+            eintrag.channel.close();
+        }
+    }
+
+    /**
+     * Wirft die am längsten nicht benutzten Einträge hinaus, bis höchstens maxOffen übrig sind.
+     */
+    private void verdraenge(List<FileChannel> zuSchliessen) {
+        Iterator<Eintrag> it = this.eintraege.values().iterator();
+        while (this.eintraege.size() > this.maxOffen && it.hasNext()) {
+            Eintrag eintrag = it.next();
+            it.remove();
+            markiereVerdraengt(eintrag, zuSchliessen);
+        }
+    }
+
+    private static void markiereVerdraengt(Eintrag eintrag, List<FileChannel> zuSchliessen) {
+        eintrag.verdraengt = true;
+        if (eintrag.ausgeliehen == 0) {
+            zuSchliessen.add(eintrag.channel);
+        }
+    }
+
+    private static void schliesse(List<FileChannel> channels) throws IOException {
+        IOException fehler = null;
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                fehler = e;
+            }
+        }
+        channels.clear();
+        if (fehler != null) {
+            throw fehler;
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import at.diwh.generalnio.consumer.ShortCircuitingConsumer;
+
+/**
+ * Sucht einen oder mehrere Texte im Inhalt aller Dateien eines Verzeichnisbaums, wie grep -r -F, nur parallel: der
+ * Baum wird mit {@link FileQuery#sucheParallel} durchlaufen, jede Datei ist ein eigener Task auf dem ForkJoinPool.<br/>
+ * Gesucht wird in den Bytes, nicht in dekodiertem Text: die Suchtexte werden einmal in das Charset kodiert und alle
+ * zusammen in einem Aho-Corasick-Automaten abgelegt, der jede Datei in einem einzigen Durchgang prüft, egal wie viele
+ * Suchtexte es sind. Dekodiert wird nur die Zeile rund um einen Treffer. Dateien bis {@link #PUFFERGROESSE} werden in
+ * einen Puffer gelesen, größere gemappt.<br/>
+ * <br/>
+ * Ein Treffer bringt Datei, Byteposition, den gefundenen Suchtext und seine Zeile mit. Zeilen werden wie bei grep nur
+ * an '\n' getrennt (ein '\r' davor wird abgeschnitten) und auf höchstens {@link #MAX_KONTEXT} Bytes vor und nach dem
+ * Treffer gekürzt. Überlappende Treffer werden alle geliefert.<br/>
+ * Dateien, die nicht gelesen werden können, werden still übersprungen, symbolische Links nicht verfolgt.<br/>
+ * Funktioniert nur mit Zeichensätzen, in denen '\n' ein Byte ist (also nicht mit UTF-16). Bei UTF-8 kann ein
+ * Suchtext nie mitten in einem Zeichen beginnen, bei den Einbyte-Zeichensätzen sowieso nicht.<br/>
+ * <br/>
+ * Beispiel: <br/>
+ * <code>List&lt;Path&gt; dateien = new ContentSearch(StandardCharsets.UTF_8, "TODO", "FIXME")<br/>
+ * &nbsp;&nbsp;.dateien(new FileQuery().nurDateien().endetMit(".java")).sucheDateien("d:/projekte");</code><br/>
+ * Eine ContentSearch kann nach dem Zusammenbauen beliebig oft und auch aus mehreren Threads verwendet werden.
+ *
+ * @author diwh
+ */
+public final class ContentSearch {
+
+    /**
+     * Dateien bis zu dieser Größe werden gelesen statt gemappt; ist auch die Größe der Stücke, in denen gemappte
+     * Dateien durchsucht werden
+     */
+    public static final int PUFFERGROESSE = 256 * 1024;
+
+    /**
+     * So viele Bytes vor und nach dem Treffer kommen höchstens in die Zeile
+     */
+    public static final int MAX_KONTEXT = 4096;
+
+    /**
+     * Ein MappedByteBuffer kann höchstens Integer.MAX_VALUE Bytes groß sein
+     */
+    private static final long MAX_MAPPING_FENSTER = Integer.MAX_VALUE;
+
+    private static final int QUEUE_KAPAZITAET = 1024;
+    private static final long WARTEZEIT_MILLIS = 100;
+    private static final Object ENDE = new Object();
+    private static final AtomicInteger THREADNUMMER = new AtomicInteger();
+
+    /**
+     * Pro Thread ein Lesepuffer, ausgeliehen, damit ein Consumer, der selbst sucht, ihn nicht überschreibt.
+     */
+    private static final ThreadLocal<byte[][]> LESEPUFFER = ThreadLocal.withInitial(() -> new byte[1][]);
+
+    /**
+     * Eine Fundstelle.
+     */
+    public static final class Treffer {
+        private final Path pfad;
+        private final long position;
+        private final String muster;
+        private final String zeile;
+
+        private Treffer(Path pfad, long position, String muster, String zeile) {
+            this.pfad = pfad;
+            this.position = position;
+            this.muster = muster;
+            this.zeile = zeile;
+        }
+
+        /**
+         * @return - die Datei
+         */
+        public Path getPfad() {
+            return this.pfad;
+        }
+
+        /**
+         * @return - die Byteposition des ersten Bytes des Treffers in der Datei
+         */
+        public long getPosition() {
+            return this.position;
+        }
+
+        /**
+         * @return - der gefundene Suchtext
+         */
+        public String getMuster() {
+            return this.muster;
+        }
+
+        /**
+         * @return - die Zeile, in der der Treffer liegt, ohne Zeilenumbruch
+         */
+        public String getZeile() {
+            return this.zeile;
+        }
+
+        @Override
+        public String toString() {
+            return this.pfad + ":" + this.position + ":" + this.zeile;
+        }
+    }
+
+    private final Charset charset;
+    private final String[] muster;
+    private final int[] musterLaengen;
+
+    // der Automat: Bytewert -> Klasse, dann Zustand + Klasse -> Folgezustand (negiert, wenn dort ein Suchtext endet)
+    private final int[] klassen = new int[256];
+    private final int anzahlKlassen;
+    private final int[] tabelle;
+    private final int[][] ausgaben;
+    private final boolean[] anfaenge = new boolean[256]; // Bytewerte, mit denen ein Suchtext beginnt
+
+    private FileQuery dateien = new FileQuery().nurDateien();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private boolean nurErsterTreffer;
+
+    /**
+     * @param charset - das Encoding der Dateien, in das die Suchtexte kodiert werden
+     * @param muster - die Suchtexte, mindestens einer, keiner leer
+     */
+    public ContentSearch(Charset charset, String... muster) {
+        super();
+        if (!ParallelLineReader.istZeilenumbruchEinByte(charset)) {
+            throw new IllegalArgumentException("Inhaltssuche geht nicht mit dem Charset " + charset.name());
+        }
+        if (muster.length == 0) {
+            throw new IllegalArgumentException("Es braucht mindestens einen Suchtext");
+        }
+        this.charset = charset;
+        this.muster = muster.clone();
+        this.musterLaengen = new int[muster.length];
+        byte[][] bytes = new byte[muster.length][];
+        for (int i = 0; i < muster.length; i++) {
+            bytes[i] = muster[i].getBytes(charset);
+            if (bytes[i].length == 0) {
+                throw new IllegalArgumentException("Ein Suchtext darf nicht leer sein");
+            }
+            this.musterLaengen[i] = bytes[i].length;
+        }
+        // nur Bytewerte aus den Suchtexten bekommen eine eigene Spalte, alle anderen teilen sich Spalte 0
+        int k = 1;
+        for (byte[] b : bytes) {
+            for (byte wert : b) {
+                if (this.klassen[wert & 0xFF] == 0) {
+                    this.klassen[wert & 0xFF] = k++;
+                }
+            }
+        }
+        this.anzahlKlassen = k;
+        // zuerst der Trie ...
+        List<int[]> uebergaenge = new ArrayList<>();
+        List<int[]> enden = new ArrayList<>();
+        uebergaenge.add(new int[k]);
+        enden.add(new int[0]);
+        for (int i = 0; i < bytes.length; i++) {
+            int zustand = 0;
+            for (byte wert : bytes[i]) {
+                int klasse = this.klassen[wert & 0xFF];
+                if (uebergaenge.get(zustand)[klasse] == 0) {
+                    uebergaenge.add(new int[k]);
+                    enden.add(new int[0]);
+                    uebergaenge.get(zustand)[klasse] = uebergaenge.size() - 1;
+                }
+                zustand = uebergaenge.get(zustand)[klasse];
+            }
+            enden.set(zustand, anhaengen(enden.get(zustand), new int[] {i}));
+        }
+        // ... dann in Breitensuche die Fehlerübergänge direkt eintragen, damit pro Byte ein Tabellenzugriff reicht
+        int[] fehler = new int[uebergaenge.size()];
+        ArrayDeque<Integer> warteschlange = new ArrayDeque<>();
+        for (int klasse = 0; klasse < k; klasse++) {
+            int kind = uebergaenge.get(0)[klasse];
+            if (kind != 0) {
+                warteschlange.add(Integer.valueOf(kind));
+            }
+        }
+        while (!warteschlange.isEmpty()) {
+            int zustand = warteschlange.poll().intValue();
+            int[] zeile = uebergaenge.get(zustand);
+            int[] fehlerZeile = uebergaenge.get(fehler[zustand]);
+            for (int klasse = 0; klasse < k; klasse++) {
+                int kind = zeile[klasse];
+                if (kind != 0) {
+                    fehler[kind] = fehlerZeile[klasse];
+                    enden.set(kind, anhaengen(enden.get(kind), enden.get(fehler[kind])));
+                    warteschlange.add(Integer.valueOf(kind));
+                } else {
+                    zeile[klasse] = fehlerZeile[klasse];
+                }
+            }
+        }
+        // Zustände als Zeilenanfang in der flachen Tabelle, so spart die Suchschleife eine Multiplikation
+        this.tabelle = new int[uebergaenge.size() * k];
+        this.ausgaben = enden.toArray(new int[0][]);
+        for (int zustand = 0; zustand < uebergaenge.size(); zustand++) {
+            int[] zeile = uebergaenge.get(zustand);
+            for (int klasse = 0; klasse < k; klasse++) {
+                int ziel = zeile[klasse];
+                this.tabelle[zustand * k + klasse] = this.ausgaben[ziel].length > 0 ? ~(ziel * k) : ziel * k;
+            }
+        }
+        for (int wert = 0; wert < 256; wert++) {
+            this.anfaenge[wert] = this.tabelle[this.klassen[wert]] != 0;
+        }
+    }
+
+    private static int[] anhaengen(int[] a, int[] b) {
+        int[] ergebnis = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, ergebnis, a.length, b.length);
+        return ergebnis;
+    }
+
+    /**
+     * @param query - welche Dateien durchsucht werden; Standard ist <i>new FileQuery().nurDateien()</i>, also alle
+     * @return - diese Suche
+     */
+    public ContentSearch dateien(FileQuery query) {
+        this.dateien = query;
+        return this;
+    }
+
+    /**
+     * @param forkJoinPool - darauf laufen Durchlauf und Suche; Standard ist der gemeinsame ForkJoinPool
+     * @return - diese Suche
+     */
+    public ContentSearch pool(ForkJoinPool forkJoinPool) {
+        this.pool = forkJoinPool;
+        return this;
+    }
+
+    /**
+     * Pro Datei nur den ersten Treffer liefern und dann mit der nächsten Datei weitermachen. Für "welche Dateien
+     * enthalten ...?" muss so eine Datei nur bis zum ersten Treffer gelesen werden.
+     *
+     * @return - diese Suche
+     */
+    public ContentSearch nurErsterTreffer() {
+        this.nurErsterTreffer = true;
+        return this;
+    }
+
+    /**
+     * Sucht und liefert jeden Treffer sofort an den Consumer, aus mehreren Threads gleichzeitig; die Treffer einer
+     * Datei kommen aber immer aus einem Thread und in der Reihenfolge ihres Endes in der Datei.<br/>
+     * Ist der Consumer ein {@link ShortCircuitingConsumer}, hört die ganze Suche auf, sobald er fertig ist.
+     *
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param consumer - bekommt jeden Treffer, muss threadsicher sein
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    public void suche(String verzeichnis, Consumer<? super Treffer> consumer) throws IOException {
+        suche(verzeichnis, consumer, this.nurErsterTreffer);
+    }
+
+    private void suche(String verzeichnis, Consumer<? super Treffer> consumer, boolean nurErster) throws IOException {
+        Lauf lauf = new Lauf(consumer, nurErster);
+        ForkJoinPool forkJoinPool = this.pool;
+        ConcurrentLinkedQueue<ForkJoinTask<?>> tasks = new ConcurrentLinkedQueue<>();
+        try {
+            this.dateien.sucheParallel(verzeichnis, forkJoinPool, (p, attrs) -> {
+                if (!attrs.isRegularFile() || lauf.abgebrochen) {
+                    return;
+                }
+                ForkJoinTask<?> task = ForkJoinTask.adapt(() -> durchsucheDatei(p, lauf));
+                if (ForkJoinTask.getPool() == forkJoinPool) {
+                    tasks.add(task.fork());
+                } else { // der Startpunkt selbst ist eine Datei
+                    task.invoke();
+                }
+            });
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } catch (RuntimeException | Error e) {
+            lauf.abgebrochen = true; // die restlichen Tasks hören sofort auf
+            throw e;
+        }
+    }
+
+    /**
+     * Sucht und sammelt alle Treffer.
+     *
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @return - die Treffer, sortiert nach Datei und Position
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    public List<Treffer> suche(String verzeichnis) throws IOException {
+        ConcurrentLinkedQueue<Treffer> result = new ConcurrentLinkedQueue<>();
+        suche(verzeichnis, result::add);
+        List<Treffer> sortiert = new ArrayList<>(result);
+        sortiert.sort(Comparator.comparing(Treffer::getPfad).thenComparingLong(Treffer::getPosition));
+        return sortiert;
+    }
+
+    /**
+     * Sucht nur, welche Dateien mindestens einen der Suchtexte enthalten; jede Datei wird nur bis zum ersten Treffer
+     * gelesen.
+     *
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @return - die Dateien, sortiert
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    public List<Path> sucheDateien(String verzeichnis) throws IOException {
+        Set<Path> result = new TreeSet<>();
+        suche(verzeichnis, t -> {
+            synchronized (result) {
+                result.add(t.getPfad());
+            }
+        }, true);
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Liefert die Treffer als Stream, während noch gesucht wird: die Suche läuft in einem eigenen Thread und legt die
+     * Treffer in eine begrenzte Queue; liest der Stream nicht schnell genug, wartet die Suche. Die Reihenfolge ist
+     * nicht definiert.<br/>
+     * Ein Fehler der Suche kommt beim Lesen des Streams als UncheckedIOException bzw. RuntimeException.<br/>
+     * <b>Achtung:</b> Der Stream muss geschlossen werden, am besten mit try-with-resources! Erst das bricht eine noch
+     * laufende Suche ab.
+     *
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @return - Stream der Treffer
+     */
+    public Stream<Treffer> streame(String verzeichnis) {
+        TrefferQueue queue = new TrefferQueue();
+        Thread thread = new Thread(() -> {
+            try {
+                suche(verzeichnis, queue);
+            } catch (IOException | RuntimeException e) {
+                queue.fehler = e;
+            } finally {
+                queue.stelleEin(ENDE);
+            }
+        }, "ContentSearch-" + THREADNUMMER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(queue,
+            Spliterator.NONNULL | Spliterator.DISTINCT), false).onClose(() -> queue.geschlossen = true);
+    }
+
+    /**
+     * Was eine Suche über alle Tasks hinweg teilt.
+     */
+    private static final class Lauf {
+        private final Consumer<? super Treffer> consumer;
+        private final boolean nurErster;
+        private volatile boolean abgebrochen;
+
+        private Lauf(Consumer<? super Treffer> consumer, boolean nurErster) {
+            this.consumer = consumer;
+            this.nurErster = nurErster;
+        }
+
+        private void liefere(Treffer treffer) {
+            this.consumer.accept(treffer);
+            if (GeneralNIOFileAccess.istFertig(this.consumer)) {
+                this.abgebrochen = true;
+            }
+        }
+    }
+
+    private void durchsucheDatei(Path pfad, Lauf lauf) {
+        if (lauf.abgebrochen) {
+            return;
+        }
+        byte[][] halter = LESEPUFFER.get();
+        byte[] puffer = halter[0] != null ? halter[0] : new byte[PUFFERGROESSE];
+        halter[0] = null;
+        try (FileChannel channel = FileChannel.open(pfad, StandardOpenOption.READ)) {
+            long groesse = channel.size();
+            if (groesse < puffer.length) { // kleine Datei: lesen ist billiger als mappen
+                ByteBuffer ziel = ByteBuffer.wrap(puffer);
+                while (ziel.hasRemaining() && channel.read(ziel) >= 0) {
+                    // bis zum Dateiende oder Pufferende lesen
+                }
+                Fundort ort = new Fundort(pfad, lauf, ByteBuffer.wrap(puffer, 0, ziel.position()), 0);
+                durchsuche(puffer, ziel.position(), 0, ort);
+                return;
+            }
+            int zustand = 0; // über Fenster- und Stückgrenzen hinweg, damit kein Treffer an einer Grenze verloren geht
+            for (long fensterStart = 0; fensterStart < groesse && zustand >= 0; fensterStart += MAX_MAPPING_FENSTER) {
+                int fensterLaenge = (int) Math.min(MAX_MAPPING_FENSTER, groesse - fensterStart);
+                ByteBuffer fenster = channel.map(FileChannel.MapMode.READ_ONLY, fensterStart, fensterLaenge);
+                Fundort ort = new Fundort(pfad, lauf, fenster, fensterStart);
+                for (int stueck = 0; stueck < fensterLaenge && zustand >= 0; stueck += puffer.length) {
+                    int laenge = Math.min(puffer.length, fensterLaenge - stueck);
+                    fenster.position(stueck);
+                    fenster.get(puffer, 0, laenge);
+                    ort.datenStart = stueck;
+                    zustand = durchsuche(puffer, laenge, zustand, ort);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // inzwischen gelöscht, kein Zugriff, ...: wie beim Durchlaufen einfach überspringen
+        } finally {
+            halter[0] = puffer;
+        }
+    }
+
+    /**
+     * Die Suchschleife, eigene kleine Methode, damit der JIT sie unabhängig vom Rest optimiert.
+     *
+     * @return - der Zustand nach dem letzten Byte, oder -1, wenn nicht weitergesucht werden soll
+     */
+    private int durchsuche(byte[] daten, int laenge, int zustand, Fundort ort) {
+        int[] t = this.tabelle;
+        int[] k = this.klassen;
+        boolean[] a = this.anfaenge;
+        int z = zustand;
+        for (int i = 0; i < laenge; i++) {
+            if (z == 0) { // kein Suchtext angefangen: bis zum nächsten Byte springen, mit dem einer beginnt
+                while (i < laenge && !a[daten[i] & 0xFF]) {
+                    i++;
+                }
+                if (i == laenge) {
+                    break;
+                }
+            }
+            z = t[z + k[daten[i] & 0xFF]];
+            if (z < 0) { // hier endet mindestens ein Suchtext, das ist selten
+                z = ~z;
+                if (!ort.melde(i, z / this.anzahlKlassen)) {
+                    return -1;
+                }
+            }
+        }
+        return z;
+    }
+
+    /**
+     * Wo in der Datei gerade gesucht wird, zum Berechnen von Position und Zeile eines Treffers.
+     */
+    private final class Fundort {
+        private final Path pfad;
+        private final Lauf lauf;
+        private final ByteBuffer fenster; // der Dateiinhalt ab fensterStart, absolut gelesen
+        private final long fensterStart;
+        private int datenStart; // Index in fenster, ab dem die durchsuchten Daten stammen
+
+        private Fundort(Path pfad, Lauf lauf, ByteBuffer fenster, long fensterStart) {
+            this.pfad = pfad;
+            this.lauf = lauf;
+            this.fenster = fenster;
+            this.fensterStart = fensterStart;
+        }
+
+        /**
+         * @return - false, wenn in dieser Datei nicht weitergesucht werden soll
+         */
+        private boolean melde(int index, int zustand) {
+            int ende = this.datenStart + index + 1; // Index in fenster direkt nach dem Treffer
+            for (int m : ContentSearch.this.ausgaben[zustand]) {
+                int anfang = ende - ContentSearch.this.musterLaengen[m]; // negativ bei einem Treffer über Fenster
+                this.lauf.liefere(new Treffer(this.pfad, this.fensterStart + anfang, ContentSearch.this.muster[m],
+                    zeile(Math.max(0, anfang), ende)));
+                if (this.lauf.nurErster || this.lauf.abgebrochen) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String zeile(int anfang, int ende) {
+            int von = anfang;
+            int grenze = Math.max(0, anfang - MAX_KONTEXT);
+            while (von > grenze && this.fenster.get(von - 1) != '\n') {
+                von--;
+            }
+            int bis = ende;
+            grenze = (int) Math.min(this.fenster.limit(), (long) ende + MAX_KONTEXT);
+            while (bis < grenze && this.fenster.get(bis) != '\n') {
+                bis++;
+            }
+            if (bis > ende && this.fenster.get(bis - 1) == '\r') {
+                bis--;
+            }
+            byte[] bytes = new byte[bis - von];
+            for (int i = von; i < bis; i++) {
+                bytes[i - von] = this.fenster.get(i);
+            }
+            return new String(bytes, ContentSearch.this.charset);
+        }
+    }
+
+    /**
+     * Verbindet den Such-Thread mit dem Stream. Gewartet wird immer nur kurz, damit das Schließen des Streams auch
+     * eine wartende Suche erreicht.
+     */
+    private static final class TrefferQueue implements ShortCircuitingConsumer<Treffer>, Iterator<Treffer> {
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_KAPAZITAET);
+        private volatile boolean geschlossen;
+        private volatile Exception fehler;
+        private Object naechster;
+
+        @Override
+        public void accept(Treffer treffer) {
+            stelleEin(treffer);
+        }
+
+        @Override
+        public boolean istFertig() {
+            return this.geschlossen;
+        }
+
+        private void stelleEin(Object element) {
+            try {
+                while (!this.queue.offer(element, WARTEZEIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (this.geschlossen) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.geschlossen = true;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.naechster == null) {
+                try {
+                    while ((this.naechster = this.queue.poll(WARTEZEIT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                        if (this.geschlossen) {
+                            return false;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Warten auf Treffer unterbrochen"));
+                }
+            }
+            if (this.naechster == ENDE) {
+                Exception e = this.fehler;
+                if (e instanceof IOException) {
+                    throw new UncheckedIOException((IOException) e);
+                }
+                if (e != null) {
+                    throw (RuntimeException) e;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Treffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Treffer treffer = (Treffer) this.naechster;
+            this.naechster = null;
+            return treffer;
+        }
+    }
+}
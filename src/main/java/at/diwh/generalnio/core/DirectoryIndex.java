@@ -0,0 +1,316 @@
+package at.diwh.generalnio.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Ein Verzeichnisindex im Speicher, der einmal mit <i>GeneralNIOFileAccess.holeDateibaum</i> aufgebaut und danach
+ * über einen WatchService laufend nachgezogen wird. Suchen nach Namen gehen dann nicht mehr auf das Filesystem;
+ * wiederholte gleiche Suchen kommen sogar direkt aus einem Ergebnis-Cache, der bei jeder Änderung verworfen wird
+ * und nur die zuletzt gefragten Suchen behält.<br/>
+ * <br/>
+ * Neue Verzeichnisse werden automatisch beobachtet und samt Inhalt aufgenommen, gelöschte Verzeichnisse samt
+ * Unterbaum entfernt. Verliert der WatchService Ereignisse (OVERFLOW), wird der ganze Index neu aufgebaut.<br/>
+ * Änderungen kommen mit einer kleinen Verzögerung an, je nachdem wie schnell das Betriebssystem meldet. Der Index ist
+ * also für "was gibt es dort ungefähr jetzt" gedacht, nicht für Entscheidungen, die auf die Millisekunde stimmen
+ * müssen.<br/>
+ * Als Dateien zählt wie bei holeDateibaum alles, was kein Verzeichnis ist. Lesen ist threadsicher.
+ * <b>Achtung:</b> Muss geschlossen werden, sonst läuft der Beobachter-Thread weiter!
+ * 
+ * @author diwh
+ */
+public class DirectoryIndex implements Closeable {
+
+    /** Trenner plus ein Zeichen, das größer ist als alles, was in einem Pfad vorkommt, für Bereichsabfragen */
+    private static final String TRENNER = File.separator;
+    private static final char BEREICHSENDE = '\uffff';
+    /** So viele verschiedene Suchen behält der Ergebnis-Cache, die am längsten nicht gefragten fallen heraus */
+    private static final int MAX_GECACHTE_SUCHEN = 64;
+
+    private final Path wurzel;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> beobachtet = new ConcurrentHashMap<>();
+    private final Map<String, Ergebnis> ergebnisCache = new LinkedHashMap<String, Ergebnis>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ergebnis> eldest) {
+            return size() > MAX_GECACHTE_SUCHEN;
+        }
+    }; // Zugriffsreihenfolge = LRU, Zugriffe nur unter synchronized (ergebnisCache)
+    private final AtomicLong aenderungen = new AtomicLong();
+    private final Thread beobachter;
+    private volatile NavigableSet<String> dateien = new ConcurrentSkipListSet<>();
+    private volatile NavigableSet<String> verzeichnisse = new ConcurrentSkipListSet<>();
+    private volatile boolean geschlossen;
+
+    /**
+     * Baut den Index auf und startet die Beobachtung.
+     * 
+     * @param verzeichnis - String, der Ausgangspunkt, z.B. "c:/temp"
+     * @throws IOException - Fehler beim ersten Aufbau
+     */
+    public DirectoryIndex(String verzeichnis) throws IOException {
+        super();
+        this.wurzel = Paths.get(verzeichnis);
+        this.watchService = this.wurzel.getFileSystem().newWatchService();
+        try {
+            baueNeuAuf();
+        } catch (IOException e) {
+            this.watchService.close();
+            throw e;
+        }
+        this.beobachter = new Thread(this::beobachte, "DirectoryIndex-" + this.wurzel);
+        this.beobachter.setDaemon(true);
+        this.beobachter.start();
+    }
+
+    /**
+     * Wie <i>GeneralNIOFileAccess.holeAlleFilesMitNameEnthaeltVonVerzeichnis</i>, nur aus dem Index.
+     * 
+     * @param nameEnthaelt - String, nach dem im vollständigen Path gesucht werden soll
+     * @return - unveränderliche Liste von Treffern
+     */
+    public List<String> holeAlleFilesMitNameEnthaelt(String nameEnthaelt) {
+        return sucheGecacht("FE:" + nameEnthaelt, this.dateien, f -> f.contains(nameEnthaelt));
+    }
+
+    /**
+     * Wie <i>GeneralNIOFileAccess.holeAlleFilesMitNameEndetVonVerzeichnis</i>, nur aus dem Index.
+     * 
+     * @param nameEndet - String, mit dem der Dateinamen enden soll
+     * @return - unveränderliche Liste von Treffern
+     */
+    public List<String> holeAlleFilesMitNameEndet(String nameEndet) {
+        return sucheGecacht("FS:" + nameEndet, this.dateien, f -> f.endsWith(nameEndet));
+    }
+
+    /**
+     * Wie <i>GeneralNIOFileAccess.holeAlleUnterverzeichnisseMitNameEnthaeltVonVerzeichnis</i>, nur aus dem Index.
+     * 
+     * @param nameEnthaelt - String, nach dem im vollständigen Path gesucht werden soll
+     * @return - unveränderliche Liste von Treffern
+     */
+    public List<String> holeAlleUnterverzeichnisseMitNameEnthaelt(String nameEnthaelt) {
+        return sucheGecacht("VE:" + nameEnthaelt, this.verzeichnisse, f -> f.contains(nameEnthaelt));
+    }
+
+    /**
+     * @return die Anzahl der Dateien im Index
+     */
+    public int getAnzahlDateien() {
+        return this.dateien.size();
+    }
+
+    /**
+     * @return die Anzahl der Verzeichnisse im Index, inklusive des Ausgangspunkts
+     */
+    public int getAnzahlVerzeichnisse() {
+        return this.verzeichnisse.size();
+    }
+
+    /**
+     * @return wie oft der Index seit dem Aufbau verändert wurde; nützlich, um auf das Nachziehen zu warten
+     */
+    public long getAnzahlAenderungen() {
+        return this.aenderungen.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.geschlossen = true;
+        this.watchService.close();
+        this.beobachter.interrupt();
+    }
+
+    private List<String> sucheGecacht(String schluessel, NavigableSet<String> menge, Predicate<String> filter) {
+        long stand = this.aenderungen.get();
+        Ergebnis ergebnis;
+        synchronized (this.ergebnisCache) {
+            ergebnis = this.ergebnisCache.get(schluessel);
+        }
+        if (ergebnis != null && ergebnis.stand == stand) {
+            return ergebnis.treffer;
+        }
+        List<String> treffer = new ArrayList<>();
+        for (String element : menge) {
+            if (filter.test(element)) {
+                treffer.add(element);
+            }
+        }
+        ergebnis = new Ergebnis(stand, Collections.unmodifiableList(treffer));
+        // hat sich inzwischen etwas geändert, passt der Stand nicht mehr und das Ergebnis wird nie ausgeliefert
+        synchronized (this.ergebnisCache) {
+            this.ergebnisCache.put(schluessel, ergebnis);
+        }
+        return ergebnis.treffer;
+    }
+
+    /**
+     * Läuft im Beobachter-Thread, bis der Index geschlossen wird.
+     */
+    private void beobachte() {
+        while (!this.geschlossen) {
+            WatchKey key;
+            try {
+                key = this.watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            try {
+                verarbeite(key);
+            } catch (IOException e) {
+                try {
+                    baueNeuAuf(); // lieber einmal alles neu als einen falschen Index behalten
+                } catch (IOException e2) {
+                    // Wurzel nicht mehr lesbar; der Index bleibt, wie er ist, bis wieder ein Ereignis kommt
+                }
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+
+    private synchronized void verarbeite(WatchKey key) throws IOException {
+        Path verzeichnis = this.beobachtet.get(key);
+        boolean ueberlauf = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                ueberlauf = true;
+            } else if (verzeichnis != null) {
+                Path p = verzeichnis.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    nimmAuf(p);
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    entferne(p);
+                }
+            }
+        }
+        if (!key.reset()) { // Verzeichnis gibt es nicht mehr
+            this.beobachtet.remove(key);
+        }
+        if (ueberlauf) {
+            baueNeuAuf();
+        }
+    }
+
+    private void nimmAuf(Path p) throws IOException {
+        if (Files.isDirectory(p, LinkOption.NOFOLLOW_LINKS)) {
+            // erst beobachten, dann lesen, sonst gehen Dateien verloren, die dazwischen entstehen
+            registriere(p);
+            List<Path> baum = new ArrayList<>();
+            List<Path> inhalt = GeneralNIOFileAccess.holeDateibaum(p.toString(), baum);
+            for (Path element : baum) {
+                if (!element.equals(p)) {
+                    registriere(element);
+                }
+                this.verzeichnisse.add(element.toString());
+            }
+            for (Path element : inhalt) {
+                this.dateien.add(element.toString());
+            }
+        } else {
+            this.dateien.add(p.toString());
+        }
+        geaendert();
+    }
+
+    private void entferne(Path p) {
+        String name = p.toString();
+        this.dateien.remove(name);
+        if (this.verzeichnisse.remove(name)) { // ganzer Unterbaum fällt weg
+            String praefix = name + TRENNER;
+            this.dateien.subSet(praefix, praefix + BEREICHSENDE).clear();
+            this.verzeichnisse.subSet(praefix, praefix + BEREICHSENDE).clear();
+            Iterator<Map.Entry<WatchKey, Path>> it = this.beobachtet.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<WatchKey, Path> eintrag = it.next();
+                if (eintrag.getValue().startsWith(p)) {
+                    eintrag.getKey().cancel();
+                    it.remove();
+                }
+            }
+        }
+        geaendert();
+    }
+
+    /**
+     * Baut den ganzen Index neu auf, beim Start und nach einem OVERFLOW.
+     */
+    private synchronized void baueNeuAuf() throws IOException {
+        for (WatchKey key : this.beobachtet.keySet()) {
+            key.cancel();
+        }
+        this.beobachtet.clear();
+        List<Path> baum = new ArrayList<>();
+        registriere(this.wurzel);
+        List<Path> inhalt = GeneralNIOFileAccess.holeDateibaum(this.wurzel.toString(), baum);
+        NavigableSet<String> neueDateien = new ConcurrentSkipListSet<>();
+        NavigableSet<String> neueVerzeichnisse = new ConcurrentSkipListSet<>();
+        for (Path element : baum) {
+            if (!element.equals(this.wurzel)) {
+                registriere(element);
+            }
+            neueVerzeichnisse.add(element.toString());
+        }
+        for (Path element : inhalt) {
+            neueDateien.add(element.toString());
+        }
+        this.dateien = neueDateien;
+        this.verzeichnisse = neueVerzeichnisse;
+        geaendert();
+    }
+
+    private void registriere(Path verzeichnis) {
+        try {
+            WatchKey key = verzeichnis.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            this.beobachtet.put(key, verzeichnis);
+        } catch (IOException e) {
+            // nicht lesbar oder schon wieder gelöscht, der Eintrag bleibt trotzdem im Index
+        }
+    }
+
+    private void geaendert() {
+        this.aenderungen.incrementAndGet();
+        synchronized (this.ergebnisCache) {
+            this.ergebnisCache.clear();
+        }
+    }
+
+    /**
+     * Ein gecachtes Suchergebnis samt dem Änderungsstand, zu dem es berechnet wurde.
+     */
+    private static final class Ergebnis {
+
+        private final long stand;
+        private final List<String> treffer;
+
+        Ergebnis(long stand, List<String> treffer) {
+            super();
+            this.stand = stand;
+            this.treffer = treffer;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package at.diwh.generalnio.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Liest eine wachsende Datei (Log, laufender Export) stückweise mit, wie <i>tail -F</i>: jeder Aufruf von
+ * <i>pollZeilen</i> bzw. <i>pollBinaer</i> liefert nur, was seit dem letzten Mal dazugekommen ist. Der Aufwand hängt
+ * damit nur von den neuen Daten ab, nicht von der Dateigröße.<br/>
+ * <ul>
+ * <li>Im Zeilenmodus kommen nur vollständige Zeilen; eine angefangene letzte Zeile wird beim nächsten Mal geliefert,
+ * wenn ihr Zeilenumbruch da ist.</li>
+ * <li>Wird die Datei kürzer als die gemerkte Position (abgeschnitten, z.B. copytruncate), geht es bei 0 weiter.</li>
+ * <li>Wird sie rotiert (umbenannt und neu angelegt, erkannt am FileKey bzw. an der Erstellungszeit), wird die alte
+ * Datei über den noch offenen Channel zu Ende gelesen und dann auf die neue gewechselt.</li>
+ * <li>Mit einer Checkpoint-Datei wird die Position nach jedem Poll gespeichert; ein neuer FileFollower macht dort
+ * weiter. Gespeichert wird erst, nachdem der Consumer die Daten bekommen hat, im Fehlerfall kommen Daten also eher
+ * doppelt als gar nicht.</li>
+ * </ul>
+ * <i>folgeZeilen</i>/<i>folgeBinaer</i> pollen in einer Schleife, angestoßen von einem WatchService auf das
+ * Verzeichnis der Datei und zusätzlich spätestens nach dem Poll-Intervall (manche Dateisysteme melden Änderungen spät
+ * oder gar nicht). Die Schleife endet mit <i>close()</i>, einem Interrupt oder wenn ein
+ * {@link at.diwh.generalnio.consumer.ShortCircuitingConsumer} fertig ist.<br/>
+ * Ein FileFollower ist für einen lesenden Thread gedacht; <i>close()</i> darf aus einem anderen Thread kommen.
+ *
+ * @author diwh
+ */
+public final class FileFollower implements Closeable {
+
+    private static final String POSITION = "position";
+    private static final String KENNUNG = "kennung";
+
+    private final Path datei;
+    private final Path checkpointDatei;
+    private FileChannel channel;
+    private String kennung;
+    private long position;
+    private long gespeichertePosition = -1;
+    private String gespeicherteKennung;
+    private volatile boolean geschlossen;
+    private volatile WatchService watchService;
+
+    /**
+     * Liest eine Datei mit oder ohne Start an einer gespeicherten Position.
+     *
+     * @param datei - die Datei, die mitgelesen wird; muss noch nicht existieren
+     * @param checkpointDatei - hier wird die Position gespeichert, null für keinen Checkpoint (Start bei 0)
+     * @throws IOException - Fehler beim Lesen der Checkpoint-Datei
+     */
+    public FileFollower(Path datei, Path checkpointDatei) throws IOException {
+        super();
+        this.datei = datei;
+        this.checkpointDatei = checkpointDatei;
+        if (checkpointDatei != null) {
+            Properties checkpoint = new Properties();
+            try (InputStream in = Files.newInputStream(checkpointDatei)) {
+                checkpoint.load(in);
+                this.position = Long.parseLong(checkpoint.getProperty(POSITION, "0"));
+                this.kennung = checkpoint.getProperty(KENNUNG);
+                this.gespeichertePosition = this.position;
+                this.gespeicherteKennung = this.kennung;
+            } catch (NoSuchFileException e) {
+                // erster Start
+            }
+        }
+    }
+
+    /**
+     * @return - die Position, bis zu der alles geliefert wurde
+     */
+    public synchronized long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Liefert alle seit dem letzten Aufruf dazugekommenen vollständigen Zeilen.
+     *
+     * @param charset - das Encoding, '\n' und '\r' müssen darin je ein Byte sein
+     * @param consumer - bekommt die Zeilen; die ByteLine ist nur innerhalb von accept gültig
+     * @return - die Anzahl der neu gelesenen Bytes
+     * @throws IOException - Fehler
+     */
+    public long pollZeilen(Charset charset, Consumer<? super ByteLine> consumer) throws IOException {
+        LineScanner scanner = new LineScanner(this.datei, charset); // prüft das Charset gleich hier
+        return poll((kanal, ab, dateiIstFertig) -> scanner.abPosition(ab)
+            .unvollstaendigeLetzteZeileUeberspringen(!dateiIstFertig).scanne(kanal, consumer), consumer);
+    }
+
+    /**
+     * Liefert alle seit dem letzten Aufruf dazugekommenen Bytes in Blöcken; nur der letzte Block kann kürzer sein.
+     *
+     * @param blockgroesse - Größe der Blöcke
+     * @param consumer - bekommt die Blöcke
+     * @return - die Anzahl der neu gelesenen Bytes
+     * @throws IOException - Fehler
+     */
+    public long pollBinaer(int blockgroesse, Consumer<byte[]> consumer) throws IOException {
+        if (blockgroesse <= 0) {
+            throw new IllegalArgumentException("blockgroesse muss größer 0 sein: " + blockgroesse);
+        }
+        return poll((kanal, ab, dateiIstFertig) -> leseBloecke(kanal, ab, blockgroesse, consumer), consumer);
+    }
+
+    /**
+     * Pollt in einer Schleife Zeilen, bis <i>close()</i> aufgerufen, der Thread unterbrochen wird oder der Consumer
+     * fertig ist.
+     *
+     * @param charset - das Encoding
+     * @param consumer - bekommt die Zeilen
+     * @param pollIntervallMillis - spätestens nach so vielen Millisekunden wird ohne Ereignis gepollt
+     * @throws IOException - Fehler
+     */
+    public void folgeZeilen(Charset charset, Consumer<? super ByteLine> consumer, long pollIntervallMillis)
+        throws IOException {
+        folge(() -> pollZeilen(charset, consumer), consumer, pollIntervallMillis);
+    }
+
+    /**
+     * Pollt in einer Schleife Blöcke, bis <i>close()</i> aufgerufen, der Thread unterbrochen wird oder der Consumer
+     * fertig ist.
+     *
+     * @param blockgroesse - Größe der Blöcke
+     * @param consumer - bekommt die Blöcke
+     * @param pollIntervallMillis - spätestens nach so vielen Millisekunden wird ohne Ereignis gepollt
+     * @throws IOException - Fehler
+     */
+    public void folgeBinaer(int blockgroesse, Consumer<byte[]> consumer, long pollIntervallMillis)
+        throws IOException {
+        folge(() -> pollBinaer(blockgroesse, consumer), consumer, pollIntervallMillis);
+    }
+
+    /**
+     * Beendet eine laufende Folge-Schleife und schließt die Datei.
+     */
+    @Override
+    public void close() throws IOException {
+        this.geschlossen = true;
+        WatchService ws = this.watchService;
+        if (ws != null) {
+            ws.close();
+        }
+        synchronized (this) { // wartet, bis ein laufender Poll fertig ist
+            schliesseChannel();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Leser {
+        /**
+         * @param dateiIstFertig - true: die Datei wächst nicht mehr (rotiert), auch eine Zeile ohne Umbruch liefern
+         * @return - die neue Position
+         */
+        long lese(FileChannel kanal, long ab, boolean dateiIstFertig) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Abfrage {
+        long poll() throws IOException;
+    }
+
+    private synchronized long poll(Leser leser, Consumer<?> consumer) throws IOException {
+        if (this.geschlossen || (this.channel == null && !oeffne())) {
+            return 0;
+        }
+        long vorher = this.position;
+        String neueKennung = ermittleKennung();
+        boolean rotiert = neueKennung != null && !neueKennung.equals(this.kennung);
+        if (!rotiert && this.channel.size() < this.position) {
+            this.position = 0; // abgeschnitten
+            vorher = 0;
+        }
+        this.position = leser.lese(this.channel, this.position, rotiert);
+        long gelesen = this.position - vorher;
+        if (rotiert && !GeneralNIOFileAccess.istFertig(consumer)) {
+            // die alte Datei ist zu Ende gelesen, ab jetzt die neue
+            schliesseChannel();
+            this.position = 0;
+            if (oeffne()) {
+                this.position = leser.lese(this.channel, 0, false);
+                gelesen = gelesen + this.position;
+            }
+        }
+        speichereCheckpoint();
+        return gelesen;
+    }
+
+    private void folge(Abfrage abfrage, Consumer<?> consumer, long pollIntervallMillis) throws IOException {
+        Path verzeichnis = this.datei.toAbsolutePath().getParent();
+        try (WatchService ws = verzeichnis.getFileSystem().newWatchService()) {
+            this.watchService = ws;
+            verzeichnis.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (!this.geschlossen) {
+                abfrage.poll();
+                if (GeneralNIOFileAccess.istFertig(consumer)) {
+                    return;
+                }
+                // auf irgendein Ereignis im Verzeichnis warten; ob sich die Datei wirklich geändert hat, klärt der
+                // nächste Poll billig über die Dateigröße
+                WatchKey key = ws.poll(pollIntervallMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // close() wurde aufgerufen
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.watchService = null;
+        }
+    }
+
+    /**
+     * @return - true, wenn die Datei jetzt offen ist
+     */
+    private boolean oeffne() throws IOException {
+        try {
+            this.channel = FileChannel.open(this.datei, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false; // noch nicht da, beim nächsten Poll wieder versuchen
+        }
+        String neueKennung = ermittleKennung();
+        if (this.kennung != null && !this.kennung.equals(neueKennung)) {
+            this.position = 0; // eine andere Datei als die aus dem Checkpoint
+        }
+        this.kennung = neueKennung;
+        return true;
+    }
+
+    /**
+     * @return - der FileKey (Device + Inode) der Datei unter dem Pfad, wo es keinen gibt die Erstellungszeit; null,
+     *         wenn die Datei gerade nicht existiert (z.B. mitten in einer Rotation)
+     */
+    private String ermittleKennung() throws IOException {
+        BasicFileAttributes attribute;
+        try {
+            attribute = Files.readAttributes(this.datei, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        Object fileKey = attribute.fileKey();
+        return fileKey != null ? fileKey.toString() : "erstellt:" + attribute.creationTime().toMillis();
+    }
+
+    private static long leseBloecke(FileChannel kanal, long ab, int blockgroesse, Consumer<byte[]> consumer)
+        throws IOException {
+        long bis = kanal.size(); // was danach noch dazukommt, holt der nächste Poll
+        long position = ab;
+        byte[] block = new byte[blockgroesse];
+        while (position < bis && !GeneralNIOFileAccess.istFertig(consumer)) {
+            ByteBuffer buffer = ByteBuffer.wrap(block, 0, (int) Math.min(blockgroesse, bis - position));
+            while (buffer.hasRemaining()) {
+                if (kanal.read(buffer, position + buffer.position()) < 0) {
+                    break; // inzwischen abgeschnitten
+                }
+            }
+            if (buffer.position() == 0) {
+                break;
+            }
+            consumer.accept(Arrays.copyOf(block, buffer.position()));
+            position = position + buffer.position();
+        }
+        return position;
+    }
+
+    private void schliesseChannel() throws IOException {
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Temporäre Datei plus Umbenennen, damit nach einem Absturz nie ein halber Checkpoint liegt.
+     */
+    private void speichereCheckpoint() throws IOException {
+        if (this.checkpointDatei == null || (this.position == this.gespeichertePosition
+            && Objects.equals(this.kennung, this.gespeicherteKennung))) {
+            return;
+        }
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty(POSITION, Long.toString(this.position));
+        if (this.kennung != null) {
+            checkpoint.setProperty(KENNUNG, this.kennung);
+        }
+        Path temp = this.checkpointDatei.resolveSibling(this.checkpointDatei.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            checkpoint.store(out, "FileFollower " + this.datei);
+        }
+        try {
+            Files.move(temp, this.checkpointDatei, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, this.checkpointDatei, StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.gespeichertePosition = this.position;
+        this.gespeicherteKennung = this.kennung;
+    }
+}
@@ -0,0 +1,298 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Eine zusammengesetzte Dateisuche, die in einem einzigen Durchlauf durch den Verzeichnisbaum ausgewertet wird.
+ * Statt für jedes Kriterium eine eigene holeAlle...-Suche zu machen und die Ergebnisse danach zu filtern, sammelt man
+ * hier alle Kriterien ein und ruft dann <i>suche</i> auf:
+ * 
+ * <pre>
+ * List&lt;Path&gt; treffer = new FileQuery().nurDateien().glob("*.{csv,txt}").pfadEnthaelt("export")
+ *     .groesserAls(1024).geaendertSeit(seitGestern).ausschliessen(".git").maxTiefe(10).suche("d:/daten");
+ * </pre>
+ * 
+ * Alle Kriterien müssen zutreffen (UND); innerhalb eines Kriteriums mit mehreren Werten, z.B. <i>endetMit("a",
+ * "b")</i>, reicht einer (ODER).<br/>
+ * Ausgewertet wird billig vor teuer: zuerst der Typ, dann alles, was nur den Namen braucht, und erst zuletzt Größe und
+ * Änderungsdatum. Ausgeschlossene Verzeichnisse werden gar nicht erst betreten, ihr Inhalt kostet also nichts.<br/>
+ * Eine FileQuery kann nach dem Zusammenbauen beliebig oft und auch aus mehreren Threads verwendet werden.
+ * 
+ * @author diwh
+ */
+public class FileQuery {
+
+    private enum Typ {
+        ALLE, NUR_DATEIEN, NUR_VERZEICHNISSE
+    }
+
+    private final List<Predicate<Path>> namensFilter = new ArrayList<>();
+    private final List<Predicate<BasicFileAttributes>> attributFilter = new ArrayList<>();
+    private final List<PathMatcher> ausschluesse = new ArrayList<>();
+    private Typ typ = Typ.ALLE;
+    private int maxTiefe = Integer.MAX_VALUE;
+
+    /**
+     * Nur normale Dateien liefern.
+     * 
+     * @return - diese Query
+     */
+    public FileQuery nurDateien() {
+        this.typ = Typ.NUR_DATEIEN;
+        return this;
+    }
+
+    /**
+     * Nur Verzeichnisse liefern.
+     * 
+     * @return - diese Query
+     */
+    public FileQuery nurVerzeichnisse() {
+        this.typ = Typ.NUR_VERZEICHNISSE;
+        return this;
+    }
+
+    /**
+     * @param muster - ein Glob auf den Dateinamen (ohne Verzeichnis), z.B. "*.csv" oder "*.{csv,txt}"
+     * @return - diese Query
+     */
+    public FileQuery glob(String muster) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + muster);
+        this.namensFilter.add(p -> p.getFileName() != null && matcher.matches(p.getFileName()));
+        return this;
+    }
+
+    /**
+     * @param muster - eine Regular Expression, die auf den ganzen Dateinamen (ohne Verzeichnis) passen muss
+     * @return - diese Query
+     */
+    public FileQuery regex(String muster) {
+        Pattern pattern = Pattern.compile(muster);
+        this.namensFilter.add(p -> p.getFileName() != null && pattern.matcher(p.getFileName().toString()).matches());
+        return this;
+    }
+
+    /**
+     * @param endungen - der Dateiname muss mit einer davon enden, z.B. ".csv", ".txt"
+     * @return - diese Query
+     */
+    public FileQuery endetMit(String... endungen) {
+        String[] kopie = endungen.clone();
+        this.namensFilter.add(p -> {
+            if (p.getFileName() == null) {
+                return false;
+            }
+            String name = p.getFileName().toString();
+            for (String endung : kopie) {
+                if (name.endsWith(endung)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        return this;
+    }
+
+    /**
+     * Wie bei <i>GeneralNIOFileAccess.holeAlleFilesMitNameEnthaeltVonVerzeichnis</i>: der vollständige Path als
+     * String muss den Text enthalten, damit kann man z.B. auch nach Verzeichnisnamen weiter oben filtern.
+     * 
+     * @param text - der gesuchte Text
+     * @return - diese Query
+     */
+    public FileQuery pfadEnthaelt(String text) {
+        this.namensFilter.add(p -> p.toString().contains(text));
+        return this;
+    }
+
+    /**
+     * @param bytes - die Datei muss größer sein als das
+     * @return - diese Query
+     */
+    public FileQuery groesserAls(long bytes) {
+        this.attributFilter.add(attrs -> attrs.size() > bytes);
+        return this;
+    }
+
+    /**
+     * @param bytes - die Datei muss kleiner sein als das
+     * @return - diese Query
+     */
+    public FileQuery kleinerAls(long bytes) {
+        this.attributFilter.add(attrs -> attrs.size() < bytes);
+        return this;
+    }
+
+    /**
+     * @param zeitpunkt - die letzte Änderung muss zu oder nach diesem Zeitpunkt liegen
+     * @return - diese Query
+     */
+    public FileQuery geaendertSeit(FileTime zeitpunkt) {
+        this.attributFilter.add(attrs -> attrs.lastModifiedTime().compareTo(zeitpunkt) >= 0);
+        return this;
+    }
+
+    /**
+     * @param zeitpunkt - die letzte Änderung muss vor diesem Zeitpunkt liegen
+     * @return - diese Query
+     */
+    public FileQuery geaendertVor(FileTime zeitpunkt) {
+        this.attributFilter.add(attrs -> attrs.lastModifiedTime().compareTo(zeitpunkt) < 0);
+        return this;
+    }
+
+    /**
+     * Verzeichnisse unterhalb des Startpunkts, deren Name auf den Glob passt, werden nicht betreten und nicht
+     * geliefert.
+     * 
+     * @param muster - ein Glob auf den Verzeichnisnamen, z.B. ".git" oder "tmp*"
+     * @return - diese Query
+     */
+    public FileQuery ausschliessen(String muster) {
+        this.ausschluesse.add(FileSystems.getDefault().getPathMatcher("glob:" + muster));
+        return this;
+    }
+
+    /**
+     * @param tiefe - wie tief abgestiegen wird; 0 heißt nur der Startpunkt, 1 sein direkter Inhalt usw.
+     * @return - diese Query
+     */
+    public FileQuery maxTiefe(int tiefe) {
+        this.maxTiefe = tiefe;
+        return this;
+    }
+
+    /**
+     * Führt die Suche sequenziell aus.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @return - die Treffer in der Reihenfolge des Durchlaufs
+     * @throws IOException - Fehler
+     */
+    public List<Path> suche(String verzeichnis) throws IOException {
+        List<Path> result = new ArrayList<>();
+        suche(verzeichnis, (p, attrs) -> result.add(p));
+        return result;
+    }
+
+    /**
+     * Führt die Suche sequenziell aus und gibt jeden Treffer samt seinen Attributen an den Besucher.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param besucher - bekommt jeden Treffer
+     * @throws IOException - Fehler
+     */
+    public void suche(String verzeichnis, BiConsumer<Path, BasicFileAttributes> besucher) throws IOException {
+        Path start = Paths.get(verzeichnis);
+        Files.walkFileTree(start, EnumSet.noneOf(FileVisitOption.class), this.maxTiefe,
+            new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(start) && istAusgeschlossen(dir)) { // der Startpunkt selbst zählt nie
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    pruefe(dir, attrs, besucher);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!(attrs.isDirectory() && istAusgeschlossen(file))) {
+                        pruefe(file, attrs, besucher);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE; // wie bei holeDateibaum: nicht lesbares einfach überspringen
+                }
+            });
+    }
+
+    /**
+     * Führt die Suche parallel mit dem {@link ParallelDirectoryWalker} auf dem gemeinsamen ForkJoinPool aus.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @return - die Treffer, Reihenfolge nicht definiert
+     * @throws IOException - Fehler
+     */
+    public List<Path> sucheParallel(String verzeichnis) throws IOException {
+        ConcurrentLinkedQueue<Path> result = new ConcurrentLinkedQueue<>();
+        sucheParallel(verzeichnis, ForkJoinPool.commonPool(), (p, attrs) -> result.add(p));
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Führt die Suche parallel mit dem {@link ParallelDirectoryWalker} aus.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param pool - der ForkJoinPool
+     * @param besucher - bekommt jeden Treffer, muss threadsicher sein
+     * @throws IOException - Fehler
+     */
+    public void sucheParallel(String verzeichnis, ForkJoinPool pool, BiConsumer<Path, BasicFileAttributes> besucher)
+            throws IOException {
+        Path start = Paths.get(verzeichnis);
+        new ParallelDirectoryWalker(pool, this.maxTiefe).walk(start,
+            (dir, attrs) -> !istAusgeschlossen(dir),
+            (p, attrs) -> {
+                if (!(attrs.isDirectory() && !p.equals(start) && istAusgeschlossen(p))) {
+                    pruefe(p, attrs, besucher);
+                }
+            });
+    }
+
+    private boolean istAusgeschlossen(Path dir) {
+        Path name = dir.getFileName();
+        if (name == null) {
+            return false;
+        }
+        for (PathMatcher matcher : this.ausschluesse) {
+            if (matcher.matches(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Billig vor teuer: Typ, dann Name, dann Attribute.
+     */
+    private void pruefe(Path p, BasicFileAttributes attrs, BiConsumer<Path, BasicFileAttributes> besucher) {
+        if (this.typ == Typ.NUR_DATEIEN && !attrs.isRegularFile()
+            || this.typ == Typ.NUR_VERZEICHNISSE && !attrs.isDirectory()) {
+            return;
+        }
+        for (Predicate<Path> filter : this.namensFilter) {
+            if (!filter.test(p)) {
+                return;
+            }
+        }
+        for (Predicate<BasicFileAttributes> filter : this.attributFilter) {
+            if (!filter.test(attrs)) {
+                return;
+            }
+        }
+        besucher.accept(p, attrs);
+    }
+}
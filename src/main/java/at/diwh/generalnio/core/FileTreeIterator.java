@@ -0,0 +1,205 @@
+package at.diwh.generalnio.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Ein Iterator, der einen Verzeichnisbaum erst beim Weiterschalten liest. Es ist immer nur ein DirectoryStream pro
+ * Ebene offen, der Speicherbedarf hängt also von der Tiefe des Baums ab und nicht von der Anzahl der Einträge.<br/>
+ * Die Reihenfolge ist dieselbe wie bei Files.walk: ein Verzeichnis, gleich danach sein Inhalt. Symbolische Links
+ * werden nicht verfolgt, nicht lesbare Unterverzeichnisse still übersprungen.<br/>
+ * Im sortierten Modus wird der Inhalt jedes Verzeichnisses nach Namen sortiert geliefert; dafür wird ein Verzeichnis
+ * auf einmal gelesen, der Speicherbedarf hängt dann zusätzlich von der Anzahl der Einträge pro Verzeichnis ab.<br/>
+ * <b>Achtung:</b> Muss geschlossen werden, sonst bleiben DirectoryStreams offen!
+ * 
+ * @author diwh
+ */
+final class FileTreeIterator implements Iterator<PathEntry>, Closeable {
+
+    private final ArrayDeque<Ebene> stapel = new ArrayDeque<>();
+    private final int maxTiefe;
+    private final boolean sortiert;
+    private PathEntry naechster;
+    private Path offenesVerzeichnis;
+    private int offeneTiefe;
+
+    /**
+     * @param start - der Startpunkt, wird als erster Eintrag geliefert
+     * @param maxTiefe - wie tief abgestiegen wird; 0 heißt nur der Startpunkt
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    FileTreeIterator(Path start, int maxTiefe) throws IOException {
+        this(start, maxTiefe, false);
+    }
+
+    /**
+     * @param start - der Startpunkt, wird als erster Eintrag geliefert
+     * @param maxTiefe - wie tief abgestiegen wird; 0 heißt nur der Startpunkt
+     * @param sortiert - true: Einträge eines Verzeichnisses nach Namen sortiert (String.compareTo) liefern
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    FileTreeIterator(Path start, int maxTiefe, boolean sortiert) throws IOException {
+        super();
+        this.maxTiefe = maxTiefe;
+        this.sortiert = sortiert;
+        BasicFileAttributes attrs = Files.readAttributes(start, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        this.naechster = new PathEntry(start, attrs);
+        if (attrs.isDirectory() && maxTiefe > 0) { // gleich öffnen, damit ein Fehler beim Startpunkt hier auffällt
+            this.stapel.push(oeffneEbene(start, 0));
+        }
+    }
+
+    /**
+     * @return - ein sequenzieller Stream über diesen Iterator, der ihn beim Schließen mitschließt
+     */
+    Stream<PathEntry> alsStream() {
+        return StreamSupport
+            .stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false)
+            .onClose(() -> {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.naechster != null) {
+            return true;
+        }
+        if (this.offenesVerzeichnis != null) {
+            try {
+                this.stapel.push(oeffneEbene(this.offenesVerzeichnis, this.offeneTiefe));
+            } catch (IOException e) {
+                // nicht lesbares Verzeichnis, wie bei holeDateibaum einfach überspringen
+            }
+            this.offenesVerzeichnis = null;
+        }
+        while (!this.stapel.isEmpty()) {
+            Ebene ebene = this.stapel.peek();
+            Path p;
+            try {
+                if (!ebene.eintraege.hasNext()) {
+                    schliesseEbene();
+                    continue;
+                }
+                p = ebene.eintraege.next();
+            } catch (DirectoryIteratorException e) {
+                schliesseEbene();
+                continue;
+            }
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                continue; // inzwischen gelöscht oder kein Zugriff
+            }
+            this.naechster = new PathEntry(p, attrs);
+            int tiefe = ebene.tiefe + 1;
+            if (attrs.isDirectory() && tiefe < this.maxTiefe) { // erst öffnen, wenn der Aufrufer weiterschaltet
+                this.offenesVerzeichnis = p;
+                this.offeneTiefe = tiefe;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public PathEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PathEntry ergebnis = this.naechster;
+        this.naechster = null;
+        return ergebnis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException fehler = null;
+        while (!this.stapel.isEmpty()) {
+            try {
+                this.stapel.pop().schliesse();
+            } catch (IOException e) {
+                fehler = e;
+            }
+        }
+        this.naechster = null;
+        this.offenesVerzeichnis = null;
+        if (fehler != null) {
+            throw fehler;
+        }
+    }
+
+    private Ebene oeffneEbene(Path verzeichnis, int tiefe) throws IOException {
+        DirectoryStream<Path> stream = Files.newDirectoryStream(verzeichnis);
+        if (!this.sortiert) {
+            return new Ebene(stream, stream.iterator(), tiefe);
+        }
+        List<Path> eintraege = new ArrayList<>();
+        try {
+            for (Path p : stream) {
+                eintraege.add(p);
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        } finally {
+            stream.close();
+        }
+        eintraege.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        return new Ebene(null, eintraege.iterator(), tiefe);
+    }
+
+    private void schliesseEbene() {
+        try {
+            this.stapel.pop().schliesse();
+        } catch (IOException e) {
+            // beim Schließen eines Lese-Streams gibt es nichts mehr zu retten
+        }
+    }
+
+    /**
+     * Ein offener DirectoryStream (im sortierten Modus schon gelesen und geschlossen) samt Iterator und der Tiefe
+     * seines Verzeichnisses.
+     */
+    private static final class Ebene {
+
+        private final DirectoryStream<Path> stream;
+        private final Iterator<Path> eintraege;
+        private final int tiefe;
+
+        Ebene(DirectoryStream<Path> stream, Iterator<Path> eintraege, int tiefe) {
+            super();
+            this.stream = stream;
+            this.eintraege = eintraege;
+            this.tiefe = tiefe;
+        }
+
+        void schliesse() throws IOException {
+            if (this.stream != null) {
+                this.stream.close();
+            }
+        }
+    }
+}
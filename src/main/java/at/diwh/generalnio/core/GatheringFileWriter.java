@@ -0,0 +1,165 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Schreibt beliebig viele Datensätze mit einer fixen Menge an Puffern in eine Datei: die Datensätze werden der Reihe
+ * nach in die Puffer kodiert bzw. kopiert, und wenn alle Puffer voll sind, gehen sie mit einem einzigen gathering
+ * FileChannel.write(ByteBuffer[]) hinaus und werden wiederverwendet. Der Speicherbedarf hängt damit nur von
+ * Anzahl und Größe der Puffer ab, nicht von der Größe der Ausgabe.
+ * 
+ * @author diwh
+ */
+final class GatheringFileWriter {
+
+    private static final int ANZAHL_PUFFER = 16;
+    private static final int PUFFERGROESSE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer[] puffer;
+    private final CharsetEncoder encoder;
+    private final IoListener listener;
+    private int aktuell;
+    private long ioNanos;
+
+    private GatheringFileWriter(FileChannel channel, Charset charset, IoListener listener) {
+        super();
+        this.channel = channel;
+        this.puffer = new ByteBuffer[ANZAHL_PUFFER];
+        for (int i = 0; i < ANZAHL_PUFFER; i++) {
+            this.puffer[i] = ByteBuffer.allocateDirect(PUFFERGROESSE);
+        }
+        this.encoder = charset == null ? null : charset.newEncoder();
+        this.listener = listener;
+    }
+
+    /**
+     * @param p - die Datei
+     * @param datensaetze - String (mit Charset) oder byte[] (ohne Charset), werden ohne Trenner hintereinander
+     *            geschrieben
+     * @param append - true: anhängen, false: überschreiben
+     * @param charset - das Encoding bei Text, sonst null
+     * @param listener - bekommt Messwerte, null wenn nicht gemessen wird
+     * @throws IOException - Fehler
+     */
+    static void schreibe(Path p, Iterator<?> datensaetze, boolean append, Charset charset, IoListener listener)
+        throws IOException {
+        long anfang = listener == null ? 0 : System.nanoTime();
+        try {
+            FileChannel channel;
+            if (!append) { // knallhart überschreiben
+                channel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            } else {
+                channel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            }
+            if (listener != null) {
+                listener.geoeffnet(IoVorgang.SCHREIBEN, p, System.nanoTime() - anfang);
+            }
+            try {
+                GatheringFileWriter writer = new GatheringFileWriter(channel, charset, listener);
+                long umwandelnNanos = 0;
+                while (datensaetze.hasNext()) {
+                    Object datensatz = datensaetze.next();
+                    if (writer.encoder == null) {
+                        writer.kopiere((byte[]) datensatz);
+                    } else if (listener == null) {
+                        writer.kodiere((String) datensatz);
+                    } else { // Kodieren ist alles außer den Schreibzugriffen, die es dabei auslöst
+                        long t = System.nanoTime();
+                        long ioVorher = writer.ioNanos;
+                        writer.kodiere((String) datensatz);
+                        umwandelnNanos = umwandelnNanos + System.nanoTime() - t - (writer.ioNanos - ioVorher);
+                    }
+                }
+                writer.schreibePuffer();
+                if (listener != null && writer.encoder != null) {
+                    listener.umgewandelt(IoVorgang.SCHREIBEN, umwandelnNanos);
+                }
+            } finally {
+                long t = listener == null ? 0 : System.nanoTime();
+                channel.close();
+                if (listener != null) {
+                    listener.geschlossen(IoVorgang.SCHREIBEN, p, System.nanoTime() - t);
+                }
+            }
+        } finally {
+            if (listener != null) {
+                listener.beendet(IoVorgang.SCHREIBEN, p, System.nanoTime() - anfang);
+            }
+        }
+    }
+
+    private void kodiere(String text) throws IOException {
+        CharBuffer in = CharBuffer.wrap(text);
+        CoderResult ergebnis;
+        while ((ergebnis = this.encoder.encode(in, this.puffer[this.aktuell], true)).isOverflow()) {
+            naechsterPuffer();
+        }
+        if (ergebnis.isError()) {
+            ergebnis.throwException();
+        }
+        while (this.encoder.flush(this.puffer[this.aktuell]).isOverflow()) {
+            naechsterPuffer();
+        }
+        this.encoder.reset();
+    }
+
+    private void kopiere(byte[] daten) throws IOException {
+        int offset = 0;
+        while (offset < daten.length) {
+            ByteBuffer ziel = this.puffer[this.aktuell];
+            if (!ziel.hasRemaining()) {
+                naechsterPuffer();
+                continue;
+            }
+            int laenge = Math.min(ziel.remaining(), daten.length - offset);
+            ziel.put(daten, offset, laenge);
+            offset = offset + laenge;
+        }
+    }
+
+    private void naechsterPuffer() throws IOException {
+        if (this.aktuell + 1 < this.puffer.length) {
+            this.aktuell++;
+        } else { // alle Puffer voll, also raus damit
+            schreibePuffer();
+        }
+    }
+
+    /**
+     * Schreibt alle benutzten Puffer mit einem gathering write und beginnt wieder beim ersten.
+     */
+    private void schreibePuffer() throws IOException {
+        int anzahl = this.aktuell + 1;
+        for (int i = 0; i < anzahl; i++) {
+            this.puffer[i].flip();
+        }
+        ByteBuffer letzter = this.puffer[anzahl - 1];
+        while (letzter.hasRemaining()) {
+            if (this.listener == null) {
+                this.channel.write(this.puffer, 0, anzahl);
+            } else {
+                long t = System.nanoTime();
+                long bytes = this.channel.write(this.puffer, 0, anzahl);
+                long dauer = System.nanoTime() - t;
+                this.ioNanos = this.ioNanos + dauer;
+                this.listener.geschrieben(IoVorgang.SCHREIBEN, bytes, dauer);
+            }
+        }
+        for (int i = 0; i < anzahl; i++) {
+            this.puffer[i].clear();
+        }
+        this.aktuell = 0;
+    }
+}
@@ -2,26 +2,59 @@ package at.diwh.generalnio.core;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import at.diwh.generalnio.consumer.BlockHandler;
+import at.diwh.generalnio.consumer.BufferHandler;
+import at.diwh.generalnio.consumer.LineHandler;
+import at.diwh.generalnio.consumer.ShortCircuitingConsumer;
+import at.diwh.generalnio.consumer.TextHandler;
+
 /**
  * Dies ist ein Versuch, eine generelle File-Access-Klasse zu bauen; 
  * inspieriert durch FileAccessWithNIO 
@@ -30,6 +63,32 @@ import java.util.stream.Stream;
  */
 public class GeneralNIOFileAccess {
 
+    /**
+     * Ein MappedByteBuffer kann höchstens Integer.MAX_VALUE Bytes groß sein, größere Dateien werden daher in Fenstern
+     * dieser Größe gemappt.
+     */
+    private static final long MAX_MAPPING_FENSTER = Integer.MAX_VALUE;
+
+    /**
+     * Schon aufgelöste Resourcen pro Klasse; ClassValue hält dabei die Klasse (und ihren ClassLoader) nicht fest.
+     */
+    private static final ClassValue<Map<String, Path>> RESOURCE_PFADE = new ClassValue<Map<String, Path>>() {
+        @Override
+        protected Map<String, Path> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Wenn gesetzt, liest leseFile Resourcen (clazz != null) über diesen Cache.
+     */
+    private static volatile ResourceCache resourceCache;
+
+    /**
+     * Wenn gesetzt, bekommt er Messwerte aus leseFile, schreibeFile und den Durchläufen.
+     */
+    private static volatile IoListener ioListener;
+
     /**
      * Diesen privaten Konstruktor gibt es nur, weil SonarLint sonst an der Klasse meckert, man solle gefälligst einen
      * privaten Konstruktor erstellen. Das ergibt nicht den geringsten Sinn und dieser Konstruktor hier ist so nützlich
@@ -54,7 +113,14 @@ public class GeneralNIOFileAccess {
      * Wenn größer als 0 ist es abhängig vom Typ des Files: <br/>
      * Bei einem Textfile ist die Zahl egal, wenn sie größer 0 ist wird zeilenweise gelesen und jede Zeile an den
      * Consumer übergeben <br/>
-     * Bei einem Binärfile wird in der angebenen Blockgröße gelesen und jeder Block an den Consumer übergeben.
+     * Bei einem Binärfile wird in der angebenen Blockgröße gelesen und jeder Block an den Consumer übergeben.<br/>
+     * <br/>
+     * Ist der Consumer ein {@link ShortCircuitingConsumer}, wird mit dem Lesen aufgehört, sobald er fertig ist.<br/>
+     * <br/>
+     * Wer den Typ schon beim Aufruf kennt, nimmt besser gleich
+     * {@link #leseZeilen(String, Class, Charset, LineHandler)}, {@link #leseText(String, Class, Charset, TextHandler)}
+     * oder {@link #leseBloecke(String, Class, int, BlockHandler)}; leseFile macht auch nichts anderes, nur mit einem
+     * Cast pro Element.
      * 
      * @param <T> - wird abgeleitet aus dem Typ, den der Consumer erwartet
      * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" oder als Resource
@@ -67,39 +133,613 @@ public class GeneralNIOFileAccess {
      * @throws IOException - Fehler
      * @throws URISyntaxException - Fehler
      */
-    @SuppressWarnings({"unchecked", "resource"}) // muss leider sein, weil Generics
+    @SuppressWarnings("unchecked") // muss leider sein, weil Generics
     public static <T> void leseFile(String f, Class<?> clazz, Charset charset,  int blocksize, Consumer<T> consumer) throws IOException, URISyntaxException {
-        Path p = null;
-        if (clazz == null) {    // Filesystem-Quelle
-            p = Paths.get(f);
-        } else {                // Resourcepath-Quelle
-            p = Paths.get(clazz.getResource(f).toURI());
+        ResourceCache cache = resourceCache;
+        if (clazz != null && cache != null) {
+            leseAusSpeicher(cache.holeIntern(clazz, f), charset, blocksize, consumer);
+            return;
         }
+        Path p = ermittlePfad(f, clazz);
+        IoListener listener = ioListener;
         if (charset != null) {  // wenn wir ein Charset haben, haben wir ein Textfile vor uns
             if (blocksize > 0) { // blocksize > 0 heißt zeilenweises Lesen
-                BufferedReader bReader = Files.newBufferedReader(p, charset);
-                String line = null;
-                while ((line = bReader.readLine()) != null) {
-                    consumer.accept((T) line);
+                if (!istFertig(consumer)) {
+                    zeilenweise(p, charset, line -> {
+                        consumer.accept((T) line);
+                        return !istFertig(consumer);
+                    }, listener);
                 }
-                bReader.close();
             } else { // blocksize <= 0 heißt: Lies File als ganzes
-                consumer.accept((T) new String(Files.readAllBytes(p), charset));
+                ganzerText(p, charset, text -> consumer.accept((T) text), listener);
             }
         } else {                // kein Charset bedeutet: Binärfile
             if (blocksize > 0) { // blocksize > 0 heißt: Lies in Blöcken der angegeben blocksize
-                InputStream is = Files.newInputStream(p);
-                byte[] inBuffer = new byte[blocksize];
-                int anzahlBytesRead = 0;
-                while ((anzahlBytesRead = is.read(inBuffer)) != -1) {
-                    byte[] retBuffer =  Arrays.copyOf(inBuffer, anzahlBytesRead); // sonst hat man ggf. am letzten Block Zeros hinten dran
-                    consumer.accept((T) retBuffer);
+                if (!istFertig(consumer)) {
+                    blockweise(p, blocksize, (inBuffer, anzahlBytesRead) -> {
+                        // Kopie, weil der Puffer wiederverwendet wird und am letzten Block sonst Zeros hinten dran sind
+                        consumer.accept((T) Arrays.copyOf(inBuffer, anzahlBytesRead));
+                        return !istFertig(consumer);
+                    }, listener);
+                }
+            } else { // blocksize <= 0 heißt: Lies die Datei als ganzes, das Array gehört dann dem Consumer
+                blockweise(p, 0, (daten, laenge) -> {
+                    consumer.accept((T) daten);
+                    return true;
+                }, listener);
+            }
+        }
+    }
+
+    /**
+     * Liest ein Textfile zeilenweise. Wie leseFile mit Charset und blocksize &gt; 0, nur steht der Typ hier schon beim
+     * Aufruf fest: kein Cast pro Zeile, und ob weitergelesen wird, sagt der Rückgabewert des Handlers.
+     * 
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param charset - das Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param handler - bekommt jede Zeile, liefert false, wenn er keine mehr braucht
+     * @return - die Anzahl der gelieferten Zeilen
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static long leseZeilen(String f, Class<?> clazz, Charset charset, LineHandler handler)
+        throws IOException, URISyntaxException {
+        return zeilenweise(ermittlePfad(f, clazz), charset, handler, ioListener);
+    }
+
+    /**
+     * Liest ein Textfile als Ganzes, wie leseFile mit Charset und blocksize &lt;= 0.
+     * Dabei liegt die Datei kurz als byte[] und als String im Speicher, sparsamer ist {@link #leseZeichen}.
+     * 
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param charset - das Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param handler - bekommt den ganzen Text
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static void leseText(String f, Class<?> clazz, Charset charset, TextHandler handler)
+        throws IOException, URISyntaxException {
+        ganzerText(ermittlePfad(f, clazz), charset, handler, ioListener);
+    }
+
+    /**
+     * Liest ein Textfile als Ganzes, aber als CharSequence statt als String: dekodiert wird Puffer für Puffer direkt
+     * in das Ergebnis, die Datei liegt also nie zusätzlich als byte[] im Speicher. Bei (fast) reinem ASCII- oder
+     * Latin-1-Text braucht das ab Java 9 etwa halb so viel Speicher wie leseText.<br/>
+     * Für große Dateien, die man durchsuchen oder parsen, aber nicht als String weitergeben muss.
+     * 
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param charset - das Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @return - der Text, ein StringBuilder, der dem Aufrufer gehört
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static StringBuilder leseZeichen(String f, Class<?> clazz, Charset charset)
+        throws IOException, URISyntaxException {
+        try (SeekableByteChannel channel = Files.newByteChannel(ermittlePfad(f, clazz))) {
+            return TextDecoder.dekodiereGanz(channel, channel.size(), charset);
+        }
+    }
+
+    /**
+     * Liest ein Binärfile blockweise, wie leseFile ohne Charset, aber ohne pro Block ein neues byte[] anzulegen: der
+     * Handler bekommt immer denselben Puffer und die Anzahl gültiger Bytes. Ein Block kann kürzer als
+     * <i>blocksize</i> sein, nicht nur der letzte.<br/>
+     * Bei blocksize &lt;= 0 kommt die ganze Datei in einem Aufruf, das Array gehört dann dem Handler.
+     * 
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param blocksize - die Puffergröße; 0 oder eine neg. Zahl bedeutet: File im Ganzen lesen
+     * @param handler - bekommt jeden Block, liefert false, wenn er keinen mehr braucht
+     * @return - die Anzahl der gelieferten Bytes
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static long leseBloecke(String f, Class<?> clazz, int blocksize, BlockHandler handler)
+        throws IOException, URISyntaxException {
+        return blockweise(ermittlePfad(f, clazz), blocksize, handler, ioListener);
+    }
+
+    /**
+     * Liest ein Binärfile über einen FileChannel blockweise in einen ByteBuffer, den der Aufrufer mitbringt (heap,
+     * direkt oder aus einem {@link ByteBufferPool}); die Blockgröße ist seine Kapazität. Der Handler bekommt immer
+     * denselben Buffer, gefüllt bis zum limit, nur der letzte Block kann kürzer sein.
+     * 
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param puffer - wird für jeden Block geleert und neu gefüllt
+     * @param handler - bekommt jeden Block, liefert false, wenn er keinen mehr braucht
+     * @return - die Anzahl der gelieferten Bytes
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static long leseBuffer(String f, Class<?> clazz, ByteBuffer puffer, BufferHandler handler)
+        throws IOException, URISyntaxException {
+        if (puffer.capacity() == 0) {
+            throw new IllegalArgumentException("puffer darf nicht leer sein");
+        }
+        return pufferweise(ermittlePfad(f, clazz), puffer, handler, ioListener);
+    }
+
+    private static long pufferweise(Path p, ByteBuffer puffer, BufferHandler handler, IoListener listener)
+        throws IOException {
+        if (listener != null) {
+            return IoMessung.buffer(p, puffer, handler, listener);
+        }
+        long gesamt = 0;
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+            while (true) {
+                puffer.clear();
+                while (puffer.hasRemaining() && channel.read(puffer) != -1) {
+                    // Puffer vollmachen, damit alle Blöcke außer dem letzten die volle Größe haben
+                }
+                if (puffer.position() == 0) {
+                    return gesamt;
+                }
+                puffer.flip();
+                gesamt = gesamt + puffer.limit();
+                if (!handler.buffer(puffer)) {
+                    return gesamt;
+                }
+            }
+        }
+    }
+
+    private static long zeilenweise(Path p, Charset charset, LineHandler handler, IoListener listener)
+        throws IOException {
+        if (listener != null) {
+            return IoMessung.zeilen(p, charset, handler, listener);
+        }
+        if (ParallelLineReader.istZeilenumbruchEinByte(charset)) {
+            try (SeekableByteChannel channel = Files.newByteChannel(p)) {
+                return TextDecoder.zeilen(channel, charset, handler);
+            }
+        }
+        long anzahl = 0;
+        try (BufferedReader bReader = Files.newBufferedReader(p, charset)) { // z.B. UTF-16
+            String line;
+            while ((line = bReader.readLine()) != null) {
+                anzahl++;
+                if (!handler.zeile(line)) {
+                    break;
+                }
+            }
+        }
+        return anzahl;
+    }
+
+    private static void ganzerText(Path p, Charset charset, TextHandler handler, IoListener listener)
+        throws IOException {
+        if (listener != null) {
+            IoMessung.text(p, charset, handler, listener);
+            return;
+        }
+        handler.text(new String(Files.readAllBytes(p), charset));
+    }
+
+    private static long blockweise(Path p, int blocksize, BlockHandler handler, IoListener listener)
+        throws IOException {
+        if (listener != null) {
+            return IoMessung.bloecke(p, blocksize, handler, listener);
+        }
+        if (blocksize <= 0) {
+            byte[] daten = Files.readAllBytes(p);
+            handler.block(daten, daten.length);
+            return daten.length;
+        }
+        long gesamt = 0;
+        try (InputStream is = Files.newInputStream(p)) {
+            byte[] inBuffer = new byte[blocksize];
+            int anzahlBytesRead;
+            while ((anzahlBytesRead = is.read(inBuffer)) != -1) {
+                gesamt = gesamt + anzahlBytesRead;
+                if (!handler.block(inBuffer, anzahlBytesRead)) {
+                    break;
+                }
+            }
+        }
+        return gesamt;
+    }
+
+    /**
+     * Wie leseFile, nur aus einem Byte-Array, das nicht verändert und nicht weitergegeben wird.
+     */
+    @SuppressWarnings("unchecked") // muss leider sein, weil Generics
+    private static <T> void leseAusSpeicher(byte[] daten, Charset charset, int blocksize, Consumer<T> consumer)
+        throws IOException {
+        if (charset != null) {
+            if (blocksize > 0) {
+                if (istFertig(consumer)) {
+                    return;
+                }
+                LineHandler handler = line -> {
+                    consumer.accept((T) line);
+                    return !istFertig(consumer);
+                };
+                // gleiche Zeilentrennung und gleiche Fehler bei kaputten Bytes wie beim Lesen von der Platte
+                if (ParallelLineReader.istZeilenumbruchEinByte(charset)) {
+                    TextDecoder.zeilen(Channels.newChannel(new ByteArrayInputStream(daten)), charset, handler);
+                } else {
+                    try (BufferedReader bReader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(
+                        daten), charset.newDecoder()))) { // wie Files.newBufferedReader
+                        String line;
+                        while ((line = bReader.readLine()) != null && handler.zeile(line)) {
+                            // weiter
+                        }
+                    }
+                }
+            } else {
+                consumer.accept((T) new String(daten, charset));
+            }
+        } else {
+            if (blocksize > 0) {
+                for (int von = 0; von < daten.length && !istFertig(consumer); von = von + blocksize) {
+                    consumer.accept((T) Arrays.copyOfRange(daten, von, Math.min(daten.length, von + blocksize)));
+                }
+            } else {
+                consumer.accept((T) daten.clone());
+            }
+        }
+    }
+
+    /**
+     * Schaltet einen Speicher-Cache für Resourcen ein oder aus: wenn gesetzt, liest <i>leseFile</i> mit
+     * <i>clazz != null</i> die Resource nur beim ersten Mal, danach kommt sie aus dem Speicher. Gedacht für kleine
+     * Dateien, die in Schleifen immer wieder gelesen werden. Die anderen Lesemethoden sind davon nicht betroffen.
+     * 
+     * @param cache - der Cache, null schaltet ihn wieder aus
+     */
+    public static void setResourceCache(ResourceCache cache) {
+        resourceCache = cache;
+    }
+
+    /**
+     * @return - der mit setResourceCache gesetzte Cache oder null
+     */
+    public static ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    /**
+     * Schaltet die Messung von <i>leseFile</i> (samt <i>leseZeilen</i>, <i>leseText</i>, <i>leseBloecke</i> und
+     * <i>leseBuffer</i>), <i>schreibeFile</i> und den Verzeichnisdurchläufen
+     * (<i>holeDateibaum</i>, <i>holeDateibaumParallel</i>, <i>holeAlle...</i>, <i>streameAlle...</i>) ein oder aus.
+     * Der Listener bekommt dann Öffnen, jeden Lese- und Schreibzugriff, die Zeit für das Umwandeln von Text, die Zeit
+     * im Consumer, Schließen und jeden besuchten Eintrag gemeldet, siehe {@link IoListener}; zum Zusammenzählen gibt
+     * es {@link IoMetrics}.<br/>
+     * Ohne Listener wird nicht gemessen. Resourcen aus dem ResourceCache kommen ohne Datei-I/O und werden nicht
+     * gemeldet.
+     * 
+     * @param listener - der Listener, null schaltet die Messung wieder aus
+     */
+    public static void setIoListener(IoListener listener) {
+        ioListener = listener;
+    }
+
+    /**
+     * @return - der mit setIoListener gesetzte Listener oder null
+     */
+    public static IoListener getIoListener() {
+        return ioListener;
+    }
+
+    /**
+     * Liest ein Textfile zeilenweise, ohne pro Zeile einen String anzulegen. Der Consumer bekommt für jede Zeile
+     * dieselbe {@link ByteLine}, die erst dekodiert, wenn man auf die Zeichen zugreift; z.B. ein Zeilenzähler liest
+     * die Datei damit ohne jede Allokation pro Zeile. Details siehe {@link LineScanner}.<br/>
+     * Fehlerhafte Bytes werden wie bei <i>leseZeilen</i> nicht ersetzt, sondern gemeldet, allerdings erst, wenn der
+     * Consumer auf die Zeichen dieser Zeile zugreift.
+     * 
+     * @param f - der Filename (inkl. Pfad)
+     * @param clazz - wenn die Datei im Classpath liegt, eine Klasse für getResource, sonst null
+     * @param charset - das Encoding, '\n' und '\r' müssen darin je ein Byte sein (also z.B. kein UTF-16)
+     * @param consumer - bekommt die Zeilen; die ByteLine ist nur innerhalb von accept gültig
+     * @return - die Byteposition direkt nach der letzten gelieferten Zeile
+     * @throws IOException - Fehler, z.B. MalformedInputException
+     * @throws URISyntaxException - Fehler
+     */
+    public static long scanneZeilen(String f, Class<?> clazz, Charset charset, Consumer<? super ByteLine> consumer)
+        throws IOException, URISyntaxException {
+        return new LineScanner(ermittlePfad(f, clazz), charset).scanne(consumer);
+    }
+
+    /**
+     * Liest einen Bereich von Zeilen aus einem Textfile, ohne die Datei bis dorthin zu lesen. Dazu wird beim ersten
+     * Aufruf ein {@link LineIndex} als Nebendatei <i>f</i>.lidx angelegt; solange sich die Datei nicht ändert, kostet
+     * jeder weitere Aufruf nur mehr das Lesen des Bereichs.
+     * 
+     * @param f - der Filename (inkl. Pfad), nur Filesystem, weil die Nebendatei daneben geschrieben wird
+     * @param charset - das Encoding, '\n' und '\r' müssen darin je ein Byte sein (also z.B. kein UTF-16)
+     * @param vonZeile - die erste gewünschte Zeile, ab 0
+     * @param anzahl - so viele Zeilen höchstens
+     * @param consumer - bekommt die Zeilen; ein {@link ShortCircuitingConsumer} kann auch vor dem Ende des Bereichs
+     *            aufhören
+     * @return - die Anzahl der gelieferten Zeilen
+     * @throws IOException - Fehler
+     */
+    public static long leseZeilenbereich(String f, Charset charset, long vonZeile, long anzahl,
+        Consumer<String> consumer) throws IOException {
+        LineIndex index = LineIndex.holeOderBaue(Paths.get(f), LineIndex.STANDARD_INTERVALL);
+        return index.leseZeilen(charset, vonZeile, anzahl, new ShortCircuitingConsumer<ByteLine>() {
+            @Override
+            public void accept(ByteLine zeile) {
+                consumer.accept(zeile.toString());
+            }
+
+            @Override
+            public boolean istFertig() {
+                return GeneralNIOFileAccess.istFertig(consumer);
+            }
+        });
+    }
+
+    /**
+     * Liest <i>laenge</i> Bytes ab <i>position</i>, ohne die Datei jedes Mal zu öffnen: der Channel kommt aus dem
+     * gemeinsamen {@link ChannelCache#standard()} und bleibt für die nächsten Zugriffe offen. Darf von vielen Threads
+     * gleichzeitig aufgerufen werden.
+     * 
+     * @param f - der Filename (inkl. Pfad)
+     * @param clazz - wenn die Datei im Classpath liegt, eine Klasse für getResource, sonst null
+     * @param position - ab hier wird gelesen
+     * @param laenge - so viele Bytes höchstens; am Dateiende kann das Ergebnis kürzer sein
+     * @return - die gelesenen Bytes
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static byte[] leseBereich(String f, Class<?> clazz, long position, int laenge)
+        throws IOException, URISyntaxException {
+        return ChannelCache.standard().leseBereich(ermittlePfad(f, clazz), position, laenge);
+    }
+
+    /**
+     * Wie {@link #leseBereich(String, Class, long, int)}, liest aber in einen vorhandenen Puffer, z.B. einen direkten
+     * oder einen aus einem {@link ByteBufferPool}.
+     * 
+     * @param f - der Filename (inkl. Pfad)
+     * @param clazz - wenn die Datei im Classpath liegt, eine Klasse für getResource, sonst null
+     * @param position - ab hier wird gelesen
+     * @param ziel - wird ab seiner Position gefüllt, soweit die Datei reicht
+     * @return - die Anzahl gelesener Bytes
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static int leseBereich(String f, Class<?> clazz, long position, ByteBuffer ziel)
+        throws IOException, URISyntaxException {
+        return ChannelCache.standard().leseBereich(ermittlePfad(f, clazz), position, ziel);
+    }
+
+    /**
+     * Liest ein Binärfile über Memory-Mapping, ohne die Daten auf den Heap zu kopieren. Der Consumer bekommt
+     * read-only ByteBuffer, die direkt auf den Page-Cache zeigen.<br/>
+     * Dateien größer als 2 GB werden in Fenstern gemappt, ein Block reicht dabei nie über eine Fenstergrenze.<br/>
+     * <br/>
+     * <b>Achtung: Parameter blocksize</b> bedeutet: <br/>
+     * Wenn 0 oder kleiner 0: Jedes Mapping-Fenster wird als Ganzes übergeben, bei Dateien bis 2 GB ist das die
+     * <b>gesamte Datei</b>. <br/>
+     * Wenn größer als 0: Der Consumer bekommt Slices in der angegebenen Blockgröße, der letzte Block kann kürzer
+     * sein.<br/>
+     * Ist der Consumer ein {@link ShortCircuitingConsumer}, wird mit dem Lesen aufgehört, sobald er fertig ist.
+     * 
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" oder als Resource
+     *            "/META-INF/irgendeinfile.txt"
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param blocksize - die Blockgröße; 0 oder eine neg. Zahl bedeutet: jedes Mapping-Fenster im Ganzen
+     * @param consumer - bekommt read-only ByteBuffer mit position 0 und limit = Anzahl gültiger Bytes
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static void leseFileMapped(String f, Class<?> clazz, int blocksize, Consumer<ByteBuffer> consumer)
+            throws IOException, URISyntaxException {
+        Path p = ermittlePfad(f, clazz);
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+            long groesse = channel.size();
+            if (groesse == 0 && blocksize <= 0) { // damit verhält es sich wie leseFile mit Blocksize 0
+                consumer.accept(ByteBuffer.allocate(0).asReadOnlyBuffer());
+                return;
+            }
+            long fenster = MAX_MAPPING_FENSTER;
+            if (blocksize > 0) { // Fenster auf ein Vielfaches der Blocksize kürzen, sonst zerschneiden wir Blöcke
+                fenster = fenster - (fenster % blocksize);
+            }
+            long fensterStart = 0;
+            while (fensterStart < groesse && !istFertig(consumer)) {
+                long fensterLaenge = Math.min(fenster, groesse - fensterStart);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, fensterStart, fensterLaenge);
+                if (blocksize > 0) {
+                    long start = 0;
+                    while (start < fensterLaenge && !istFertig(consumer)) {
+                        long ende = Math.min(start + blocksize, fensterLaenge);
+                        mapped.limit((int) ende); // erst limit, dann position, sonst IllegalArgumentException
+                        mapped.position((int) start);
+                        consumer.accept(mapped.slice());
+                        start = ende;
+                    }
+                } else {
+                    consumer.accept(mapped);
+                }
+                fensterStart = fensterStart + fensterLaenge;
+            }
+        }
+    }
+
+    /**
+     * Liest ein Binärfile blockweise über einen FileChannel in Puffer aus einem {@link ByteBufferPool}. Im Gegensatz
+     * zu <i>leseFile</i> mit blocksize &gt; 0 wird dabei pro Block kein neues byte[] angelegt.<br/>
+     * Die Blockgröße entspricht der Puffergröße des Pools, nur der letzte Block kann kürzer sein.<br/>
+     * <br/>
+     * <b>Achtung:</b> Der Consumer muss jeden PooledBuffer mit <i>freigeben()</i> zurückgeben, entweder gleich in
+     * accept oder später (z.B. aus einem Worker-Thread). Sind alle Puffer des Pools verliehen, wartet das Lesen, bis
+     * wieder einer frei ist; ein vergessener freigeben-Aufruf bei einem Pool mit nur einem Puffer hängt also für
+     * immer.<br/>
+     * Ist der Consumer ein {@link ShortCircuitingConsumer}, wird mit dem Lesen aufgehört, sobald er fertig ist.
+     * 
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" oder als Resource
+     *            "/META-INF/irgendeinfile.txt"
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param pool - der Pool, aus dem die Puffer kommen
+     * @param consumer - bekommt pro Block einen PooledBuffer, Buffer auf position 0 und limit = gültige Länge
+     * @throws IOException - Fehler, auch wenn der Thread beim Warten auf einen Puffer unterbrochen wird
+     * @throws URISyntaxException - Fehler
+     */
+    public static void leseFileGepoolt(String f, Class<?> clazz, ByteBufferPool pool, Consumer<PooledBuffer> consumer)
+            throws IOException, URISyntaxException {
+        Path p = ermittlePfad(f, clazz);
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+            long position = 0;
+            while (!istFertig(consumer)) {
+                PooledBuffer pooledBuffer = leiheAus(pool);
+                ByteBuffer buffer = pooledBuffer.getBuffer();
+                try {
+                    while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                        // Puffer vollmachen, damit alle Blöcke außer dem letzten die volle Größe haben
+                    }
+                } catch (IOException e) {
+                    pooledBuffer.freigeben();
+                    throw e;
+                }
+                int laenge = buffer.position();
+                if (laenge == 0) { // Dateiende
+                    pooledBuffer.freigeben();
+                    break;
+                }
+                buffer.flip();
+                pooledBuffer.setzeInhalt(position, laenge);
+                position = position + laenge;
+                consumer.accept(pooledBuffer);
+            }
+        }
+    }
+
+    /**
+     * Liest ein Textfile zeilenweise und parallel auf dem gemeinsamen ForkJoinPool.<br/>
+     * Siehe {@link #leseFileParallel(String, Class, Charset, ForkJoinPool, Supplier, BinaryOperator)}.
+     * 
+     * @param <C> - der Typ des Consumers
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param charset - das Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param consumerFabrik - liefert pro Bereich einen neuen Consumer, z.B. FullTextualReadConsumer::new
+     * @param kombinierer - führt zwei Consumer zusammen
+     * @return - der Consumer, in dem alle Bereiche zusammengeführt sind
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static <C extends Consumer<String>> C leseFileParallel(String f, Class<?> clazz, Charset charset,
+        Supplier<C> consumerFabrik, BinaryOperator<C> kombinierer) throws IOException, URISyntaxException {
+        return leseFileParallel(f, clazz, charset, ForkJoinPool.commonPool(), consumerFabrik, kombinierer);
+    }
+
+    /**
+     * Liest ein Textfile zeilenweise und parallel. Die Datei wird in Byte-Bereiche geteilt, deren Grenzen immer auf
+     * einem Zeilenanfang liegen; jeder Bereich wird auf dem <i>pool</i> mit einem eigenen Consumer aus der
+     * <i>consumerFabrik</i> gelesen.<br/>
+     * Zum Schluss werden die Consumer mit dem <i>kombinierer</i> zusammengeführt, und zwar in Dateireihenfolge: der
+     * linke Parameter ist immer der Teil weiter vorne in der Datei. Innerhalb eines Bereichs bekommt ein Consumer die
+     * Zeilen in der richtigen Reihenfolge, verschiedene Consumer laufen aber gleichzeitig.<br/>
+     * Ist ein Consumer ein {@link ShortCircuitingConsumer}, hört nur das Lesen seines eigenen Bereichs auf.<br/>
+     * <br/>
+     * <b>Achtung:</b> Geht nur mit Charsets, in denen ein Zeilenumbruch ein einzelnes Byte ist (US-ASCII, ISO-8859-x,
+     * UTF-8, ...), ansonsten gibt es eine IllegalArgumentException.
+     * 
+     * @param <C> - der Typ des Consumers
+     * @param f - das File als String oder als Resource
+     * @param clazz - wenn wir eine Resourcepath-Resource haben; die aufrufende Klasse, also z.B. MeineGuteKlasse.class
+     * @param charset - das Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param pool - der ForkJoinPool, auf dem gelesen wird
+     * @param consumerFabrik - liefert pro Bereich einen neuen Consumer, z.B. FullTextualReadConsumer::new
+     * @param kombinierer - führt zwei Consumer zusammen, z.B. (links, rechts) -&gt; { links...addAll(rechts...);
+     *            return links; }
+     * @return - der Consumer, in dem alle Bereiche zusammengeführt sind
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler
+     */
+    public static <C extends Consumer<String>> C leseFileParallel(String f, Class<?> clazz, Charset charset,
+        ForkJoinPool pool, Supplier<C> consumerFabrik, BinaryOperator<C> kombinierer)
+            throws IOException, URISyntaxException {
+        return ParallelLineReader.lese(ermittlePfad(f, clazz), charset, pool, consumerFabrik, kombinierer);
+    }
+
+    /**
+     * Liest viele Files gleichzeitig, jedes als Ganzes (wie <i>leseFile</i> mit blocksize 0), mit höchstens
+     * <i>parallelitaet</i> Files zur selben Zeit.<br/>
+     * Der Consumer bekommt Path und Inhalt (String mit Charset, sonst byte[]) und wird aus mehreren Threads
+     * gleichzeitig aufgerufen, er muss also threadsicher sein. Die Reihenfolge der Files ist dabei nicht
+     * definiert.<br/>
+     * Ein Fehler bei einem File bricht die anderen nicht ab; er landet als "file: meldung" in der zurückgegebenen
+     * Liste, genauso wie es die Consumer mit getExceptions() machen.
+     * 
+     * @param <T> - der Typ des Inhalts, String bzw. byte[]
+     * @param files - die Files als Strings (Filesystem Filenames), z.B. das Ergebnis von
+     *            <i>holeAlleFilesMitNameEndetVonVerzeichnis</i>
+     * @param charset - wenn wir Textfiles lesen, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param parallelitaet - wie viele Files höchstens gleichzeitig gelesen werden
+     * @param consumer - bekommt pro File den Path und den Inhalt, muss threadsicher sein
+     * @return - Liste von Exceptions als String, leer wenn alles gut gegangen ist
+     * @throws IOException - nur wenn der aufrufende Thread beim Warten unterbrochen wird
+     */
+    @SuppressWarnings("unchecked") // muss leider sein, weil Generics
+    public static <T> List<String> leseFiles(Collection<String> files, Charset charset, int parallelitaet,
+        BiConsumer<Path, T> consumer) throws IOException {
+        List<String> exceptions = Collections.synchronizedList(new ArrayList<>());
+        Iterator<String> naechstes = files.iterator();
+        int anzahlThreads = Math.max(1, Math.min(parallelitaet, files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(anzahlThreads);
+        Runnable arbeiter = () -> {
+            while (true) {
+                String f;
+                synchronized (naechstes) { // jeder Thread holt sich das nächste File, so gibt es keine Task-Queue
+                    if (!naechstes.hasNext()) {
+                        return;
+                    }
+                    f = naechstes.next();
                 }
-                is.close();
-            } else { // blocksize <= 0 heißt: Lies die Datei als ganzes
-                consumer.accept((T) Files.readAllBytes(p));
+                try {
+                    Path p = Paths.get(f);
+                    byte[] inhalt = Files.readAllBytes(p);
+                    if (charset != null) {
+                        consumer.accept(p, (T) new String(inhalt, charset));
+                    } else {
+                        consumer.accept(p, (T) inhalt);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    exceptions.add(f + ": " + e);
+                }
+            }
+        };
+        try {
+            for (int i = 0; i < anzahlThreads; i++) {
+                executor.execute(arbeiter);
             }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Warten auf das Lesen der Files wurde unterbrochen");
         }
+        return new ArrayList<>(exceptions);
+    }
+
+    /**
+     * Sucht alle Files, deren Name mit <i>nameEndet</i> endet, und liest sie gleichzeitig, siehe
+     * {@link #leseFiles(Collection, Charset, int, BiConsumer)}.
+     * 
+     * @param <T> - der Typ des Inhalts, String bzw. byte[]
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param nameEndet - String, mit dem der Dateinamen enden soll
+     * @param charset - wenn wir Textfiles lesen, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @param parallelitaet - wie viele Files höchstens gleichzeitig gelesen werden
+     * @param consumer - bekommt pro File den Path und den Inhalt, muss threadsicher sein
+     * @return - Liste von Exceptions als String, leer wenn alles gut gegangen ist
+     * @throws IOException - Fehler bei der Suche
+     */
+    public static <T> List<String> leseAlleFilesMitNameEndetVonVerzeichnis(String verzeichnis, String nameEndet,
+        Charset charset, int parallelitaet, BiConsumer<Path, T> consumer) throws IOException {
+        return leseFiles(holeAlleFilesMitNameEndetVonVerzeichnis(verzeichnis, nameEndet), charset, parallelitaet,
+            consumer);
     }
 
     /**
@@ -116,6 +756,11 @@ public class GeneralNIOFileAccess {
     @SuppressWarnings("resource")
     public static <T> void schreibeFile(String f, T dataToWrite, Boolean append, Charset charset) throws IOException {
         Path p = Paths.get(f);
+        IoListener listener = ioListener;
+        if (listener != null) {
+            IoMessung.schreibeFile(p, dataToWrite, append.booleanValue(), charset, listener);
+            return;
+        }
         if (charset != null) {  // Textfile, sonst wäre ein Charset ziemlich sinnlos
             BufferedWriter bWriter;
             if (!append.booleanValue()) { // knallhart überschreiben
@@ -135,6 +780,62 @@ public class GeneralNIOFileAccess {
         }
     }
 
+    /**
+     * Schreibt viele Datensätze in einem Aufruf in ein File, ohne die gesamte Ausgabe vorher im Speicher aufzubauen.
+     * Die Datensätze werden der Reihe nach in eine fixe Anzahl wiederverwendeter Puffer kodiert und mit gathering
+     * FileChannel-Writes geschrieben, der Speicherbedarf bleibt also gleich, egal wie groß die Datei wird.<br/>
+     * Die Datensätze werden ohne Trenner aneinandergehängt; Zeilenumbrüche muss der Aufrufer selbst mitgeben.<br/>
+     * Wie bei <i>schreibeFile</i> mit einem einzelnen Datenblock entscheidet <i>charset</i>: ungleich <i>null</i>
+     * heißt, die Datensätze sind Strings, ansonsten byte[].
+     * 
+     * @param <T> - der Typ der Datensätze, String bzw. byte[] sind möglich
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param datensaetze - die zu schreibenden Datensätze
+     * @param append - true, wenn an eine bestehende Datei angehängt werden soll, false: Datei wird überschrieben
+     * @param charset - wenn wir ein Textfile beschreiben, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @throws IOException - Fehler
+     */
+    public static <T> void schreibeFile(String f, Iterable<T> datensaetze, Boolean append, Charset charset)
+            throws IOException {
+        GatheringFileWriter.schreibe(Paths.get(f), datensaetze.iterator(), append.booleanValue(), charset,
+            ioListener);
+    }
+
+    /**
+     * Wie {@link #schreibeFile(String, Iterable, Boolean, Charset)}, nur mit einem Stream als Quelle; der Stream wird
+     * dabei verbraucht, aber nicht geschlossen.
+     * 
+     * @param <T> - der Typ der Datensätze, String bzw. byte[] sind möglich
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param datensaetze - die zu schreibenden Datensätze
+     * @param append - true, wenn an eine bestehende Datei angehängt werden soll, false: Datei wird überschrieben
+     * @param charset - wenn wir ein Textfile beschreiben, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @throws IOException - Fehler
+     */
+    public static <T> void schreibeFile(String f, Stream<T> datensaetze, Boolean append, Charset charset)
+            throws IOException {
+        GatheringFileWriter.schreibe(Paths.get(f), datensaetze.iterator(), append.booleanValue(), charset,
+            ioListener);
+    }
+
+    /**
+     * Öffnet einen langlebigen, gepufferten Schreiber für viele Schreibvorgänge auf dieselbe Datei. Das ist die
+     * Alternative zu <i>schreibeFile</i>, wenn man nicht für jeden Datensatz die Datei öffnen und schließen
+     * will.<br/>
+     * Puffergröße, Flush-Intervall und force-Verhalten lassen sich über die Konstruktoren von
+     * {@link StreamingFileWriter} einstellen; hier gibt es die Standardwerte (64 KB, nur nach Größe, kein force).
+     * 
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param append - true, wenn an eine bestehende Datei angehängt werden soll, false: Datei wird überschrieben
+     * @param charset - wenn Text geschrieben wird, ein Encoding, z.B. java.nio.charset.StandardCharsets.UTF_8; null
+     *            wenn nur binär geschrieben wird
+     * @return - der Schreiber, muss vom Aufrufer geschlossen werden (try-with-resources)
+     * @throws IOException - Fehler
+     */
+    public static StreamingFileWriter oeffneSchreiber(String f, Boolean append, Charset charset) throws IOException {
+        return new StreamingFileWriter(f, append, charset);
+    }
+
     /**
      * Liefert als Return-Liste alle Dateien, belegt die übergebene Liste baum mit dem Verzeichnisbaum, also nur den
      * Directory-Einträgen
@@ -148,37 +849,81 @@ public class GeneralNIOFileAccess {
         List<Path> result = new ArrayList<>();
         HashSet<FileVisitOption> options = new HashSet<>();
         // options.add(FileVisitOption.FOLLOW_LINKS);
-        Files.walkFileTree(Paths.get(verzeichnis), options, 256, new FileVisitor<Path>() {
+        IoListener listener = ioListener;
+        long anfang = listener == null ? 0 : System.nanoTime();
+        try {
+            Files.walkFileTree(Paths.get(verzeichnis), options, 256, new FileVisitor<Path>() {
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                // System.out.println("preVisitDirectory: " + dir);
-                baum.add(dir);
-                return FileVisitResult.CONTINUE;
-            }
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    // System.out.println("preVisitDirectory: " + dir);
+                    baum.add(dir);
+                    if (listener != null) {
+                        listener.besucht(IoVorgang.DURCHLAUFEN, dir, true);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
 
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                // System.out.println("visitFile: " + file);
-                result.add(file);
-                return FileVisitResult.CONTINUE;
-            }
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    // System.out.println("visitFile: " + file);
+                    result.add(file);
+                    if (listener != null) {
+                        listener.besucht(IoVorgang.DURCHLAUFEN, file, true);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
 
-            @Override
-            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-                // System.out.println("visitFileFailed: " + file);
-                return FileVisitResult.CONTINUE;
-            }
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    // System.out.println("visitFileFailed: " + file);
+                    return FileVisitResult.CONTINUE;
+                }
 
-            @Override
-            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                // System.out.println("postVisitDirectory: " + dir);
-                return FileVisitResult.CONTINUE;
-            }
-        });
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    // System.out.println("postVisitDirectory: " + dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            meldeBeendet(listener, verzeichnis, anfang);
+        }
         return result;
     }
 
+    /**
+     * Wie {@link #holeDateibaum(String, List)}, nur dass der Baum parallel auf dem gemeinsamen ForkJoinPool durchlaufen
+     * wird. Die Reihenfolge der Einträge in beiden Listen ist dabei nicht definiert.
+     * 
+     * @param verzeichnis - String, der Ausgangspunkt, z.B. "c:/temp"
+     * @param baum - java.nio.file.Path Liste, in der die Verzeichnisse zurück kommen
+     * @return - die Liste an java.nio.file.Path mit den Dateien
+     * @throws IOException - ja.
+     */
+    public static List<Path> holeDateibaumParallel(String verzeichnis, List<Path> baum) throws IOException {
+        ConcurrentLinkedQueue<Path> dateien = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Path> verzeichnisse = new ConcurrentLinkedQueue<>();
+        IoListener listener = ioListener;
+        long anfang = listener == null ? 0 : System.nanoTime();
+        try {
+            new ParallelDirectoryWalker().walk(Paths.get(verzeichnis), (p, attrs) -> {
+                if (attrs.isDirectory()) {
+                    verzeichnisse.add(p);
+                } else {
+                    dateien.add(p);
+                }
+                if (listener != null) {
+                    listener.besucht(IoVorgang.DURCHLAUFEN, p, true);
+                }
+            });
+        } finally {
+            meldeBeendet(listener, verzeichnis, anfang);
+        }
+        baum.addAll(verzeichnisse);
+        return new ArrayList<>(dateien);
+    }
+
     /**
      * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
      * @param nameEnthaelt - String, nach dem im Dateinamen gesucht werden soll
@@ -187,13 +932,7 @@ public class GeneralNIOFileAccess {
      */
     public static List<String> holeAlleFilesMitNameEnthaeltVonVerzeichnis(String verzeichnis, String nameEnthaelt)
             throws IOException {
-        List<String> result = null;
-        @SuppressWarnings("resource")
-        Stream<Path> walk = Files.walk(Paths.get(verzeichnis));
-        result = walk.filter(f -> f.toFile().isFile()).map(x -> x.toString()).filter(f -> f.contains(nameEnthaelt))
-                .collect(Collectors.toList());
-        walk.close();
-        return result;
+        return sucheNachName(verzeichnis, false, f -> f.contains(nameEnthaelt));
     }
 
     /**
@@ -204,13 +943,7 @@ public class GeneralNIOFileAccess {
      */
     public static List<String> holeAlleUnterverzeichnisseMitNameEnthaeltVonVerzeichnis(String verzeichnis,
         String nameEnthaelt) throws IOException {
-        List<String> result = null;
-        @SuppressWarnings("resource")
-        Stream<Path> walk = Files.walk(Paths.get(verzeichnis));
-        result = walk.filter(f -> f.toFile().isDirectory()).map(x -> x.toString()).filter(f -> f.contains(nameEnthaelt))
-                .collect(Collectors.toList());
-        walk.close();
-        return result;
+        return sucheNachName(verzeichnis, true, f -> f.contains(nameEnthaelt));
     }
 
     /**
@@ -221,12 +954,253 @@ public class GeneralNIOFileAccess {
      */
     public static List<String> holeAlleFilesMitNameEndetVonVerzeichnis(String verzeichnis, String nameEndet)
             throws IOException {
-        List<String> result = null;
-        @SuppressWarnings("resource")
-        Stream<Path> walk = Files.walk(Paths.get(verzeichnis));
-        result = walk.filter(f -> f.toFile().isFile()).map(x -> x.toString()).filter(f -> f.endsWith(nameEndet))
-                .collect(Collectors.toList());
-        walk.close();
+        return sucheNachName(verzeichnis, false, f -> f.endsWith(nameEndet));
+    }
+
+    /**
+     * Sucht parallel alle Files, deren Inhalt <i>text</i> enthält; jedes File wird nur bis zum ersten Treffer
+     * gelesen, dekodiert wird dabei nichts. Mehr Möglichkeiten (mehrere Suchtexte, Treffer mit Position und Zeile,
+     * Einschränken der Files) bietet {@link ContentSearch}.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param text - der gesuchte Text
+     * @param charset - das Encoding der Files, z.B. java.nio.charset.StandardCharsets.UTF_8
+     * @return - die Files mit Treffern, sortiert
+     * @throws IOException - wenn der Ausgangspunkt nicht gelesen werden kann
+     */
+    public static List<String> holeAlleFilesMitInhaltVonVerzeichnis(String verzeichnis, String text, Charset charset)
+            throws IOException {
+        List<String> result = new ArrayList<>();
+        for (Path p : new ContentSearch(charset, text).sucheDateien(verzeichnis)) {
+            result.add(p.toString());
+        }
         return result;
     }
+
+    /**
+     * Liefert den Verzeichnisbaum als lazy Stream: die Einträge werden erst gelesen, während der Stream konsumiert
+     * wird, und nicht vorher in Listen gesammelt wie bei <i>holeDateibaum</i>. Der Speicherbedarf hängt damit nur von
+     * der Tiefe des Baums ab.<br/>
+     * Jeder Eintrag bringt seine BasicFileAttributes mit; Dateien und Verzeichnisse unterscheidet man über
+     * <i>PathEntry.istVerzeichnis()</i>. Die Reihenfolge ist dieselbe wie bei Files.walk.<br/>
+     * <b>Achtung:</b> Der Stream muss geschlossen werden, am besten mit try-with-resources!
+     * 
+     * @param verzeichnis - String, der Ausgangspunkt, z.B. "c:/temp"
+     * @return - Stream aller Einträge inklusive des Ausgangspunkts
+     * @throws IOException - wenn der Ausgangspunkt nicht gelesen werden kann
+     */
+    public static Stream<PathEntry> streameDateibaum(String verzeichnis) throws IOException {
+        return new FileTreeIterator(Paths.get(verzeichnis), Integer.MAX_VALUE).alsStream();
+    }
+
+    /**
+     * Die lazy Variante von {@link #holeAlleFilesMitNameEnthaeltVonVerzeichnis(String, String)}; der Stream muss
+     * geschlossen werden.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param nameEnthaelt - String, nach dem im Dateinamen gesucht werden soll
+     * @return - Stream der Treffer
+     * @throws IOException - wenn der Ausgangspunkt nicht gelesen werden kann
+     */
+    public static Stream<String> streameAlleFilesMitNameEnthaeltVonVerzeichnis(String verzeichnis,
+        String nameEnthaelt) throws IOException {
+        return streameNachName(verzeichnis, false, f -> f.contains(nameEnthaelt));
+    }
+
+    /**
+     * Die lazy Variante von {@link #holeAlleUnterverzeichnisseMitNameEnthaeltVonVerzeichnis(String, String)}; der
+     * Stream muss geschlossen werden.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param nameEnthaelt - String, nach dem im Verzeichnisnamen gesucht werden soll
+     * @return - Stream der Treffer
+     * @throws IOException - wenn der Ausgangspunkt nicht gelesen werden kann
+     */
+    public static Stream<String> streameAlleUnterverzeichnisseMitNameEnthaeltVonVerzeichnis(String verzeichnis,
+        String nameEnthaelt) throws IOException {
+        return streameNachName(verzeichnis, true, f -> f.contains(nameEnthaelt));
+    }
+
+    /**
+     * Die lazy Variante von {@link #holeAlleFilesMitNameEndetVonVerzeichnis(String, String)}; der Stream muss
+     * geschlossen werden.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param nameEndet - String, mit dem der Dateinamen enden soll
+     * @return - Stream der Treffer
+     * @throws IOException - wenn der Ausgangspunkt nicht gelesen werden kann
+     */
+    public static Stream<String> streameAlleFilesMitNameEndetVonVerzeichnis(String verzeichnis, String nameEndet)
+            throws IOException {
+        return streameNachName(verzeichnis, false, f -> f.endsWith(nameEndet));
+    }
+
+    private static Stream<String> streameNachName(String verzeichnis, boolean verzeichnisse,
+        Predicate<String> filter) throws IOException {
+        IoListener listener = ioListener;
+        if (listener == null) {
+            return streameDateibaum(verzeichnis).filter(e -> istGesuchterTyp(e.getPath(), e.getAttribute(),
+                verzeichnisse)).map(e -> e.getPath().toString()).filter(filter);
+        }
+        long anfang = System.nanoTime(); // beendet kommt beim Schließen des Streams
+        return streameDateibaum(verzeichnis).onClose(() -> meldeBeendet(listener, verzeichnis, anfang)).filter(e -> {
+            boolean treffer = istGesuchterTyp(e.getPath(), e.getAttribute(), verzeichnisse)
+                && filter.test(e.getPath().toString());
+            listener.besucht(IoVorgang.DURCHLAUFEN, e.getPath(), treffer);
+            return treffer;
+        }).map(e -> e.getPath().toString());
+    }
+
+    /**
+     * Nimmt den Typ aus den Attributen; nur bei symbolischen Links wird nachgeschaut, worauf sie zeigen, damit es sich
+     * wie toFile().isFile() bzw. isDirectory() verhält.
+     */
+    private static boolean istGesuchterTyp(Path p, BasicFileAttributes attrs, boolean verzeichnisse) {
+        if (attrs.isSymbolicLink()) {
+            return verzeichnisse ? Files.isDirectory(p) : Files.isRegularFile(p);
+        }
+        return verzeichnisse ? attrs.isDirectory() : attrs.isRegularFile();
+    }
+
+    /**
+     * Durchläuft den Baum genau einmal und nimmt den Typ aus den Attributen, die walkFileTree ohnehin liest, statt für
+     * jeden Eintrag noch einmal toFile().isFile() bzw. isDirectory() zu fragen. Nur bei symbolischen Links wird
+     * nachgeschaut, worauf sie zeigen, damit sich das Ergebnis nicht von Files.walk mit isFile()/isDirectory()
+     * unterscheidet.
+     * 
+     * @param verzeichnis - String, der das Verzeichnis zum Starten angibt
+     * @param verzeichnisse - true: Verzeichnisse suchen, false: Dateien suchen
+     * @param filter - wird auf den vollständigen Path als String angewendet
+     * @return - die Treffer in der Reihenfolge des Durchlaufs
+     * @throws IOException - ja, hoffentlich nicht
+     */
+    private static List<String> sucheNachName(String verzeichnis, boolean verzeichnisse, Predicate<String> filter)
+            throws IOException {
+        List<String> result = new ArrayList<>();
+        IoListener listener = ioListener;
+        long anfang = listener == null ? 0 : System.nanoTime();
+        try {
+            Files.walkFileTree(Paths.get(verzeichnis), new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (verzeichnisse) {
+                        pruefe(dir);
+                    } else {
+                        melde(dir, false);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (istGesuchterTyp(file, attrs, verzeichnisse)) {
+                        pruefe(file);
+                    } else {
+                        melde(file, false);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private void pruefe(Path p) {
+                    String name = p.toString();
+                    boolean treffer = filter.test(name);
+                    if (treffer) {
+                        result.add(name);
+                    }
+                    melde(p, treffer);
+                }
+
+                private void melde(Path p, boolean treffer) {
+                    if (listener != null) {
+                        listener.besucht(IoVorgang.DURCHLAUFEN, p, treffer);
+                    }
+                }
+            });
+        } finally {
+            meldeBeendet(listener, verzeichnis, anfang);
+        }
+        return result;
+    }
+
+    /**
+     * Ermittelt den Path zu einem File; bei <i>clazz</i> gleich <i>null</i> ist es ein klassisches File, ansonsten
+     * eine Resource im Resourcepath, auch in einem JAR.
+     * 
+     * @param f - das File bzw. die Resource als String
+     * @param clazz - die aufrufende Klasse bei einer Resource, sonst null
+     * @return - der Path
+     * @throws URISyntaxException - Fehler
+     * @throws IOException - Resource nicht gefunden oder Zip-FileSystem nicht zu öffnen
+     */
+    private static Path ermittlePfad(String f, Class<?> clazz) throws URISyntaxException, IOException {
+        if (clazz == null) {    // Filesystem-Quelle
+            return Paths.get(f);
+        }
+        Map<String, Path> pfade = RESOURCE_PFADE.get(clazz); // Resourcepath-Quelle, nur einmal auflösen
+        Path p = pfade.get(f);
+        if (p == null) {
+            p = ermittleResourcePfad(f, clazz);
+            pfade.put(f, p);
+        }
+        return p;
+    }
+
+    /**
+     * Eine Resource in einem JAR hat eine jar:-URI; Paths.get kann die nur auflösen, wenn das Zip-FileSystem dazu
+     * offen ist. Es wird daher beim ersten Zugriff geöffnet und bleibt offen.
+     */
+    private static Path ermittleResourcePfad(String f, Class<?> clazz) throws URISyntaxException, IOException {
+        URL url = clazz.getResource(f);
+        if (url == null) {
+            throw new NoSuchFileException(f, null, "Resource nicht gefunden für " + clazz.getName());
+        }
+        URI uri = url.toURI();
+        if ("jar".equals(uri.getScheme())) {
+            try {
+                FileSystems.newFileSystem(uri, Collections.<String, Object> emptyMap());
+            } catch (FileSystemAlreadyExistsException e) {
+                // schon offen, passt
+            }
+        }
+        return Paths.get(uri);
+    }
+
+    /**
+     * Leiht einen Puffer aus dem Pool aus und macht aus einer Unterbrechung eine IOException, damit die Lesemethoden
+     * bei ihrer throws-Klausel bleiben können.
+     * 
+     * @param pool - der Pool
+     * @return - der ausgeliehene Puffer
+     * @throws InterruptedIOException - wenn der Thread beim Warten unterbrochen wird
+     */
+    private static PooledBuffer leiheAus(ByteBufferPool pool) throws InterruptedIOException {
+        try {
+            return pool.ausleihen();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Warten auf einen freien Puffer wurde unterbrochen");
+        }
+    }
+
+    /**
+     * Meldet das Ende eines Durchlaufs, wenn es einen Listener gibt.
+     * 
+     * @param listener - der Listener oder null
+     * @param verzeichnis - das Startverzeichnis
+     * @param anfang - System.nanoTime() beim Start
+     */
+    private static void meldeBeendet(IoListener listener, String verzeichnis, long anfang) {
+        if (listener != null) {
+            listener.beendet(IoVorgang.DURCHLAUFEN, Paths.get(verzeichnis), System.nanoTime() - anfang);
+        }
+    }
+
+    /**
+     * @param consumer - ein beliebiger Consumer
+     * @return - true, wenn der Consumer ein ShortCircuitingConsumer ist und keine Daten mehr braucht
+     */
+    static boolean istFertig(Consumer<?> consumer) {
+        return consumer instanceof ShortCircuitingConsumer && ((ShortCircuitingConsumer<?>) consumer).istFertig();
+    }
 }
@@ -0,0 +1,105 @@
+package at.diwh.generalnio.core;
+
+import java.nio.file.Path;
+
+/**
+ * Bekommt Messwerte aus <i>leseFile</i>, <i>schreibeFile</i> und den Verzeichnisdurchläufen, wenn er mit
+ * <i>GeneralNIOFileAccess.setIoListener</i> gesetzt ist. Ohne Listener wird nichts gemessen, dann kostet das Ganze
+ * nur das Lesen eines Feldes pro Aufruf.<br/>
+ * Alle Methoden haben eine leere Default-Implementierung, man überschreibt nur, was man braucht; eine fertige
+ * Auswertung mit Zählern, Histogrammen und JMX ist {@link IoMetrics}.<br/>
+ * <br/>
+ * Damit man sieht, wohin die Zeit geht, wird getrennt gemeldet: das eigentliche Lesen/Schreiben der Bytes
+ * (<i>gelesen</i>, <i>geschrieben</i>), das Umwandeln zwischen Bytes und Zeichen (<i>umgewandelt</i>) und die Zeit im
+ * Consumer (<i>geliefert</i>). Alle Zeiten in Nanosekunden.<br/>
+ * <br/>
+ * <b>Achtung:</b> Die Methoden werden mitten im Lesen aufgerufen, auch aus mehreren Threads gleichzeitig (z.B.
+ * holeDateibaumParallel), sie müssen also schnell und threadsicher sein und dürfen keine Exceptions werfen.
+ *
+ * @author diwh
+ */
+public interface IoListener {
+
+    /**
+     * @param vorgang - der Aufruf
+     * @param pfad - die Datei
+     * @param nanos - so lange hat das Öffnen gedauert
+     */
+    default void geoeffnet(IoVorgang vorgang, Path pfad, long nanos) {
+        // nichts
+    }
+
+    /**
+     * Ein einzelner Lesezugriff auf die Datei; beim zeilenweisen Lesen wird gepuffert gelesen, das sind also nicht
+     * die Zeilen, sondern die Zugriffe dahinter.
+     *
+     * @param vorgang - der Aufruf
+     * @param bytes - so viele Bytes kamen
+     * @param nanos - so lange hat es gedauert
+     */
+    default void gelesen(IoVorgang vorgang, long bytes, long nanos) {
+        // nichts
+    }
+
+    /**
+     * Ein einzelner Schreibzugriff auf die Datei.
+     *
+     * @param vorgang - der Aufruf
+     * @param bytes - so viele Bytes wurden geschrieben
+     * @param nanos - so lange hat es gedauert
+     */
+    default void geschrieben(IoVorgang vorgang, long bytes, long nanos) {
+        // nichts
+    }
+
+    /**
+     * Zeit für das Dekodieren bzw. Kodieren von Text (inkl. Zeilen trennen), ohne die Lese- und Schreibzugriffe.
+     *
+     * @param vorgang - der Aufruf
+     * @param nanos - so lange hat es gedauert
+     */
+    default void umgewandelt(IoVorgang vorgang, long nanos) {
+        // nichts
+    }
+
+    /**
+     * Ein Element (Zeile, Block oder ganze Datei) wurde an den Consumer übergeben.
+     *
+     * @param vorgang - der Aufruf, sagt auch, was für ein Element es war
+     * @param nanos - so lange war der Consumer damit beschäftigt
+     */
+    default void geliefert(IoVorgang vorgang, long nanos) {
+        // nichts
+    }
+
+    /**
+     * @param vorgang - der Aufruf
+     * @param pfad - die Datei
+     * @param nanos - so lange hat das Schließen gedauert
+     */
+    default void geschlossen(IoVorgang vorgang, Path pfad, long nanos) {
+        // nichts
+    }
+
+    /**
+     * Ein Eintrag beim Durchlaufen eines Verzeichnisbaums.
+     *
+     * @param vorgang - der Aufruf
+     * @param pfad - der Eintrag
+     * @param treffer - true, wenn er im Ergebnis landet, false, wenn er ausgefiltert wurde
+     */
+    default void besucht(IoVorgang vorgang, Path pfad, boolean treffer) {
+        // nichts
+    }
+
+    /**
+     * Ein Aufruf ist fertig, auch wenn er mit einer Exception endet.
+     *
+     * @param vorgang - der Aufruf
+     * @param pfad - die Datei bzw. das Startverzeichnis
+     * @param nanos - so lange hat der ganze Aufruf gedauert
+     */
+    default void beendet(IoVorgang vorgang, Path pfad, long nanos) {
+        // nichts
+    }
+}
@@ -0,0 +1,328 @@
+package at.diwh.generalnio.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import at.diwh.generalnio.consumer.BlockHandler;
+import at.diwh.generalnio.consumer.BufferHandler;
+import at.diwh.generalnio.consumer.LineHandler;
+import at.diwh.generalnio.consumer.TextHandler;
+
+/**
+ * Die gemessenen Varianten der Lesemethoden hinter <i>leseFile</i> und von <i>schreibeFile</i>, die nur laufen, wenn
+ * ein {@link IoListener} gesetzt ist; so bleiben die ungemessenen Wege in GeneralNIOFileAccess genau wie bisher.<br/>
+ * Verhalten wie dort (gleiche Decoder/Encoder, gleiche OpenOptions), nur dass die Streams darunter jeden Zugriff
+ * zählen und stoppen. Was beim zeilenweisen Lesen weder auf den Stream noch auf den Handler entfällt, ist
+ * Dekodieren und Zeilen trennen.
+ *
+ * @author diwh
+ */
+final class IoMessung {
+
+    private static final int BLOCK_GANZ_LESEN = 8192;
+
+    private IoMessung() {
+        super();
+    }
+
+    /**
+     * Zeilenweise wie GeneralNIOFileAccess.leseZeilen.
+     */
+    static long zeilen(Path p, Charset charset, LineHandler handler, IoListener listener) throws IOException {
+        IoVorgang vorgang = IoVorgang.ZEILEN_LESEN;
+        return messe(p, vorgang, listener, in -> {
+            if (ParallelLineReader.istZeilenumbruchEinByte(charset)) {
+                long[] handlerNanos = new long[1];
+                long t = System.nanoTime();
+                long anzahl = TextDecoder.zeilen(Channels.newChannel(in), charset, line -> {
+                    long h = System.nanoTime();
+                    boolean weiter = handler.zeile(line);
+                    long dauer = System.nanoTime() - h;
+                    handlerNanos[0] = handlerNanos[0] + dauer;
+                    listener.geliefert(vorgang, dauer);
+                    return weiter;
+                });
+                listener.umgewandelt(vorgang, System.nanoTime() - t - in.nanos - handlerNanos[0]);
+                return anzahl;
+            }
+            BufferedReader bReader = new BufferedReader(new InputStreamReader(in, charset.newDecoder()));
+            long anzahl = 0;
+            while (true) {
+                long t = System.nanoTime();
+                long ioVorher = in.nanos;
+                String line = bReader.readLine();
+                listener.umgewandelt(vorgang, System.nanoTime() - t - (in.nanos - ioVorher));
+                if (line == null) {
+                    return anzahl;
+                }
+                anzahl++;
+                t = System.nanoTime();
+                boolean weiter = handler.zeile(line);
+                listener.geliefert(vorgang, System.nanoTime() - t);
+                if (!weiter) {
+                    return anzahl;
+                }
+            }
+        });
+    }
+
+    /**
+     * Als Ganzes wie GeneralNIOFileAccess.leseText.
+     */
+    static void text(Path p, Charset charset, TextHandler handler, IoListener listener) throws IOException {
+        IoVorgang vorgang = IoVorgang.GANZ_LESEN;
+        messe(p, vorgang, listener, in -> {
+            byte[] daten = leseAlles(in);
+            long t = System.nanoTime();
+            String text = new String(daten, charset);
+            listener.umgewandelt(vorgang, System.nanoTime() - t);
+            t = System.nanoTime();
+            handler.text(text);
+            listener.geliefert(vorgang, System.nanoTime() - t);
+            return daten.length;
+        });
+    }
+
+    /**
+     * Blockweise bzw. bei blocksize &lt;= 0 als Ganzes wie GeneralNIOFileAccess.leseBloecke.
+     */
+    static long bloecke(Path p, int blocksize, BlockHandler handler, IoListener listener) throws IOException {
+        IoVorgang vorgang = blocksize <= 0 ? IoVorgang.GANZ_LESEN : IoVorgang.BLOECKE_LESEN;
+        return messe(p, vorgang, listener, in -> {
+            if (blocksize <= 0) {
+                byte[] daten = leseAlles(in);
+                long t = System.nanoTime();
+                handler.block(daten, daten.length);
+                listener.geliefert(vorgang, System.nanoTime() - t);
+                return daten.length;
+            }
+            byte[] inBuffer = new byte[blocksize];
+            long gesamt = 0;
+            int anzahlBytesRead;
+            while ((anzahlBytesRead = in.read(inBuffer)) != -1) {
+                gesamt = gesamt + anzahlBytesRead;
+                long t = System.nanoTime();
+                boolean weiter = handler.block(inBuffer, anzahlBytesRead);
+                listener.geliefert(vorgang, System.nanoTime() - t);
+                if (!weiter) {
+                    break;
+                }
+            }
+            return gesamt;
+        });
+    }
+
+    /**
+     * Über einen FileChannel in den ByteBuffer des Aufrufers wie GeneralNIOFileAccess.leseBuffer.
+     */
+    static long buffer(Path p, ByteBuffer puffer, BufferHandler handler, IoListener listener) throws IOException {
+        IoVorgang vorgang = IoVorgang.BLOECKE_LESEN;
+        long anfang = System.nanoTime();
+        try {
+            FileChannel channel = FileChannel.open(p, StandardOpenOption.READ);
+            listener.geoeffnet(vorgang, p, System.nanoTime() - anfang);
+            try {
+                long gesamt = 0;
+                while (true) {
+                    puffer.clear();
+                    while (puffer.hasRemaining()) {
+                        long t = System.nanoTime();
+                        int n = channel.read(puffer);
+                        listener.gelesen(vorgang, Math.max(0, n), System.nanoTime() - t);
+                        if (n == -1) {
+                            break;
+                        }
+                    }
+                    if (puffer.position() == 0) {
+                        return gesamt;
+                    }
+                    puffer.flip();
+                    gesamt = gesamt + puffer.limit();
+                    long t = System.nanoTime();
+                    boolean weiter = handler.buffer(puffer);
+                    listener.geliefert(vorgang, System.nanoTime() - t);
+                    if (!weiter) {
+                        return gesamt;
+                    }
+                }
+            } finally {
+                long t = System.nanoTime();
+                channel.close();
+                listener.geschlossen(vorgang, p, System.nanoTime() - t);
+            }
+        } finally {
+            listener.beendet(vorgang, p, System.nanoTime() - anfang);
+        }
+    }
+
+    /**
+     * Das Lesen selbst, zwischen Öffnen und Schließen.
+     */
+    @FunctionalInterface
+    private interface Lesen {
+        long lese(MessenderInputStream in) throws IOException;
+    }
+
+    /**
+     * Öffnet, liest und schließt und meldet dabei Öffnen, Schließen und die Dauer des ganzen Aufrufs.
+     */
+    private static long messe(Path p, IoVorgang vorgang, IoListener listener, Lesen lesen) throws IOException {
+        long anfang = System.nanoTime();
+        try {
+            MessenderInputStream in = new MessenderInputStream(Files.newInputStream(p), vorgang, listener);
+            listener.geoeffnet(vorgang, p, System.nanoTime() - anfang);
+            try {
+                return lesen.lese(in);
+            } finally {
+                long t = System.nanoTime();
+                in.close();
+                listener.geschlossen(vorgang, p, System.nanoTime() - t);
+            }
+        } finally {
+            listener.beendet(vorgang, p, System.nanoTime() - anfang);
+        }
+    }
+
+    /**
+     * Wie schreibeFile mit einem einzelnen Datenblock.
+     */
+    static void schreibeFile(Path p, Object dataToWrite, boolean append, Charset charset, IoListener listener)
+        throws IOException {
+        IoVorgang vorgang = IoVorgang.SCHREIBEN;
+        long anfang = System.nanoTime();
+        try {
+            OutputStream stream = append
+                ? Files.newOutputStream(p, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                : Files.newOutputStream(p);
+            MessenderOutputStream out = new MessenderOutputStream(stream, vorgang, listener);
+            listener.geoeffnet(vorgang, p, System.nanoTime() - anfang);
+            Writer bWriter = charset == null ? null
+                : new BufferedWriter(new OutputStreamWriter(out, charset.newEncoder()));
+            try {
+                if (bWriter != null) {
+                    long t = System.nanoTime();
+                    bWriter.write((String) dataToWrite);
+                    bWriter.flush();
+                    listener.umgewandelt(vorgang, System.nanoTime() - t - out.nanos);
+                } else {
+                    out.write((byte[]) dataToWrite);
+                }
+            } finally {
+                long t = System.nanoTime();
+                if (bWriter != null) {
+                    bWriter.close();
+                } else {
+                    out.close();
+                }
+                listener.geschlossen(vorgang, p, System.nanoTime() - t);
+            }
+        } finally {
+            listener.beendet(vorgang, p, System.nanoTime() - anfang);
+        }
+    }
+
+    /**
+     * Wie Files.readAllBytes, aber über den messenden Stream.
+     */
+    private static byte[] leseAlles(InputStream in) throws IOException {
+        byte[] daten = new byte[Math.max(in.available() + 1, BLOCK_GANZ_LESEN)]; // +1: Dateiende ohne Vergrößern
+        int laenge = 0;
+        int n;
+        while ((n = in.read(daten, laenge, daten.length - laenge)) != -1) {
+            laenge = laenge + n;
+            if (laenge == daten.length) {
+                if (daten.length == Integer.MAX_VALUE) {
+                    throw new OutOfMemoryError("Datei ist zu groß für ein byte[]");
+                }
+                daten = Arrays.copyOf(daten, (int) Math.min(Integer.MAX_VALUE, daten.length * 2L));
+            }
+        }
+        return Arrays.copyOf(daten, laenge);
+    }
+
+    /**
+     * Meldet jeden Lesezugriff und merkt sich die Zeit dafür.
+     */
+    private static final class MessenderInputStream extends FilterInputStream {
+        private final IoVorgang vorgang;
+        private final IoListener listener;
+        private long nanos;
+
+        private MessenderInputStream(InputStream in, IoVorgang vorgang, IoListener listener) {
+            super(in);
+            this.vorgang = vorgang;
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long t = System.nanoTime();
+            int b = this.in.read();
+            melde(b < 0 ? 0 : 1, System.nanoTime() - t);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long t = System.nanoTime();
+            int n = this.in.read(b, off, len);
+            melde(Math.max(0, n), System.nanoTime() - t);
+            return n;
+        }
+
+        private void melde(int bytes, long dauer) {
+            this.nanos = this.nanos + dauer;
+            this.listener.gelesen(this.vorgang, bytes, dauer);
+        }
+    }
+
+    /**
+     * Meldet jeden Schreibzugriff und merkt sich die Zeit dafür.
+     */
+    private static final class MessenderOutputStream extends FilterOutputStream {
+        private final IoVorgang vorgang;
+        private final IoListener listener;
+        private long nanos;
+
+        private MessenderOutputStream(OutputStream out, IoVorgang vorgang, IoListener listener) {
+            super(out);
+            this.vorgang = vorgang;
+            this.listener = listener;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long t = System.nanoTime();
+            this.out.write(b);
+            melde(1, System.nanoTime() - t);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long t = System.nanoTime();
+            this.out.write(b, off, len); // nicht super, das schreibt Byte für Byte
+            melde(len, System.nanoTime() - t);
+        }
+
+        private void melde(int bytes, long dauer) {
+            this.nanos = this.nanos + dauer;
+            this.listener.geschrieben(this.vorgang, bytes, dauer);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package at.diwh.generalnio.core;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Ein fertiger {@link IoListener}, der alles zusammenzählt: Bytes, Zeilen, Blöcke, besuchte und ausgefilterte
+ * Einträge, dazu Histogramme für Öffnen, Lesen, Schreiben, Schließen, Consumer und ganze Aufrufe. Alles mit
+ * LongAdder, also ohne Lock und auch aus vielen Threads gleichzeitig billig.<br/>
+ * Abfragen geht direkt über die Getter oder über JMX, nach <i>registriereJmx()</i> z.B. in der JConsole unter
+ * {@value #STANDARD_JMX_NAME}.<br/>
+ * <br/>
+ * Beispiel: <br/>
+ * <code>IoMetrics metrics = new IoMetrics();<br/>
+ * GeneralNIOFileAccess.setIoListener(metrics);<br/>
+ * metrics.registriereJmx();<br/>
+ * ...<br/>
+ * System.out.println(metrics);</code>
+ *
+ * @author diwh
+ */
+public final class IoMetrics implements IoListener, IoMetricsMXBean {
+
+    /**
+     * Der ObjectName für <i>registriereJmx()</i>
+     */
+    public static final String STANDARD_JMX_NAME = "at.diwh.generalnio:type=IoMetrics";
+
+    private final LongAdder gelesenBytes = new LongAdder();
+    private final LongAdder geschriebenBytes = new LongAdder();
+    private final LongAdder zeilen = new LongAdder();
+    private final LongAdder bloecke = new LongAdder();
+    private final LongAdder ganzeDateien = new LongAdder();
+    private final LongAdder besucht = new LongAdder();
+    private final LongAdder gefiltert = new LongAdder();
+    private final LongAdder umwandelnNanos = new LongAdder();
+    private final LatenzHistogramm oeffnen = new LatenzHistogramm();
+    private final LatenzHistogramm lesen = new LatenzHistogramm();
+    private final LatenzHistogramm schreiben = new LatenzHistogramm();
+    private final LatenzHistogramm schliessen = new LatenzHistogramm();
+    private final LatenzHistogramm consumer = new LatenzHistogramm();
+    private final LatenzHistogramm aufrufe = new LatenzHistogramm();
+    private ObjectName jmxName;
+
+    @Override
+    public void geoeffnet(IoVorgang vorgang, Path pfad, long nanos) {
+        this.oeffnen.erfasse(nanos);
+    }
+
+    @Override
+    public void gelesen(IoVorgang vorgang, long bytes, long nanos) {
+        this.gelesenBytes.add(bytes);
+        this.lesen.erfasse(nanos);
+    }
+
+    @Override
+    public void geschrieben(IoVorgang vorgang, long bytes, long nanos) {
+        this.geschriebenBytes.add(bytes);
+        this.schreiben.erfasse(nanos);
+    }
+
+    @Override
+    public void umgewandelt(IoVorgang vorgang, long nanos) {
+        this.umwandelnNanos.add(nanos);
+    }
+
+    @Override
+    public void geliefert(IoVorgang vorgang, long nanos) {
+        if (vorgang == IoVorgang.ZEILEN_LESEN) {
+            this.zeilen.increment();
+        } else if (vorgang == IoVorgang.BLOECKE_LESEN) {
+            this.bloecke.increment();
+        } else {
+            this.ganzeDateien.increment();
+        }
+        this.consumer.erfasse(nanos);
+    }
+
+    @Override
+    public void geschlossen(IoVorgang vorgang, Path pfad, long nanos) {
+        this.schliessen.erfasse(nanos);
+    }
+
+    @Override
+    public void besucht(IoVorgang vorgang, Path pfad, boolean treffer) {
+        this.besucht.increment();
+        if (!treffer) {
+            this.gefiltert.increment();
+        }
+    }
+
+    @Override
+    public void beendet(IoVorgang vorgang, Path pfad, long nanos) {
+        this.aufrufe.erfasse(nanos);
+    }
+
+    @Override
+    public long getGelesenBytes() {
+        return this.gelesenBytes.sum();
+    }
+
+    @Override
+    public long getGeschriebenBytes() {
+        return this.geschriebenBytes.sum();
+    }
+
+    @Override
+    public long getZeilen() {
+        return this.zeilen.sum();
+    }
+
+    @Override
+    public long getBloecke() {
+        return this.bloecke.sum();
+    }
+
+    @Override
+    public long getGanzeDateien() {
+        return this.ganzeDateien.sum();
+    }
+
+    @Override
+    public long getBesuchteEintraege() {
+        return this.besucht.sum();
+    }
+
+    @Override
+    public long getGefilterteEintraege() {
+        return this.gefiltert.sum();
+    }
+
+    @Override
+    public long getIoNanos() {
+        return this.oeffnen.getSummeNanos() + this.lesen.getSummeNanos() + this.schreiben.getSummeNanos()
+            + this.schliessen.getSummeNanos();
+    }
+
+    @Override
+    public long getUmwandelnNanos() {
+        return this.umwandelnNanos.sum();
+    }
+
+    @Override
+    public long getConsumerNanos() {
+        return this.consumer.getSummeNanos();
+    }
+
+    @Override
+    public LatenzStatistik getOeffnen() {
+        return this.oeffnen.getStatistik();
+    }
+
+    @Override
+    public LatenzStatistik getLesen() {
+        return this.lesen.getStatistik();
+    }
+
+    @Override
+    public LatenzStatistik getSchreiben() {
+        return this.schreiben.getStatistik();
+    }
+
+    @Override
+    public LatenzStatistik getSchliessen() {
+        return this.schliessen.getStatistik();
+    }
+
+    @Override
+    public LatenzStatistik getConsumer() {
+        return this.consumer.getStatistik();
+    }
+
+    @Override
+    public LatenzStatistik getAufrufe() {
+        return this.aufrufe.getStatistik();
+    }
+
+    @Override
+    public void zuruecksetzen() {
+        this.gelesenBytes.reset();
+        this.geschriebenBytes.reset();
+        this.zeilen.reset();
+        this.bloecke.reset();
+        this.ganzeDateien.reset();
+        this.besucht.reset();
+        this.gefiltert.reset();
+        this.umwandelnNanos.reset();
+        this.oeffnen.zuruecksetzen();
+        this.lesen.zuruecksetzen();
+        this.schreiben.zuruecksetzen();
+        this.schliessen.zuruecksetzen();
+        this.consumer.zuruecksetzen();
+        this.aufrufe.zuruecksetzen();
+    }
+
+    /**
+     * Meldet die Metriken unter {@link #STANDARD_JMX_NAME} am Platform-MBeanServer an.
+     */
+    public void registriereJmx() {
+        registriereJmx(STANDARD_JMX_NAME);
+    }
+
+    /**
+     * @param name - der ObjectName, z.B. "at.diwh.generalnio:type=IoMetrics,name=nachtlauf", wenn es mehrere gibt
+     */
+    public synchronized void registriereJmx(String name) {
+        if (this.jmxName != null) {
+            throw new IllegalStateException("Schon bei JMX angemeldet als " + this.jmxName);
+        }
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.jmxName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Anmelden bei JMX als " + name + " nicht möglich", e);
+        }
+    }
+
+    /**
+     * Meldet die Metriken wieder ab; war nichts angemeldet, passiert nichts.
+     */
+    public synchronized void deregistriereJmx() {
+        if (this.jmxName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.jmxName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Abmelden von JMX als " + this.jmxName + " nicht möglich", e);
+        } finally {
+            this.jmxName = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "gelesen=" + getGelesenBytes() + " Bytes, geschrieben=" + getGeschriebenBytes() + " Bytes, zeilen="
+            + getZeilen() + ", bloecke=" + getBloecke() + ", ganzeDateien=" + getGanzeDateien() + ", besucht="
+            + getBesuchteEintraege() + ", gefiltert=" + getGefilterteEintraege() + ", io=" + getIoNanos() / 1000
+            + "µs, umwandeln=" + getUmwandelnNanos() / 1000 + "µs, consumer=" + getConsumerNanos() / 1000
+            + "µs\n  oeffnen: " + getOeffnen() + "\n  lesen: " + getLesen() + "\n  schreiben: " + getSchreiben()
+            + "\n  schliessen: " + getSchliessen() + "\n  consumer: " + getConsumer() + "\n  aufrufe: "
+            + getAufrufe();
+    }
+}
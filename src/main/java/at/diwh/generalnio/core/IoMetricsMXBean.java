@@ -0,0 +1,94 @@
+package at.diwh.generalnio.core;
+
+/**
+ * Die JMX-Sicht auf {@link IoMetrics}; die Latenzen erscheinen in der JConsole als CompositeData.
+ *
+ * @author diwh
+ */
+public interface IoMetricsMXBean {
+
+    /**
+     * @return - gelesene Bytes
+     */
+    long getGelesenBytes();
+
+    /**
+     * @return - geschriebene Bytes
+     */
+    long getGeschriebenBytes();
+
+    /**
+     * @return - an Consumer gelieferte Zeilen
+     */
+    long getZeilen();
+
+    /**
+     * @return - an Consumer gelieferte Blöcke
+     */
+    long getBloecke();
+
+    /**
+     * @return - als Ganzes an Consumer gelieferte Dateien
+     */
+    long getGanzeDateien();
+
+    /**
+     * @return - beim Durchlaufen besuchte Einträge
+     */
+    long getBesuchteEintraege();
+
+    /**
+     * @return - davon ausgefiltert
+     */
+    long getGefilterteEintraege();
+
+    /**
+     * @return - Nanosekunden für Öffnen, Lesen, Schreiben und Schließen
+     */
+    long getIoNanos();
+
+    /**
+     * @return - Nanosekunden für das Dekodieren und Kodieren von Text
+     */
+    long getUmwandelnNanos();
+
+    /**
+     * @return - Nanosekunden in den Consumern
+     */
+    long getConsumerNanos();
+
+    /**
+     * @return - Latenz des Öffnens
+     */
+    LatenzStatistik getOeffnen();
+
+    /**
+     * @return - Latenz der einzelnen Lesezugriffe
+     */
+    LatenzStatistik getLesen();
+
+    /**
+     * @return - Latenz der einzelnen Schreibzugriffe
+     */
+    LatenzStatistik getSchreiben();
+
+    /**
+     * @return - Latenz des Schließens
+     */
+    LatenzStatistik getSchliessen();
+
+    /**
+     * @return - Zeit im Consumer pro Element
+     */
+    LatenzStatistik getConsumer();
+
+    /**
+     * @return - Dauer der ganzen Aufrufe
+     */
+    LatenzStatistik getAufrufe();
+
+    /**
+     * Setzt alle Zähler und Histogramme auf 0.
+     */
+    void zuruecksetzen();
+}
@@ -0,0 +1,34 @@
+package at.diwh.generalnio.core;
+
+/**
+ * Welche Art von Aufruf ein {@link IoListener} gerade gemeldet bekommt.
+ *
+ * @author diwh
+ */
+public enum IoVorgang {
+
+    /**
+     * leseFile mit Charset und blocksize &gt; 0, der Consumer bekommt Zeilen
+     */
+    ZEILEN_LESEN,
+
+    /**
+     * leseFile ohne Charset und mit blocksize &gt; 0 sowie leseBuffer, der Consumer bekommt Blöcke
+     */
+    BLOECKE_LESEN,
+
+    /**
+     * leseFile mit blocksize &lt;= 0, der Consumer bekommt die ganze Datei
+     */
+    GANZ_LESEN,
+
+    /**
+     * schreibeFile, egal ob ein Datenblock oder viele Datensätze
+     */
+    SCHREIBEN,
+
+    /**
+     * holeDateibaum, holeDateibaumParallel und die Suchen nach Namen
+     */
+    DURCHLAUFEN
+}
@@ -0,0 +1,88 @@
+package at.diwh.generalnio.core;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein threadsicheres Histogramm für Zeiten in Nanosekunden mit einem Bucket pro Zweierpotenz: Bucket <i>i</i> zählt
+ * die Werte von 2^(i-1) bis 2^i - 1. Erfassen ist ein paar LongAdder-Inkremente ohne Lock, damit auch viele Threads
+ * gleichzeitig messen können, ohne sich zu bremsen.
+ *
+ * @author diwh
+ */
+public final class LatenzHistogramm {
+
+    private static final int ANZAHL_BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[ANZAHL_BUCKETS];
+    private final LongAdder summe = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    @SuppressWarnings("javadoc")
+    public LatenzHistogramm() {
+        super();
+        for (int i = 0; i < ANZAHL_BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos - die gemessene Zeit, negative Werte zählen als 0
+     */
+    public void erfasse(long nanos) {
+        long wert = Math.max(0, nanos);
+        this.buckets[ANZAHL_BUCKETS - Long.numberOfLeadingZeros(wert)].increment();
+        this.summe.add(wert);
+        this.max.accumulate(wert);
+    }
+
+    /**
+     * Liest alle Buckets einmal; kommen dabei gleichzeitig Werte dazu, sind sie vielleicht nur teilweise enthalten.
+     *
+     * @return - Anzahl, Summe, Maximum und Perzentile
+     */
+    public LatenzStatistik getStatistik() {
+        long[] werte = new long[ANZAHL_BUCKETS];
+        long gesamt = 0;
+        for (int i = 0; i < ANZAHL_BUCKETS; i++) {
+            werte[i] = this.buckets[i].sum();
+            gesamt = gesamt + werte[i];
+        }
+        long maximum = this.max.get();
+        return new LatenzStatistik(gesamt, this.summe.sum(), maximum, perzentil(werte, gesamt, 0.50, maximum),
+            perzentil(werte, gesamt, 0.90, maximum), perzentil(werte, gesamt, 0.99, maximum));
+    }
+
+    /**
+     * @return - die Summe aller Messungen, ohne die Buckets anzusehen
+     */
+    public long getSummeNanos() {
+        return this.summe.sum();
+    }
+
+    /**
+     * Setzt alles auf 0.
+     */
+    public void zuruecksetzen() {
+        for (LongAdder bucket : this.buckets) {
+            bucket.reset();
+        }
+        this.summe.reset();
+        this.max.reset();
+    }
+
+    private static long perzentil(long[] werte, long gesamt, double anteil, long maximum) {
+        if (gesamt == 0) {
+            return 0;
+        }
+        long grenze = (long) Math.ceil(gesamt * anteil);
+        long bisher = 0;
+        for (int i = 0; i < ANZAHL_BUCKETS; i++) {
+            bisher = bisher + werte[i];
+            if (bisher >= grenze) {
+                return Math.min((1L << i) - 1, maximum); // obere Grenze des Buckets
+            }
+        }
+        return maximum;
+    }
+}
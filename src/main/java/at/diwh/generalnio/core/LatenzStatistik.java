@@ -0,0 +1,84 @@
+package at.diwh.generalnio.core;
+
+/**
+ * Ein unveränderlicher Schnappschuss eines {@link LatenzHistogramm}s. Die Perzentile sind auf eine Zweierpotenz
+ * genau (die obere Grenze des Buckets, höchstens aber das Maximum), für "liegt es an der Platte oder am Consumer"
+ * reicht das.
+ *
+ * @author diwh
+ */
+public final class LatenzStatistik {
+
+    private final long anzahl;
+    private final long summeNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+
+    LatenzStatistik(long anzahl, long summeNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos) {
+        super();
+        this.anzahl = anzahl;
+        this.summeNanos = summeNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+    }
+
+    /**
+     * @return - Anzahl der Messungen
+     */
+    public long getAnzahl() {
+        return this.anzahl;
+    }
+
+    /**
+     * @return - Summe aller Messungen
+     */
+    public long getSummeNanos() {
+        return this.summeNanos;
+    }
+
+    /**
+     * @return - Durchschnitt, 0 ohne Messungen
+     */
+    public long getMittelNanos() {
+        return this.anzahl == 0 ? 0 : this.summeNanos / this.anzahl;
+    }
+
+    /**
+     * @return - die längste Messung
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * @return - Median
+     */
+    public long getP50Nanos() {
+        return this.p50Nanos;
+    }
+
+    /**
+     * @return - 90. Perzentil
+     */
+    public long getP90Nanos() {
+        return this.p90Nanos;
+    }
+
+    /**
+     * @return - 99. Perzentil
+     */
+    public long getP99Nanos() {
+        return this.p99Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "anzahl=" + this.anzahl + ", summe=" + this.summeNanos / 1000 + "µs, mittel="
+            + getMittelNanos() / 1000 + "µs, p50=" + this.p50Nanos / 1000 + "µs, p90=" + this.p90Nanos / 1000
+            + "µs, p99=" + this.p99Nanos / 1000 + "µs, max=" + this.maxNanos / 1000 + "µs";
+    }
+}
@@ -0,0 +1,286 @@
+package at.diwh.generalnio.core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import at.diwh.generalnio.consumer.ShortCircuitingConsumer;
+
+/**
+ * Ein dünn besetzter Index der Zeilenanfänge einer Textdatei, damit man z.B. die Zeilen 5.000.000 bis 5.000.100
+ * lesen kann, ohne die Datei von vorne zu lesen.<br/>
+ * Gespeichert wird die Byteposition jeder <i>intervall</i>-ten Zeile in einer Nebendatei <i>&lt;datei&gt;.lidx</i>.
+ * Beim Laden wird geprüft, ob Größe und Änderungszeit der Datei noch stimmen; wenn nicht (oder wenn es die
+ * Nebendatei noch nicht gibt), wird der Index mit einem {@link LineScanner} neu aufgebaut und gespeichert. Kann die
+ * Nebendatei nicht geschrieben werden (z.B. schreibgeschütztes Verzeichnis), wird der Index eben nur im Speicher
+ * verwendet.<br/>
+ * <br/>
+ * Ein Zeilenbereich kostet dann das Prüfen des Kopfs der Nebendatei, das Lesen des einen passenden Eintrags plus
+ * höchstens <i>intervall</i> übersprungene Zeilen, nicht mehr das Lesen der ganzen Datei davor. Die Einträge eines
+ * geladenen Index bleiben in der Nebendatei und werden erst beim Lesen eines Bereichs einzeln geholt.<br/>
+ * Zeilen werden ab 0 gezählt, Zeilenenden wie beim LineScanner ('\n', "\r\n", '\r').<br/>
+ * <br/>
+ * Dateiformat: Magic "GNIOLIDX", Version, Dateigröße, Änderungszeit (ms), Intervall, Anzahl Zeilen, Anzahl Einträge,
+ * dann die Positionen als long.
+ *
+ * @author diwh
+ */
+public final class LineIndex {
+
+    /**
+     * Standardabstand der Einträge: jede 1024. Zeile
+     */
+    public static final int STANDARD_INTERVALL = 1024;
+
+    /**
+     * Endung der Nebendatei
+     */
+    public static final String ENDUNG = ".lidx";
+
+    private static final byte[] MAGIC = "GNIOLIDX".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    /** Magic, Version, Größe, Änderungszeit, Intervall, Anzahl Zeilen, Anzahl Einträge */
+    private static final int KOPF = 8 + 4 + 8 + 8 + 4 + 8 + 4;
+
+    private final Path datei;
+    private final int intervall;
+    private final long anzahlZeilen;
+    private volatile long[] positionen; // null: die Einträge stehen nur in der Nebendatei
+
+    private LineIndex(Path datei, int intervall, long anzahlZeilen, long[] positionen) {
+        super();
+        this.datei = datei;
+        this.intervall = intervall;
+        this.anzahlZeilen = anzahlZeilen;
+        this.positionen = positionen;
+    }
+
+    /**
+     * Lädt den Index aus der Nebendatei oder baut ihn neu auf, wenn er fehlt oder nicht mehr zur Datei passt.
+     *
+     * @param datei - die Textdatei
+     * @param intervall - jede wievielte Zeile in den Index kommt, z.B. {@link #STANDARD_INTERVALL}
+     * @return - der Index
+     * @throws IOException - Fehler beim Lesen der Datei
+     */
+    public static LineIndex holeOderBaue(Path datei, int intervall) throws IOException {
+        if (intervall <= 0) {
+            throw new IllegalArgumentException("intervall muss größer 0 sein: " + intervall);
+        }
+        BasicFileAttributes attribute = Files.readAttributes(datei, BasicFileAttributes.class);
+        long groesse = attribute.size();
+        long geaendert = attribute.lastModifiedTime().toMillis();
+        LineIndex index = lade(datei, intervall, groesse, geaendert);
+        if (index == null) {
+            index = baue(datei, intervall);
+            attribute = Files.readAttributes(datei, BasicFileAttributes.class);
+            if (attribute.size() == groesse && attribute.lastModifiedTime().toMillis() == geaendert) {
+                speichere(index, groesse, geaendert); // nur, wenn sich die Datei beim Aufbauen nicht geändert hat
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param datei - die Textdatei
+     * @return - der Pfad der Nebendatei, also <i>datei</i> + ".lidx"
+     */
+    public static Path nebendatei(Path datei) {
+        return datei.resolveSibling(datei.getFileName() + ENDUNG);
+    }
+
+    /**
+     * @return - die Anzahl der Zeilen in der Datei, eine letzte Zeile ohne Zeilenumbruch zählt mit
+     */
+    public long getAnzahlZeilen() {
+        return this.anzahlZeilen;
+    }
+
+    /**
+     * @return - jede wievielte Zeile im Index steht
+     */
+    public int getIntervall() {
+        return this.intervall;
+    }
+
+    /**
+     * Liest einen Bereich von Zeilen; gelesen wird ab dem nächstgelegenen Indexeintrag davor.
+     *
+     * @param charset - das Encoding der Datei
+     * @param vonZeile - die erste gewünschte Zeile, ab 0
+     * @param anzahl - so viele Zeilen höchstens; gibt es weniger, kommen eben weniger
+     * @param consumer - bekommt die Zeilen; die ByteLine ist nur innerhalb von accept gültig
+     * @return - die Anzahl der gelieferten Zeilen
+     * @throws IOException - Fehler
+     */
+    public long leseZeilen(Charset charset, long vonZeile, long anzahl, Consumer<? super ByteLine> consumer)
+        throws IOException {
+        if (vonZeile < 0 || anzahl < 0) {
+            throw new IllegalArgumentException("vonZeile und anzahl dürfen nicht negativ sein: " + vonZeile + ", "
+                + anzahl);
+        }
+        if (vonZeile >= this.anzahlZeilen || anzahl == 0) {
+            return 0;
+        }
+        int eintrag = (int) (vonZeile / this.intervall);
+        BereichConsumer bereich = new BereichConsumer(vonZeile - (long) eintrag * this.intervall, anzahl, consumer);
+        new LineScanner(this.datei, charset).abPosition(position(eintrag)).scanne(bereich);
+        return bereich.geliefert;
+    }
+
+    /**
+     * Holt einen Eintrag; steht der Index nur in der Nebendatei, wird genau dieser eine Eintrag gelesen. Ist die
+     * Nebendatei inzwischen weg oder kürzer, wird der Index einmal im Speicher neu aufgebaut.
+     */
+    private long position(int eintrag) throws IOException {
+        long[] imSpeicher = this.positionen;
+        if (imSpeicher != null) {
+            return imSpeicher[eintrag];
+        }
+        try (FileChannel channel = FileChannel.open(nebendatei(this.datei), StandardOpenOption.READ)) {
+            ByteBuffer wert = ByteBuffer.allocate(8);
+            long stelle = KOPF + 8L * eintrag;
+            while (wert.hasRemaining()) {
+                if (channel.read(wert, stelle + wert.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            return wert.getLong(0);
+        } catch (NoSuchFileException | EOFException e) {
+            imSpeicher = baue(this.datei, this.intervall).positionen;
+            this.positionen = imSpeicher;
+            return imSpeicher[eintrag];
+        }
+    }
+
+    /**
+     * Überspringt die Zeilen zwischen Indexeintrag und gewünschtem Anfang und hört nach dem Bereich auf.
+     */
+    private static final class BereichConsumer implements ShortCircuitingConsumer<ByteLine> {
+        private final Consumer<? super ByteLine> ziel;
+        private final long anzahl;
+        private long zuUeberspringen;
+        private long geliefert;
+
+        private BereichConsumer(long zuUeberspringen, long anzahl, Consumer<? super ByteLine> ziel) {
+            this.zuUeberspringen = zuUeberspringen;
+            this.anzahl = anzahl;
+            this.ziel = ziel;
+        }
+
+        @Override
+        public void accept(ByteLine zeile) {
+            if (this.zuUeberspringen > 0) {
+                this.zuUeberspringen--;
+                return;
+            }
+            this.ziel.accept(zeile);
+            this.geliefert++;
+        }
+
+        @Override
+        public boolean istFertig() {
+            return this.geliefert >= this.anzahl || GeneralNIOFileAccess.istFertig(this.ziel);
+        }
+    }
+
+    private static LineIndex baue(Path datei, int intervall) throws IOException {
+        long[][] positionen = {new long[64]};
+        long[] anzahl = new long[1];
+        // die Positionen hängen nicht vom Zeichensatz ab, solange '\n' und '\r' je ein Byte sind
+        new LineScanner(datei, StandardCharsets.ISO_8859_1).scanne(zeile -> {
+            if (anzahl[0] % intervall == 0) {
+                int eintrag = (int) (anzahl[0] / intervall);
+                if (eintrag == positionen[0].length) {
+                    positionen[0] = Arrays.copyOf(positionen[0], eintrag * 2);
+                }
+                positionen[0][eintrag] = zeile.getPosition();
+            }
+            anzahl[0]++;
+        });
+        int eintraege = (int) ((anzahl[0] + intervall - 1) / intervall);
+        return new LineIndex(datei, intervall, anzahl[0], Arrays.copyOf(positionen[0], eintraege));
+    }
+
+    /**
+     * Liest nur den Kopf; die Einträge holt {@link #position(int)} bei Bedarf einzeln.
+     *
+     * @return - der gespeicherte Index, oder null, wenn es keinen gibt oder er nicht mehr passt
+     */
+    private static LineIndex lade(Path datei, int intervall, long groesse, long geaendert) throws IOException {
+        try (FileChannel channel = FileChannel.open(nebendatei(datei), StandardOpenOption.READ)) {
+            ByteBuffer kopf = ByteBuffer.allocate(KOPF);
+            while (kopf.hasRemaining()) {
+                if (channel.read(kopf) < 0) {
+                    return null; // abgeschnitten
+                }
+            }
+            kopf.flip();
+            byte[] magic = new byte[MAGIC.length];
+            kopf.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || kopf.getInt() != VERSION || kopf.getLong() != groesse
+                || kopf.getLong() != geaendert || kopf.getInt() != intervall) {
+                return null;
+            }
+            long anzahlZeilen = kopf.getLong();
+            int eintraege = kopf.getInt();
+            if (eintraege != (anzahlZeilen + intervall - 1) / intervall
+                || channel.size() != KOPF + 8L * eintraege) {
+                return null;
+            }
+            return new LineIndex(datei, intervall, anzahlZeilen, null);
+        } catch (NoSuchFileException e) {
+            return null; // noch kein Index oder abgeschnitten
+        }
+    }
+
+    /**
+     * Schreibt zuerst in eine temporäre Datei und benennt sie dann um, damit ein gleichzeitiger Leser nie einen halben
+     * Index sieht.
+     */
+    private static void speichere(LineIndex index, long groesse, long geaendert) {
+        Path ziel = nebendatei(index.datei);
+        Path temp = ziel.resolveSibling(ziel.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.write(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(groesse);
+                out.writeLong(geaendert);
+                out.writeInt(index.intervall);
+                out.writeLong(index.anzahlZeilen);
+                long[] positionen = index.positionen; // frisch aufgebaut, also immer im Speicher
+                out.writeInt(positionen.length);
+                for (long position : positionen) {
+                    out.writeLong(position);
+                }
+            }
+            try {
+                Files.move(temp, ziel, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, ziel, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // nicht schlimm, dann gibt es den Index eben nur im Speicher
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e2) {
+                // ignorieren
+            }
+        }
+    }
+}
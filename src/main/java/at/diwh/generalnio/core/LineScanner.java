@@ -0,0 +1,208 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Liest eine Textdatei zeilenweise, ohne pro Zeile einen String anzulegen. Die Zeilenumbrüche werden direkt in den
+ * Bytes gesucht, der Consumer bekommt für jede Zeile dieselbe {@link ByteLine}, die auf den Lesepuffer zeigt und erst
+ * bei Bedarf dekodiert.<br/>
+ * Zeilenenden sind wie bei BufferedReader.readLine() '\n', "\r\n" und ein einzelnes '\r', auch wenn das '\r' genau am
+ * Ende eines Puffers liegt. Zeilen, die länger als der Puffer sind, vergrößern ihn.<br/>
+ * Funktioniert nur mit Zeichensätzen, in denen '\n' und '\r' je ein Byte sind (also nicht mit UTF-16).<br/>
+ * Greift der Consumer auf die Zeichen einer Zeile mit fehlerhaften Bytes zu, hört <i>scanne</i> mit der
+ * CharacterCodingException (z.B. MalformedInputException) auf, genau wie <i>leseZeilen</i>.<br/>
+ * <br/>
+ * Ist der Consumer ein {@link at.diwh.generalnio.consumer.ShortCircuitingConsumer}, hört <i>scanne</i> auf, sobald
+ * er fertig ist.<br/>
+ * <br/>
+ * Beispiel: <br/>
+ * <code>long ende = new LineScanner(pfad, StandardCharsets.UTF_8).abPosition(start)<br/>
+ * &nbsp;&nbsp;.unvollstaendigeLetzteZeileUeberspringen(true).scanne(zeile -&gt; ...);</code>
+ *
+ * @author diwh
+ */
+public final class LineScanner {
+
+    /**
+     * Standardgröße des Lesepuffers
+     */
+    public static final int STANDARD_PUFFERGROESSE = 64 * 1024;
+
+    private static final int MIN_PUFFERGROESSE = 4 * 1024;
+
+    private final Path pfad;
+    private final Charset charset;
+    private long startPosition;
+    private boolean unvollstaendigeUeberspringen;
+    private int puffergroesse = STANDARD_PUFFERGROESSE;
+
+    /**
+     * @param pfad - die Datei
+     * @param charset - das Encoding der Datei
+     */
+    public LineScanner(Path pfad, Charset charset) {
+        super();
+        if (!ParallelLineReader.istZeilenumbruchEinByte(charset)) {
+            throw new IllegalArgumentException("Zeilenweises Scannen geht nicht mit dem Charset " + charset.name());
+        }
+        this.pfad = pfad;
+        this.charset = charset;
+    }
+
+    /**
+     * @param position - ab dieser Byteposition wird gelesen; sollte der Anfang einer Zeile sein, z.B. der
+     *            Rückgabewert eines früheren <i>scanne</i>
+     * @return - this
+     */
+    public LineScanner abPosition(long position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position darf nicht negativ sein: " + position);
+        }
+        this.startPosition = position;
+        return this;
+    }
+
+    /**
+     * @param ueberspringen - true: eine letzte Zeile ohne Zeilenumbruch wird nicht geliefert (z.B. weil noch jemand
+     *            in die Datei schreibt); der Rückgabewert von <i>scanne</i> zeigt dann auf ihren Anfang
+     * @return - this
+     */
+    public LineScanner unvollstaendigeLetzteZeileUeberspringen(boolean ueberspringen) {
+        this.unvollstaendigeUeberspringen = ueberspringen;
+        return this;
+    }
+
+    /**
+     * @param groesse - Anfangsgröße des Lesepuffers in Bytes
+     * @return - this
+     */
+    public LineScanner puffergroesse(int groesse) {
+        if (groesse <= 0) {
+            throw new IllegalArgumentException("groesse muss größer 0 sein: " + groesse);
+        }
+        this.puffergroesse = groesse;
+        return this;
+    }
+
+    /**
+     * Liest alle Zeilen ab der Startposition.
+     *
+     * @param consumer - bekommt jede Zeile; die ByteLine ist nur innerhalb von accept gültig
+     * @return - die Byteposition direkt nach der letzten gelieferten Zeile (inkl. Zeilenumbruch)
+     * @throws IOException - Fehler
+     */
+    public long scanne(Consumer<? super ByteLine> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.pfad, StandardOpenOption.READ)) {
+            return scanne(channel, consumer);
+        }
+    }
+
+    /**
+     * Wie {@link #scanne(Consumer)}, aber auf einem schon offenen Channel, der dabei nicht geschlossen wird.
+     *
+     * @param channel - zum Lesen geöffnet; gelesen wird positional, die Position des Channels bleibt unverändert
+     * @param consumer - bekommt jede Zeile
+     * @return - die Byteposition direkt nach der letzten gelieferten Zeile (inkl. Zeilenumbruch)
+     * @throws IOException - Fehler
+     */
+    long scanne(FileChannel channel, Consumer<? super ByteLine> consumer) throws IOException {
+        try {
+            return lies(channel, consumer);
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof CharacterCodingException) { // aus ByteLine, siehe dort
+                throw e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private long lies(FileChannel channel, Consumer<? super ByteLine> consumer) throws IOException {
+        ByteLine zeile = new ByteLine(this.charset);
+        // wenn nur mehr wenig zu lesen ist (z.B. beim Mitlesen einer wachsenden Datei), reicht ein kleiner Puffer
+        long rest = Math.max(0, channel.size() - this.startPosition);
+        byte[] puffer = new byte[(int) Math.min(this.puffergroesse, Math.max(rest + 1, MIN_PUFFERGROESSE))];
+        ByteBuffer buffer = ByteBuffer.wrap(puffer);
+        long pufferPosition = this.startPosition; // Dateiposition von puffer[0]
+        int start = 0; // Anfang der aktuellen Zeile im Puffer
+        int suchAb = 0;
+        int ende = 0; // gültige Daten im Puffer
+        boolean eof = false;
+        while (true) {
+            int i = sucheZeilenende(puffer, suchAb, ende);
+            int naechste = -1; // Anfang der nächsten Zeile, -1 = Zeilenende noch nicht sicher
+            if (i < ende) {
+                if (puffer[i] == '\n') {
+                    naechste = i + 1;
+                } else if (i + 1 < ende) {
+                    naechste = puffer[i + 1] == '\n' ? i + 2 : i + 1;
+                } else if (eof && !this.unvollstaendigeUeberspringen) {
+                    naechste = i + 1; // einzelnes '\r' am Dateiende
+                }
+            } else if (eof) {
+                if (start < ende && !this.unvollstaendigeUeberspringen) {
+                    zeile.setze(puffer, start, ende - start, pufferPosition + start);
+                    consumer.accept(zeile);
+                    start = ende;
+                }
+                return pufferPosition + start;
+            }
+            if (naechste >= 0) {
+                zeile.setze(puffer, start, i - start, pufferPosition + start);
+                consumer.accept(zeile);
+                start = naechste;
+                suchAb = naechste;
+                if (GeneralNIOFileAccess.istFertig(consumer)) {
+                    return pufferPosition + start;
+                }
+                continue;
+            }
+            if (eof) { // '\r' am Ende, aber unvollständige Zeilen werden übersprungen
+                return pufferPosition + start;
+            }
+            // nachladen: angefangene Zeile an den Pufferanfang schieben, bei Bedarf Puffer vergrößern
+            suchAb = i;
+            if (start > 0) {
+                System.arraycopy(puffer, start, puffer, 0, ende - start);
+                suchAb = suchAb - start;
+                ende = ende - start;
+                pufferPosition = pufferPosition + start;
+                start = 0;
+            } else if (ende == puffer.length) {
+                puffer = Arrays.copyOf(puffer, puffer.length * 2);
+                buffer = ByteBuffer.wrap(puffer);
+            }
+            buffer.limit(puffer.length);
+            buffer.position(ende);
+            int gelesen = channel.read(buffer, pufferPosition + ende);
+            if (gelesen < 0) {
+                eof = true;
+            } else {
+                ende = ende + gelesen;
+            }
+        }
+    }
+
+    /**
+     * Eigene kleine Methode, damit der JIT die Suchschleife unabhängig vom Rest von <i>scanne</i> optimiert.
+     *
+     * @return - Index des ersten '\n' oder '\r' ab <i>von</i>, oder <i>bis</i>, wenn es keines gibt
+     */
+    private static int sucheZeilenende(byte[] puffer, int von, int bis) {
+        for (int i = von; i < bis; i++) {
+            byte b = puffer[i];
+            if (b <= '\r' && (b == '\n' || b == '\r')) { // fast alle Bytes scheitern schon am ersten Vergleich
+                return i;
+            }
+        }
+        return bis;
+    }
+}
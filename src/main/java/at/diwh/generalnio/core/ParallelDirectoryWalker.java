@@ -0,0 +1,142 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Durchläuft einen Verzeichnisbaum genau einmal und parallel: jedes Unterverzeichnis wird als eigener Task auf einem
+ * ForkJoinPool abgearbeitet. Pro Eintrag werden die BasicFileAttributes genau einmal gelesen und an den Besucher
+ * weitergegeben, es braucht also kein zusätzliches isFile()/isDirectory() mehr.<br/>
+ * <br/>
+ * Symbolische Links werden nicht verfolgt. Verzeichnisse, die nicht gelesen werden können, werden wie bei
+ * <i>GeneralNIOFileAccess.holeDateibaum</i> still übersprungen; nur wenn schon der Startpunkt nicht lesbar ist, gibt
+ * es eine IOException.<br/>
+ * Der Besucher wird aus mehreren Threads gleichzeitig aufgerufen und muss threadsicher sein; die Reihenfolge der
+ * Einträge ist nicht definiert, ein Verzeichnis kommt aber immer vor seinem Inhalt.
+ * 
+ * @author diwh
+ */
+public class ParallelDirectoryWalker {
+
+    private final ForkJoinPool pool;
+    private final int maxTiefe;
+
+    /**
+     * Ein Walker auf dem gemeinsamen ForkJoinPool ohne Tiefenbeschränkung.
+     */
+    public ParallelDirectoryWalker() {
+        this(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param pool - der ForkJoinPool, auf dem die Verzeichnisse abgearbeitet werden
+     * @param maxTiefe - wie tief abgestiegen wird; 0 heißt nur der Startpunkt, 1 sein direkter Inhalt usw.
+     */
+    public ParallelDirectoryWalker(ForkJoinPool pool, int maxTiefe) {
+        super();
+        this.pool = pool;
+        this.maxTiefe = maxTiefe;
+    }
+
+    /**
+     * Durchläuft alle Einträge unterhalb von <i>start</i>, inklusive <i>start</i> selbst.
+     * 
+     * @param start - der Startpunkt
+     * @param besucher - bekommt jeden Eintrag mit seinen Attributen, muss threadsicher sein
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    public void walk(Path start, BiConsumer<Path, BasicFileAttributes> besucher) throws IOException {
+        walk(start, (dir, attrs) -> true, besucher);
+    }
+
+    /**
+     * Durchläuft alle Einträge unterhalb von <i>start</i>, inklusive <i>start</i> selbst. Verzeichnisse, für die
+     * <i>betreten</i> false liefert, werden zwar an den Besucher gegeben, ihr Inhalt aber nicht mehr gelesen.
+     * 
+     * @param start - der Startpunkt
+     * @param betreten - entscheidet pro Unterverzeichnis, ob hineingegangen wird; muss threadsicher sein
+     * @param besucher - bekommt jeden Eintrag mit seinen Attributen, muss threadsicher sein
+     * @throws IOException - wenn der Startpunkt nicht gelesen werden kann
+     */
+    public void walk(Path start, BiPredicate<Path, BasicFileAttributes> betreten,
+        BiConsumer<Path, BasicFileAttributes> besucher) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(start, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        besucher.accept(start, attrs);
+        if (!attrs.isDirectory() || this.maxTiefe < 1) {
+            return;
+        }
+        VerzeichnisTask wurzel = new VerzeichnisTask(start, 0, betreten, besucher);
+        this.pool.invoke(wurzel);
+        if (wurzel.fehler != null) { // ein nicht lesbarer Startpunkt wird nicht still übersprungen
+            throw wurzel.fehler;
+        }
+    }
+
+    private final class VerzeichnisTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient Path verzeichnis;
+        private final int tiefe;
+        private final transient BiPredicate<Path, BasicFileAttributes> betreten;
+        private final transient BiConsumer<Path, BasicFileAttributes> besucher;
+        private transient IOException fehler; // nur beim Startpunkt: das Verzeichnis konnte nicht geöffnet werden
+
+        VerzeichnisTask(Path verzeichnis, int tiefe, BiPredicate<Path, BasicFileAttributes> betreten,
+            BiConsumer<Path, BasicFileAttributes> besucher) {
+            super();
+            this.verzeichnis = verzeichnis;
+            this.tiefe = tiefe;
+            this.betreten = betreten;
+            this.besucher = besucher;
+        }
+
+        @Override
+        protected void compute() {
+            int kindTiefe = this.tiefe + 1;
+            List<VerzeichnisTask> unterverzeichnisse = new ArrayList<>();
+            DirectoryStream<Path> offen;
+            try {
+                offen = Files.newDirectoryStream(this.verzeichnis);
+            } catch (IOException e) {
+                if (this.tiefe == 0) {
+                    this.fehler = e;
+                }
+                return; // nicht lesbares Verzeichnis, wie bei holeDateibaum einfach überspringen
+            }
+            try (DirectoryStream<Path> stream = offen) {
+                for (Path eintrag : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(eintrag, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue; // inzwischen gelöscht oder kein Zugriff
+                    }
+                    this.besucher.accept(eintrag, attrs);
+                    if (attrs.isDirectory() && kindTiefe < ParallelDirectoryWalker.this.maxTiefe
+                        && this.betreten.test(eintrag, attrs)) {
+                        VerzeichnisTask task = new VerzeichnisTask(eintrag, kindTiefe, this.betreten, this.besucher);
+                        task.fork();
+                        unterverzeichnisse.add(task);
+                    }
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // nicht lesbares Verzeichnis, wie bei holeDateibaum einfach überspringen
+            }
+            // die Tasks sind schon geforkt; invokeAll würde sie ein zweites Mal forken, dann laufen manche doppelt
+            for (VerzeichnisTask task : unterverzeichnisse) {
+                task.join();
+            }
+        }
+    }
+}
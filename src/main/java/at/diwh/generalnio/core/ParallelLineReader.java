@@ -0,0 +1,216 @@
+package at.diwh.generalnio.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Liest ein Textfile zeilenweise und parallel: Die Datei wird in Byte-Bereiche geteilt, deren Grenzen immer direkt
+ * hinter einem Zeilenumbruch liegen, jeder Bereich wird in einem ForkJoin-Task mit einem eigenen Consumer gelesen und
+ * die Consumer werden danach in Dateireihenfolge mit dem Kombinierer zusammengeführt.<br/>
+ * Das funktioniert nur mit Charsets, in denen '\n' und '\r' als einzelnes Byte kodiert sind (US-ASCII, ISO-8859-x,
+ * UTF-8, ...), nicht aber z.B. mit UTF-16.
+ * 
+ * @author diwh
+ */
+final class ParallelLineReader {
+
+    /** kleinere Bereiche lohnen den Task-Overhead nicht */
+    private static final long MIN_BEREICHSGROESSE = 1024L * 1024L;
+    /** ein paar Bereiche mehr als Threads, damit ungleich schnelle Bereiche sich ausgleichen */
+    private static final int BEREICHE_PRO_THREAD = 4;
+    private static final int SUCHPUFFER = 8192;
+    private static final int LESEPUFFER = 65536;
+
+    private ParallelLineReader() {
+        super();
+    }
+
+    /**
+     * @param p - die Datei
+     * @param charset - das Encoding
+     * @param pool - der ForkJoinPool, auf dem die Bereiche verarbeitet werden
+     * @param consumerFabrik - liefert pro Bereich einen neuen Consumer
+     * @param kombinierer - führt zwei Consumer zusammen, links ist immer der Bereich weiter vorne in der Datei
+     * @return - der zusammengeführte Consumer
+     * @throws IOException - Fehler
+     */
+    static <C extends Consumer<String>> C lese(Path p, Charset charset, ForkJoinPool pool, Supplier<C> consumerFabrik,
+        BinaryOperator<C> kombinierer) throws IOException {
+        if (!istZeilenumbruchEinByte(charset)) {
+            throw new IllegalArgumentException("Paralleles Lesen geht nicht mit dem Charset " + charset.name());
+        }
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+            long[] grenzen = ermittleGrenzen(channel, pool.getParallelism() * BEREICHE_PRO_THREAD);
+            return pool.invoke(new BereichTask<>(channel, charset, grenzen, 0, grenzen.length - 1, consumerFabrik,
+                kombinierer));
+        } catch (RuntimeException e) { // IOExceptions aus den Tasks wieder auspacken
+            Throwable ursache = e;
+            while (ursache != null) {
+                if (ursache instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) ursache).getCause();
+                }
+                ursache = ursache.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param charset - das Charset
+     * @return - true, wenn '\n' und '\r' in diesem Charset genau ein Byte mit dem ASCII-Wert sind
+     */
+    static boolean istZeilenumbruchEinByte(Charset charset) {
+        return Arrays.equals("\n".getBytes(charset), new byte[] {'\n'})
+            && Arrays.equals("\r".getBytes(charset), new byte[] {'\r'});
+    }
+
+    /**
+     * Teilt die Datei in höchstens <i>anzahl</i> Bereiche; jede Grenze wird auf das Byte direkt nach dem nächsten
+     * '\n' verschoben.
+     * 
+     * @return - aufsteigende Grenzen, erste ist 0, letzte ist die Dateigröße
+     */
+    private static long[] ermittleGrenzen(FileChannel channel, int anzahl) throws IOException {
+        long groesse = channel.size();
+        int anzahlBereiche = (int) Math.max(1, Math.min(anzahl, groesse / MIN_BEREICHSGROESSE));
+        long[] grenzen = new long[anzahlBereiche + 1];
+        int belegt = 1; // grenzen[0] = 0
+        ByteBuffer suchpuffer = ByteBuffer.allocate(SUCHPUFFER);
+        for (int i = 1; i < anzahlBereiche; i++) {
+            long kandidat = Math.max(groesse / anzahlBereiche * i, grenzen[belegt - 1]);
+            long grenze = naechsterZeilenanfang(channel, kandidat, groesse, suchpuffer);
+            if (grenze > grenzen[belegt - 1] && grenze < groesse) {
+                grenzen[belegt++] = grenze;
+            }
+        }
+        grenzen[belegt++] = groesse;
+        return Arrays.copyOf(grenzen, belegt);
+    }
+
+    private static long naechsterZeilenanfang(FileChannel channel, long ab, long groesse, ByteBuffer suchpuffer)
+            throws IOException {
+        long position = ab;
+        while (position < groesse) {
+            suchpuffer.clear();
+            int gelesen = channel.read(suchpuffer, position);
+            if (gelesen <= 0) {
+                break;
+            }
+            for (int i = 0; i < gelesen; i++) {
+                if (suchpuffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position = position + gelesen;
+        }
+        return groesse;
+    }
+
+    /**
+     * Ein Task für die Bereiche grenzen[von] bis grenzen[bis]; teilt sich, bis nur mehr ein Bereich übrig ist.
+     */
+    private static final class BereichTask<C extends Consumer<String>> extends RecursiveTask<C> {
+
+        private static final long serialVersionUID = 1L;
+        private final transient FileChannel channel;
+        private final transient Charset charset;
+        private final long[] grenzen;
+        private final int von;
+        private final int bis;
+        private final transient Supplier<C> consumerFabrik;
+        private final transient BinaryOperator<C> kombinierer;
+
+        BereichTask(FileChannel channel, Charset charset, long[] grenzen, int von, int bis, Supplier<C> consumerFabrik,
+            BinaryOperator<C> kombinierer) {
+            super();
+            this.channel = channel;
+            this.charset = charset;
+            this.grenzen = grenzen;
+            this.von = von;
+            this.bis = bis;
+            this.consumerFabrik = consumerFabrik;
+            this.kombinierer = kombinierer;
+        }
+
+        @Override
+        protected C compute() {
+            if (this.bis - this.von <= 1) {
+                return leseBereich();
+            }
+            int mitte = (this.von + this.bis) >>> 1;
+            BereichTask<C> links = new BereichTask<>(this.channel, this.charset, this.grenzen, this.von, mitte,
+                this.consumerFabrik, this.kombinierer);
+            BereichTask<C> rechts = new BereichTask<>(this.channel, this.charset, this.grenzen, mitte, this.bis,
+                this.consumerFabrik, this.kombinierer);
+            rechts.fork();
+            C linkesErgebnis = links.compute();
+            return this.kombinierer.apply(linkesErgebnis, rechts.join());
+        }
+
+        private C leseBereich() {
+            C consumer = this.consumerFabrik.get();
+            InputStream is = new BereichInputStream(this.channel, this.grenzen[this.von], this.grenzen[this.bis]);
+            try (BufferedReader bReader = new BufferedReader(new InputStreamReader(is, this.charset.newDecoder()),
+                LESEPUFFER)) {
+                String line = null;
+                while (!GeneralNIOFileAccess.istFertig(consumer) && (line = bReader.readLine()) != null) {
+                    consumer.accept(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return consumer;
+        }
+    }
+
+    /**
+     * Ein InputStream über einen Bereich eines FileChannels; liest positional, daher können beliebig viele davon
+     * gleichzeitig auf demselben Channel arbeiten. close() schließt den Channel absichtlich nicht.
+     */
+    private static final class BereichInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private final long ende;
+
+        BereichInputStream(FileChannel channel, long start, long ende) {
+            super();
+            this.channel = channel;
+            this.position = start;
+            this.ende = ende;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] einByte = new byte[1];
+            return read(einByte, 0, 1) == -1 ? -1 : einByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.position >= this.ende) {
+                return -1;
+            }
+            int maxLen = (int) Math.min(len, this.ende - this.position);
+            int gelesen = this.channel.read(ByteBuffer.wrap(b, off, maxLen), this.position);
+            if (gelesen > 0) {
+                this.position = this.position + gelesen;
+            }
+            return gelesen;
+        }
+    }
+}
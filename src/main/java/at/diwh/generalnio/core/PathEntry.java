@@ -0,0 +1,55 @@
+package at.diwh.generalnio.core;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Ein Eintrag aus einem Verzeichnisbaum: der Path samt den BasicFileAttributes, die beim Durchlaufen ohnehin gelesen
+ * wurden. Wer Größe, Datum oder Typ braucht, nimmt sie von hier und muss nicht noch einmal auf das Filesystem.
+ * 
+ * @author diwh
+ */
+public final class PathEntry {
+
+    private final Path path;
+    private final BasicFileAttributes attribute;
+
+    /**
+     * @param path - der Path
+     * @param attribute - die Attribute des Paths, nicht null
+     */
+    public PathEntry(Path path, BasicFileAttributes attribute) {
+        super();
+        this.path = path;
+        this.attribute = attribute;
+    }
+
+    @SuppressWarnings("javadoc")
+    public Path getPath() {
+        return this.path;
+    }
+
+    @SuppressWarnings("javadoc")
+    public BasicFileAttributes getAttribute() {
+        return this.attribute;
+    }
+
+    /**
+     * @return true, wenn der Eintrag ein Verzeichnis ist (symbolische Links werden nicht verfolgt)
+     */
+    public boolean istVerzeichnis() {
+        return this.attribute.isDirectory();
+    }
+
+    /**
+     * @return true, wenn der Eintrag eine normale Datei ist (symbolische Links werden nicht verfolgt)
+     */
+    public boolean istDatei() {
+        return this.attribute.isRegularFile();
+    }
+
+    @Override
+    public String toString() {
+        return this.path.toString();
+    }
+}
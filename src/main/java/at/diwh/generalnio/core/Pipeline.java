@@ -0,0 +1,412 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Eine Verarbeitungskette Quelle → Stufen → Senke, bei der jedes Element sofort weitergereicht wird, statt erst
+ * alles in einer Liste zu sammeln. Damit lassen sich beliebig große Dateien mit konstantem Speicherbedarf lesen,
+ * umwandeln und wieder schreiben.<br/>
+ * <br/>
+ * Eine Stufe ist ein BiConsumer aus Element und nachfolgendem Consumer; sie darf pro Element beliebig viele (auch
+ * keine) Ergebnisse weitergeben. Normalerweise laufen alle Stufen im Thread der Quelle. Wird eine Stufe mit einer
+ * Queue-Kapazität angelegt, bekommt sie ab dort einen eigenen Thread, dazwischen liegt eine begrenzte Queue:
+ * <ul>
+ * <li>die Stufen arbeiten dann überlappend auf mehreren Kernen</li>
+ * <li>ist die Queue voll, wartet der Vorgänger (Backpressure), es liegen also nie mehr als Kapazität x
+ * {@link #BATCHGROESSE} Elemente zwischen zwei Threads</li>
+ * </ul>
+ * Die Elemente gehen gebündelt durch die Queues, damit nicht jede Zeile einzeln synchronisiert werden muss.<br/>
+ * Eine Pipeline ist unveränderlich: jede angehängte Stufe ergibt eine neue Pipeline, ein Zwischenstand kann also
+ * gefahrlos aufgehoben und mehrmals weitergebaut oder ausgeführt werden (die Quelle liefert dann jedes Mal neu).<br/>
+ * Wirft irgendeine Stufe oder die Senke eine Exception, werden alle Threads abgebrochen und <i>fuehreAus</i> wirft
+ * die erste Exception weiter (IOException unverändert, UncheckedIOException ausgepackt).<br/>
+ * <br/>
+ * Beispiel: <br/>
+ * <code>Pipeline.ausFile("c:/temp/gross.txt", null, StandardCharsets.UTF_8)<br/>
+ * &nbsp;&nbsp;.filtere(zeile -&gt; !zeile.isEmpty())<br/>
+ * &nbsp;&nbsp;.wandle(String::toUpperCase, 64)<br/>
+ * &nbsp;&nbsp;.schreibeNach("c:/temp/gross_neu.txt", Boolean.FALSE, StandardCharsets.UTF_8, "\n");</code>
+ *
+ * @author diwh
+ * @param <T> - der Typ der Elemente am Ende der bisherigen Kette
+ */
+public final class Pipeline<T> {
+
+    /**
+     * So viele Elemente gehen gebündelt durch eine Queue.
+     */
+    public static final int BATCHGROESSE = 256;
+
+    private static final Object[] ENDE = new Object[0];
+    private static final long WARTEZEIT_MILLIS = 100;
+    private static final AtomicInteger THREADNUMMER = new AtomicInteger();
+
+    /**
+     * Die Quelle einer Pipeline, z.B. <i>GeneralNIOFileAccess.leseFile</i>.
+     *
+     * @param <T> - Typ der gelieferten Elemente
+     */
+    @FunctionalInterface
+    public interface Quelle<T> {
+        /**
+         * Liefert alle Elemente an den Consumer und kehrt erst zurück, wenn sie fertig ist.
+         *
+         * @param ziel - hierhin gehen die Elemente
+         * @throws IOException - Fehler
+         * @throws URISyntaxException - Fehler
+         */
+        void liefere(Consumer<T> ziel) throws IOException, URISyntaxException;
+    }
+
+    private static final class Stufe {
+        private final BiConsumer<Object, Consumer<Object>> funktion;
+        private final int kapazitaet; // 0 = kein eigener Thread
+
+        private Stufe(BiConsumer<Object, Consumer<Object>> funktion, int kapazitaet) {
+            this.funktion = funktion;
+            this.kapazitaet = kapazitaet;
+        }
+    }
+
+    private final Quelle<?> quelle;
+    private final List<Stufe> stufen;
+
+    private Pipeline(Quelle<?> quelle, List<Stufe> stufen) {
+        super();
+        this.quelle = quelle;
+        this.stufen = stufen;
+    }
+
+    /**
+     * @param quelle - die Quelle
+     * @return - eine neue Pipeline
+     * @param <T> - Typ der gelieferten Elemente
+     */
+    public static <T> Pipeline<T> von(Quelle<T> quelle) {
+        return new Pipeline<>(quelle, Collections.emptyList());
+    }
+
+    /**
+     * Eine Pipeline, die eine Textdatei zeilenweise liest, siehe <i>GeneralNIOFileAccess.leseFile</i>.
+     *
+     * @param f - Dateiname
+     * @param clazz - für Dateien im Classpath, sonst null
+     * @param charset - Encoding der Datei
+     * @return - eine neue Pipeline mit den Zeilen als Elementen
+     */
+    public static Pipeline<String> ausFile(String f, Class<?> clazz, Charset charset) {
+        return von(ziel -> GeneralNIOFileAccess.leseFile(f, clazz, charset, 1, ziel));
+    }
+
+    /**
+     * Hängt eine Stufe an, die im selben Thread wie ihr Vorgänger läuft.
+     *
+     * @param funktion - bekommt das Element und den Consumer für die Ergebnisse
+     * @return - die Pipeline mit dem neuen Elementtyp
+     * @param <R> - Typ der Ergebnisse der Stufe
+     */
+    public <R> Pipeline<R> stufe(BiConsumer<? super T, ? super Consumer<R>> funktion) {
+        return stufe(funktion, 0);
+    }
+
+    /**
+     * Hängt eine Stufe an, die in einem eigenen Thread läuft. Die Queue davor fasst höchstens
+     * <i>queueKapazitaet</i> Bündel zu je {@link #BATCHGROESSE} Elementen.<br/>
+     * Diese Pipeline bleibt dabei unverändert, die Stufe kommt nur in die neue.
+     *
+     * @param funktion - bekommt das Element und den Consumer für die Ergebnisse
+     * @param queueKapazitaet - größer 0: eigener Thread; 0: im Thread des Vorgängers
+     * @return - die Pipeline mit dem neuen Elementtyp
+     * @param <R> - Typ der Ergebnisse der Stufe
+     */
+    @SuppressWarnings("unchecked") // die Typen werden beim Aufbau der Kette geprüft, zur Laufzeit gibt es nur Object
+    public <R> Pipeline<R> stufe(BiConsumer<? super T, ? super Consumer<R>> funktion, int queueKapazitaet) {
+        if (queueKapazitaet < 0) {
+            throw new IllegalArgumentException("queueKapazitaet darf nicht negativ sein: " + queueKapazitaet);
+        }
+        List<Stufe> neu = new ArrayList<>(this.stufen.size() + 1);
+        neu.addAll(this.stufen);
+        neu.add(new Stufe((BiConsumer<Object, Consumer<Object>>) (BiConsumer<?, ?>) funktion, queueKapazitaet));
+        return new Pipeline<>(this.quelle, neu);
+    }
+
+    /**
+     * @param funktion - wandelt ein Element in genau ein Ergebnis
+     * @return - die Pipeline mit dem neuen Elementtyp
+     * @param <R> - Typ der Ergebnisse
+     */
+    public <R> Pipeline<R> wandle(Function<? super T, ? extends R> funktion) {
+        return wandle(funktion, 0);
+    }
+
+    /**
+     * @param funktion - wandelt ein Element in genau ein Ergebnis
+     * @param queueKapazitaet - größer 0: eigener Thread; 0: im Thread des Vorgängers
+     * @return - die Pipeline mit dem neuen Elementtyp
+     * @param <R> - Typ der Ergebnisse
+     */
+    public <R> Pipeline<R> wandle(Function<? super T, ? extends R> funktion, int queueKapazitaet) {
+        return stufe((T element, Consumer<R> weiter) -> weiter.accept(funktion.apply(element)), queueKapazitaet);
+    }
+
+    /**
+     * @param bedingung - nur Elemente, für die sie true liefert, gehen weiter
+     * @return - die Pipeline
+     */
+    public Pipeline<T> filtere(Predicate<? super T> bedingung) {
+        return stufe((T element, Consumer<T> weiter) -> {
+            if (bedingung.test(element)) {
+                weiter.accept(element);
+            }
+        });
+    }
+
+    /**
+     * Ab hier läuft der Rest der Kette (inkl. Senke) in einem eigenen Thread, z.B. damit das Schreiben mit dem Lesen
+     * überlappt.
+     *
+     * @param queueKapazitaet - Anzahl Bündel in der Queue, größer 0
+     * @return - die Pipeline
+     */
+    public Pipeline<T> entkoppeln(int queueKapazitaet) {
+        if (queueKapazitaet <= 0) {
+            throw new IllegalArgumentException("queueKapazitaet muss größer 0 sein: " + queueKapazitaet);
+        }
+        return stufe((T element, Consumer<T> weiter) -> weiter.accept(element), queueKapazitaet);
+    }
+
+    /**
+     * Schreibt alle Elemente mit toString() über einen {@link StreamingFileWriter} in eine Datei.
+     *
+     * @param f - Dateiname
+     * @param append - true: anhängen, false: überschreiben
+     * @param charset - Encoding
+     * @param zeilenumbruch - wird nach jedem Element geschrieben, null oder "" für keinen
+     * @throws IOException - Fehler
+     * @throws URISyntaxException - Fehler der Quelle
+     */
+    public void schreibeNach(String f, Boolean append, Charset charset, String zeilenumbruch)
+        throws IOException, URISyntaxException {
+        boolean mitUmbruch = zeilenumbruch != null && !zeilenumbruch.isEmpty();
+        try (StreamingFileWriter schreiber = new StreamingFileWriter(f, append, charset)) {
+            fuehreAus(element -> {
+                try {
+                    schreiber.schreibe(String.valueOf(element));
+                    if (mitUmbruch) {
+                        schreiber.schreibe(zeilenumbruch);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Startet die Pipeline und kehrt zurück, wenn die Quelle fertig ist und alle Elemente bei der Senke angekommen
+     * sind.
+     *
+     * @param senke - bekommt die Elemente am Ende der Kette
+     * @throws IOException - Fehler, auch aus Stufen oder Senke
+     * @throws URISyntaxException - Fehler der Quelle
+     */
+    @SuppressWarnings("unchecked") // zur Laufzeit gibt es nur Object
+    public void fuehreAus(Consumer<? super T> senke) throws IOException, URISyntaxException {
+        Lauf lauf = new Lauf();
+        // von hinten nach vorne aufbauen, an jeder Stufe mit Kapazität beginnt ein neuer Thread
+        Consumer<Object> kopf = (Consumer<Object>) senke;
+        Verbindung ausgang = null;
+        for (int i = this.stufen.size() - 1; i >= 0; i--) {
+            Stufe stufe = this.stufen.get(i);
+            Consumer<Object> weiter = kopf;
+            kopf = element -> stufe.funktion.accept(element, weiter);
+            if (stufe.kapazitaet > 0) {
+                Verbindung eingang = new Verbindung(lauf, stufe.kapazitaet);
+                lauf.starte(eingang, kopf, ausgang);
+                kopf = eingang;
+                ausgang = eingang;
+            }
+        }
+        try {
+            ((Quelle<Object>) this.quelle).liefere(kopf);
+            if (ausgang != null) {
+                ausgang.schliesse();
+            }
+        } catch (Abbruch e) {
+            // ein Thread weiter hinten ist gescheitert, dessen Fehler kommt unten
+        } catch (IOException | URISyntaxException | RuntimeException | Error e) {
+            lauf.scheitere(e);
+        }
+        lauf.warte();
+        lauf.wirfFehler();
+    }
+
+    /**
+     * Der Zustand einer Ausführung: die Threads und der erste Fehler.
+     */
+    private static final class Lauf {
+        private final List<Thread> threads = new ArrayList<>();
+        private volatile Throwable fehler;
+
+        private void starte(Verbindung eingang, Consumer<Object> kopf, Verbindung ausgang) {
+            Thread thread = new Thread(() -> {
+                try {
+                    Object[] buendel;
+                    while ((buendel = eingang.hole()) != ENDE) {
+                        for (Object element : buendel) {
+                            kopf.accept(element);
+                        }
+                    }
+                    if (ausgang != null) {
+                        ausgang.schliesse();
+                    }
+                } catch (Abbruch e) {
+                    // anderer Thread ist gescheitert
+                } catch (RuntimeException | Error e) {
+                    scheitere(e);
+                }
+            }, "gnio-pipeline-" + THREADNUMMER.incrementAndGet());
+            thread.setDaemon(true);
+            this.threads.add(thread);
+            thread.start();
+        }
+
+        private synchronized void scheitere(Throwable t) {
+            if (this.fehler == null) {
+                this.fehler = t;
+            }
+        }
+
+        private boolean istAbgebrochen() {
+            return this.fehler != null;
+        }
+
+        private void warte() throws InterruptedIOException {
+            for (Thread thread : this.threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    scheitere(e);
+                    Thread.currentThread().interrupt();
+                    for (Thread t : this.threads) {
+                        t.interrupt();
+                    }
+                    throw new InterruptedIOException("Warten auf die Pipeline unterbrochen");
+                }
+            }
+        }
+
+        private void wirfFehler() throws IOException, URISyntaxException {
+            Throwable t = this.fehler;
+            if (t == null) {
+                return;
+            }
+            if (t instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) t).getCause();
+            }
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            }
+            if (t instanceof URISyntaxException) {
+                throw (URISyntaxException) t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new IOException("Pipeline abgebrochen", t);
+        }
+    }
+
+    /**
+     * Eine begrenzte Queue zwischen zwei Threads. Als Consumer sammelt sie Elemente zu Bündeln, erst volle Bündel
+     * gehen in die Queue. Gewartet wird immer nur kurz, damit ein Abbruch auch wartende Threads erreicht.
+     */
+    private static final class Verbindung implements Consumer<Object> {
+        private final Lauf lauf;
+        private final BlockingQueue<Object[]> queue;
+        private Object[] buendel = new Object[BATCHGROESSE];
+        private int anzahl;
+
+        private Verbindung(Lauf lauf, int kapazitaet) {
+            this.lauf = lauf;
+            this.queue = new ArrayBlockingQueue<>(kapazitaet);
+        }
+
+        @Override
+        public void accept(Object element) {
+            this.buendel[this.anzahl++] = element;
+            if (this.anzahl == BATCHGROESSE) {
+                stelleEin(this.buendel);
+                this.buendel = new Object[BATCHGROESSE];
+                this.anzahl = 0;
+            }
+        }
+
+        private void schliesse() {
+            if (this.anzahl > 0) {
+                stelleEin(Arrays.copyOf(this.buendel, this.anzahl)); // das letzte Bündel ist meist nicht voll
+            }
+            stelleEin(ENDE);
+        }
+
+        private void stelleEin(Object[] b) {
+            try {
+                while (!this.queue.offer(b, WARTEZEIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (this.lauf.istAbgebrochen()) {
+                        throw new Abbruch();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.lauf.scheitere(e);
+                throw new Abbruch();
+            }
+        }
+
+        private Object[] hole() {
+            try {
+                Object[] b;
+                while ((b = this.queue.poll(WARTEZEIT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    if (this.lauf.istAbgebrochen()) {
+                        throw new Abbruch();
+                    }
+                }
+                return b;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.lauf.scheitere(e);
+                throw new Abbruch();
+            }
+        }
+    }
+
+    /**
+     * Beendet einen Thread, weil ein anderer gescheitert ist.
+     */
+    private static final class Abbruch extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Abbruch() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package at.diwh.generalnio.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ein aus einem {@link ByteBufferPool} verliehener Puffer.<br/>
+ * <b>Vertrag:</b> Wer einen PooledBuffer bekommt, muss ihn genau einmal mit <i>freigeben</i> zurückgeben, sobald er
+ * die Daten nicht mehr braucht. Das darf auch später und aus einem anderen Thread passieren. Nach dem Freigeben darf
+ * der Buffer nicht mehr angefasst werden, denn er wird sofort für den nächsten Block wiederverwendet.
+ * 
+ * @author diwh
+ */
+public class PooledBuffer {
+
+    private final ByteBuffer buffer;
+    private final ByteBufferPool pool;
+    private final AtomicBoolean verliehen = new AtomicBoolean(false);
+    private long position;
+    private int laenge;
+
+    PooledBuffer(ByteBuffer buffer, ByteBufferPool pool) {
+        super();
+        this.buffer = buffer;
+        this.pool = pool;
+    }
+
+    /**
+     * Wird vom Pool beim Verleihen aufgerufen, setzt den Puffer zurück.
+     */
+    void ausgeliehen() {
+        this.verliehen.set(true);
+        this.buffer.clear();
+        this.position = 0;
+        this.laenge = 0;
+    }
+
+    /**
+     * Wird vom Leser gesetzt, bevor der Puffer an den Consumer geht.
+     * 
+     * @param position - Position des ersten Bytes in der Datei
+     * @param laenge - Anzahl gültiger Bytes im Puffer
+     */
+    void setzeInhalt(long position, int laenge) {
+        this.position = position;
+        this.laenge = laenge;
+    }
+
+    /**
+     * Gibt den Puffer an den Pool zurück.
+     * 
+     * @throws IllegalStateException - wenn der Puffer bereits freigegeben wurde
+     */
+    public void freigeben() {
+        if (!this.verliehen.compareAndSet(true, false)) {
+            throw new IllegalStateException("PooledBuffer wurde bereits freigegeben");
+        }
+        this.pool.zurueckgeben(this);
+    }
+
+    /**
+     * @return der Buffer; beim Lesen steht er auf position 0 und limit = <i>getLaenge()</i>
+     */
+    public ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * @return die Anzahl gültiger Bytes im Buffer
+     */
+    public int getLaenge() {
+        return this.laenge;
+    }
+
+    /**
+     * @return die Position des ersten Bytes dieses Blocks in der Datei
+     */
+    public long getPosition() {
+        return this.position;
+    }
+}
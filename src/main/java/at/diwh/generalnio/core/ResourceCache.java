@@ -0,0 +1,220 @@
+package at.diwh.generalnio.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ein begrenzter Speicher-Cache für kleine Resourcen aus dem Classpath, die immer wieder gelesen werden
+ * (Konfigurationsvorlagen, Lookup-Tabellen, ...). Gelesen wird über getResourceAsStream, das funktioniert auch aus
+ * einem JAR heraus.<br/>
+ * <br/>
+ * Schlüssel ist der ClassLoader der Klasse plus der absolute Resourcename, "daten.txt" relativ zu
+ * <i>at.diwh.X</i> und "/at/diwh/daten.txt" sind also derselbe Eintrag. Der ClassLoader wird nur schwach
+ * referenziert, ein Cache hält also keine abgeräumte Webapp im Speicher.<br/>
+ * Alle Einträge zusammen belegen höchstens <i>budget</i> Bytes, bei Bedarf fliegen die am längsten nicht gelesenen
+ * hinaus. Resourcen über <i>maxEintrag</i> Bytes werden gar nicht gecacht, nur gelesen.<br/>
+ * <br/>
+ * Verwendung direkt oder über <i>GeneralNIOFileAccess.setResourceCache</i>, dann bedient auch <i>leseFile</i> mit
+ * <i>clazz != null</i> aus dem Cache.
+ *
+ * @author diwh
+ */
+public final class ResourceCache {
+
+    /**
+     * Standardbudget: 16 MB
+     */
+    public static final long STANDARD_BUDGET = 16L * 1024 * 1024;
+
+    /**
+     * Standardgrenze pro Resource: 1 MB
+     */
+    public static final int STANDARD_MAX_EINTRAG = 1024 * 1024;
+
+    private static final class Schluessel {
+        private final WeakReference<ClassLoader> loader;
+        private final boolean bootstrap;
+        private final String name;
+        private final int hash;
+
+        private Schluessel(ClassLoader loader, String name) {
+            this.loader = new WeakReference<>(loader);
+            this.bootstrap = loader == null;
+            this.name = name;
+            this.hash = System.identityHashCode(loader) * 31 + name.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Schluessel)) {
+                return false;
+            }
+            Schluessel anderer = (Schluessel) obj;
+            if (this.bootstrap != anderer.bootstrap || !this.name.equals(anderer.name)) {
+                return false;
+            }
+            ClassLoader l = this.loader.get();
+            return this.bootstrap || (l != null && l == anderer.loader.get());
+        }
+    }
+
+    private final long budget;
+    private final int maxEintrag;
+    private final LinkedHashMap<Schluessel, byte[]> eintraege = new LinkedHashMap<>(16, 0.75f, true);
+    private long belegt;
+    private long treffer;
+    private long fehlgriffe;
+
+    /**
+     * Mit {@link #STANDARD_BUDGET} und {@link #STANDARD_MAX_EINTRAG}.
+     */
+    public ResourceCache() {
+        this(STANDARD_BUDGET, STANDARD_MAX_EINTRAG);
+    }
+
+    /**
+     * @param budget - so viele Bytes belegen alle Einträge zusammen höchstens
+     * @param maxEintrag - größere Resourcen werden nicht gecacht
+     */
+    public ResourceCache(long budget, int maxEintrag) {
+        super();
+        if (budget <= 0 || maxEintrag <= 0) {
+            throw new IllegalArgumentException("budget und maxEintrag müssen größer 0 sein: " + budget + ", "
+                + maxEintrag);
+        }
+        this.budget = budget;
+        this.maxEintrag = maxEintrag;
+    }
+
+    /**
+     * @param clazz - die Klasse, über die die Resource gefunden wird (wie bei Class.getResource)
+     * @param name - der Resourcename, relativ zum Package von <i>clazz</i> oder mit "/" absolut
+     * @return - eine Kopie des Inhalts
+     * @throws IOException - Fehler, NoSuchFileException wenn es die Resource nicht gibt
+     */
+    public byte[] lese(Class<?> clazz, String name) throws IOException {
+        return holeIntern(clazz, name).clone();
+    }
+
+    /**
+     * @param clazz - die Klasse, über die die Resource gefunden wird
+     * @param name - der Resourcename
+     * @param charset - das Encoding
+     * @return - der Inhalt als Text
+     * @throws IOException - Fehler, NoSuchFileException wenn es die Resource nicht gibt
+     */
+    public String leseText(Class<?> clazz, String name, Charset charset) throws IOException {
+        return new String(holeIntern(clazz, name), charset);
+    }
+
+    /**
+     * Ohne Kopie, für Aufrufer im Package, die den Inhalt nicht verändern und nicht weitergeben.
+     */
+    byte[] holeIntern(Class<?> clazz, String name) throws IOException {
+        Schluessel schluessel = new Schluessel(clazz.getClassLoader(), absoluterName(clazz, name));
+        synchronized (this) {
+            byte[] daten = this.eintraege.get(schluessel);
+            if (daten != null) {
+                this.treffer++;
+                return daten;
+            }
+            this.fehlgriffe++;
+        }
+        byte[] daten = leseResource(clazz, name); // ohne Lock, zwei gleichzeitige Fehlgriffe lesen eben beide
+        if (daten.length <= this.maxEintrag && daten.length <= this.budget) {
+            synchronized (this) {
+                byte[] alt = this.eintraege.put(schluessel, daten);
+                this.belegt = this.belegt + daten.length - (alt == null ? 0 : alt.length);
+                verdraenge();
+            }
+        }
+        return daten;
+    }
+
+    /**
+     * Entfernt alle Einträge, z.B. wenn sich Resourcen geändert haben.
+     */
+    public synchronized void leere() {
+        this.eintraege.clear();
+        this.belegt = 0;
+    }
+
+    /**
+     * @return - die Bytes, die alle Einträge zusammen belegen
+     */
+    public synchronized long getBelegteBytes() {
+        return this.belegt;
+    }
+
+    /**
+     * @return - die Anzahl der Einträge
+     */
+    public synchronized int getAnzahlEintraege() {
+        return this.eintraege.size();
+    }
+
+    /**
+     * @return - wie oft aus dem Speicher gelesen wurde
+     */
+    public synchronized long getTreffer() {
+        return this.treffer;
+    }
+
+    /**
+     * @return - wie oft die Resource gelesen werden musste
+     */
+    public synchronized long getFehlgriffe() {
+        return this.fehlgriffe;
+    }
+
+    private void verdraenge() {
+        Iterator<Map.Entry<Schluessel, byte[]>> it = this.eintraege.entrySet().iterator();
+        while (this.belegt > this.budget && it.hasNext()) {
+            this.belegt = this.belegt - it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Wie Class.resolveName: relative Namen hängen am Package der Klasse, absolute verlieren das führende "/".
+     */
+    private static String absoluterName(Class<?> clazz, String name) {
+        if (name.startsWith("/")) {
+            return name.substring(1);
+        }
+        Class<?> c = clazz;
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        String klassenname = c.getName();
+        int punkt = klassenname.lastIndexOf('.');
+        return punkt < 0 ? name : klassenname.substring(0, punkt).replace('.', '/') + "/" + name;
+    }
+
+    private static byte[] leseResource(Class<?> clazz, String name) throws IOException {
+        try (InputStream in = clazz.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new NoSuchFileException(name, null, "Resource nicht gefunden für " + clazz.getName());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] puffer = new byte[8192];
+            int n;
+            while ((n = in.read(puffer)) != -1) {
+                out.write(puffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ein langlebiger Schreiber für viele kleine Schreibvorgänge auf dieselbe Datei. Im Gegensatz zu
+ * <i>GeneralNIOFileAccess.schreibeFile</i> wird die Datei nur einmal geöffnet; alles, was geschrieben wird, landet
+ * zuerst in einem Puffer und geht erst dann in einem Stück auf die Platte, wenn der Puffer voll ist, das
+ * Flush-Intervall abgelaufen ist oder jemand <i>flush()</i> bzw. <i>close()</i> aufruft.<br/>
+ * Ob und wann die Daten mit FileChannel.force auch physisch auf der Platte landen, bestimmt der
+ * {@link SyncModus}.<br/>
+ * Flush- und Sync-Intervall gelten auch, wenn nach einem Schwall nichts mehr geschrieben wird: ein gemeinsamer
+ * Daemon-Thread schaut regelmäßig nach und schreibt bzw. ruft force, sobald das Intervall abgelaufen ist. Ein Fehler
+ * dabei kommt beim nächsten Aufruf einer Methode dieses Schreibers.<br/>
+ * <br/>
+ * Text (mit Charset) und Binärdaten dürfen gemischt geschrieben werden. Alle Methoden sind synchronized, ein Schreiber
+ * darf also von mehreren Threads verwendet werden. Bitte immer mit try-with-resources verwenden!
+ * 
+ * @author diwh
+ */
+public class StreamingFileWriter implements AutoCloseable {
+
+    /**
+     * Wann FileChannel.force aufgerufen wird.
+     */
+    public enum SyncModus {
+        /** nie, das Betriebssystem entscheidet selbst, wann die Daten auf die Platte kommen */
+        KEIN_SYNC,
+        /** nach einem Flush, wenn seit dem letzten force das Sync-Intervall abgelaufen ist, und beim Schließen */
+        PERIODISCH,
+        /** nur einmal beim Schließen */
+        BEIM_SCHLIESSEN
+    }
+
+    /** Standard-Puffergröße, wenn keine angegeben wird */
+    public static final int STANDARD_PUFFERGROESSE = 64 * 1024;
+
+    /**
+     * Ein Thread für die Intervalle aller Schreiber, angelegt erst beim ersten Schreiber mit Intervall.
+     */
+    private static final class ZeitgeberHolder {
+        private static final ScheduledThreadPoolExecutor ZEITGEBER = erzeugeZeitgeber();
+
+        private static ScheduledThreadPoolExecutor erzeugeZeitgeber() {
+            ScheduledThreadPoolExecutor zeitgeber = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread thread = new Thread(r, "StreamingFileWriter-Zeitgeber");
+                thread.setDaemon(true);
+                return thread;
+            });
+            zeitgeber.setRemoveOnCancelPolicy(true); // geschlossene Schreiber nicht in der Queue behalten
+            return zeitgeber;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer puffer;
+    private final CharsetEncoder encoder;
+    private final long flushIntervallNanos;
+    private final SyncModus syncModus;
+    private final long syncIntervallNanos;
+    private long letzterFlush;
+    private long letzterSync;
+    private long geschriebeneBytes;
+    private boolean geschlossen;
+    private boolean ungesynct; // seit dem letzten force wurde etwas geschrieben
+    private IOException hintergrundFehler;
+    private final ScheduledFuture<?> zeitgeber;
+
+    /**
+     * Öffnet einen Schreiber mit Standard-Puffergröße, ohne Zeit-Flush und ohne force.
+     * 
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param append - true, wenn an eine bestehende Datei angehängt werden soll, false: Datei wird überschrieben
+     * @param charset - das Encoding für Text, z.B. java.nio.charset.StandardCharsets.UTF_8; null, wenn nur binär
+     *            geschrieben wird
+     * @throws IOException - Fehler
+     */
+    public StreamingFileWriter(String f, Boolean append, Charset charset) throws IOException {
+        this(f, append, charset, STANDARD_PUFFERGROESSE, 0, SyncModus.KEIN_SYNC, 0);
+    }
+
+    /**
+     * Öffnet einen Schreiber.
+     * 
+     * @param f - das File als String, also z.B. "d:/WorkD/SVB Schulungen/Diverses/xml.txt" (Filesystem Filename)
+     * @param append - true, wenn an eine bestehende Datei angehängt werden soll, false: Datei wird überschrieben
+     * @param charset - das Encoding für Text, z.B. java.nio.charset.StandardCharsets.UTF_8; null, wenn nur binär
+     *            geschrieben wird
+     * @param puffergroesse - so viele Bytes werden gesammelt, bevor auf die Platte geschrieben wird
+     * @param flushIntervallMillis - spätestens nach so vielen Millisekunden wird geflusht, auch wenn der Puffer
+     *            nicht voll ist und nichts mehr geschrieben wird; 0 oder kleiner: nur nach Größe
+     * @param syncModus - wann FileChannel.force aufgerufen wird
+     * @param syncIntervallMillis - nur bei SyncModus.PERIODISCH: Mindestabstand zwischen zwei force-Aufrufen
+     * @throws IOException - Fehler
+     */
+    public StreamingFileWriter(String f, Boolean append, Charset charset, int puffergroesse,
+        long flushIntervallMillis, SyncModus syncModus, long syncIntervallMillis) throws IOException {
+        super();
+        if (puffergroesse < 1) {
+            throw new IllegalArgumentException("puffergroesse muss größer 0 sein");
+        }
+        Path p = Paths.get(f);
+        if (!append.booleanValue()) { // knallhart überschreiben
+            this.channel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        } else {
+            this.channel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        }
+        this.puffer = ByteBuffer.allocateDirect(puffergroesse);
+        this.encoder = charset == null ? null : charset.newEncoder();
+        this.flushIntervallNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushIntervallMillis));
+        this.syncModus = syncModus;
+        this.syncIntervallNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, syncIntervallMillis));
+        this.letzterFlush = System.nanoTime();
+        this.letzterSync = this.letzterFlush;
+        long takt = this.flushIntervallNanos;
+        if (syncModus == SyncModus.PERIODISCH && this.syncIntervallNanos > 0) {
+            takt = takt > 0 ? Math.min(takt, this.syncIntervallNanos) : this.syncIntervallNanos;
+        }
+        this.zeitgeber = takt > 0 ? ZeitgeberHolder.ZEITGEBER.scheduleWithFixedDelay(this::pruefeIntervalle, takt,
+            takt, TimeUnit.NANOSECONDS) : null;
+    }
+
+    /**
+     * Schreibt einen Text im Charset dieses Schreibers.
+     * 
+     * @param text - der Text; Zeilenumbrüche muss der Aufrufer selbst mitgeben
+     * @throws IOException - Fehler, auch wenn sich der Text im Charset nicht darstellen lässt
+     */
+    public synchronized void schreibe(CharSequence text) throws IOException {
+        pruefeOffen();
+        if (this.encoder == null) {
+            throw new IllegalStateException("Dieser Schreiber hat kein Charset, Text geht nicht");
+        }
+        // ein Text geht ganz oder gar nicht hinaus: bei einem Fehler wird der Puffer auf den Anfang zurückgesetzt
+        int anfang = this.puffer.position();
+        CoderResult ergebnis = kodiereInPuffer(text);
+        if (ergebnis.isOverflow() && anfang > 0) { // erst die fertigen Texte davor wegschreiben, dann neu versuchen
+            this.puffer.position(anfang);
+            leerePuffer();
+            anfang = 0;
+            ergebnis = kodiereInPuffer(text);
+        }
+        if (ergebnis.isOverflow()) { // größer als der ganze Puffer, also am Stück kodieren und direkt schreiben
+            this.puffer.position(anfang);
+            ByteBuffer gross = this.encoder.encode(CharBuffer.wrap(text)); // wirft bei nicht darstellbaren Zeichen
+            schreibeInChannel(gross);
+        } else if (ergebnis.isError()) {
+            this.puffer.position(anfang);
+            this.encoder.reset();
+            ergebnis.throwException();
+        }
+        this.encoder.reset();
+        flushWennFaellig();
+    }
+
+    /**
+     * Schreibt ein Byte-Array.
+     * 
+     * @param daten - die Daten
+     * @throws IOException - Fehler
+     */
+    public void schreibe(byte[] daten) throws IOException {
+        schreibe(daten, 0, daten.length);
+    }
+
+    /**
+     * Schreibt einen Teil eines Byte-Arrays.
+     * 
+     * @param daten - die Daten
+     * @param offset - ab hier
+     * @param laenge - so viele Bytes
+     * @throws IOException - Fehler
+     */
+    public synchronized void schreibe(byte[] daten, int offset, int laenge) throws IOException {
+        pruefeOffen();
+        if (laenge > this.puffer.remaining()) {
+            leerePuffer();
+        }
+        if (laenge >= this.puffer.capacity()) { // passt nie in den Puffer, also direkt schreiben
+            schreibeInChannel(ByteBuffer.wrap(daten, offset, laenge));
+        } else {
+            this.puffer.put(daten, offset, laenge);
+        }
+        flushWennFaellig();
+    }
+
+    /**
+     * Schreibt den Puffer auf die Platte (ohne force, außer das Sync-Intervall ist abgelaufen).
+     * 
+     * @throws IOException - Fehler
+     */
+    public synchronized void flush() throws IOException {
+        pruefeOffen();
+        leerePuffer();
+    }
+
+    /**
+     * Schreibt den Rest, ruft je nach SyncModus force und schließt die Datei.
+     * 
+     * @throws IOException - Fehler
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.geschlossen) {
+            return;
+        }
+        this.geschlossen = true;
+        if (this.zeitgeber != null) {
+            this.zeitgeber.cancel(false);
+        }
+        try {
+            leerePuffer();
+            if (this.syncModus != SyncModus.KEIN_SYNC) {
+                this.channel.force(false);
+            }
+        } finally {
+            this.channel.close();
+        }
+        wirfHintergrundFehler();
+    }
+
+    /**
+     * @return die Anzahl an Bytes, die bisher tatsächlich in die Datei geschrieben wurden (ohne Pufferinhalt)
+     */
+    public synchronized long getGeschriebeneBytes() {
+        return this.geschriebeneBytes;
+    }
+
+    private CoderResult kodiereInPuffer(CharSequence text) {
+        this.encoder.reset();
+        // jeder Aufruf ist ein vollständiger Text, daher endOfInput = true
+        CoderResult ergebnis = this.encoder.encode(CharBuffer.wrap(text), this.puffer, true);
+        return ergebnis.isUnderflow() ? this.encoder.flush(this.puffer) : ergebnis;
+    }
+
+    /**
+     * Läuft im Zeitgeber-Thread: schreibt bzw. ruft force, wenn seit dem letzten Mal das Intervall abgelaufen ist.
+     */
+    private synchronized void pruefeIntervalle() {
+        if (this.geschlossen || this.hintergrundFehler != null) {
+            return;
+        }
+        try {
+            if (this.puffer.position() > 0) {
+                flushWennFaellig();
+            }
+            if (this.syncModus == SyncModus.PERIODISCH && this.ungesynct
+                && System.nanoTime() - this.letzterSync >= this.syncIntervallNanos) {
+                this.channel.force(false);
+                this.ungesynct = false;
+                this.letzterSync = System.nanoTime();
+            }
+        } catch (IOException e) {
+            this.hintergrundFehler = e;
+        }
+    }
+
+    private void wirfHintergrundFehler() throws IOException {
+        IOException fehler = this.hintergrundFehler;
+        if (fehler != null) {
+            this.hintergrundFehler = null;
+            throw new IOException("Fehler beim Schreiben im Hintergrund", fehler);
+        }
+    }
+
+    private void flushWennFaellig() throws IOException {
+        if (this.flushIntervallNanos > 0 && System.nanoTime() - this.letzterFlush >= this.flushIntervallNanos) {
+            leerePuffer();
+        }
+    }
+
+    private void leerePuffer() throws IOException {
+        this.puffer.flip();
+        try {
+            schreibeInChannel(this.puffer);
+        } finally {
+            this.puffer.clear();
+        }
+        this.letzterFlush = System.nanoTime();
+        if (this.syncModus == SyncModus.PERIODISCH && this.letzterFlush - this.letzterSync >= this.syncIntervallNanos) {
+            this.channel.force(false);
+            this.ungesynct = false;
+            this.letzterSync = System.nanoTime();
+        }
+    }
+
+    private void schreibeInChannel(ByteBuffer daten) throws IOException {
+        this.ungesynct = this.ungesynct || daten.hasRemaining();
+        while (daten.hasRemaining()) {
+            this.geschriebeneBytes = this.geschriebeneBytes + this.channel.write(daten);
+        }
+    }
+
+    private void pruefeOffen() throws IOException {
+        if (this.geschlossen) {
+            throw new IOException("StreamingFileWriter ist bereits geschlossen");
+        }
+        wirfHintergrundFehler();
+    }
+}
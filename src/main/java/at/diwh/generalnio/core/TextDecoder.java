@@ -0,0 +1,344 @@
+package at.diwh.generalnio.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import at.diwh.generalnio.consumer.LineHandler;
+
+/**
+ * Dekodiert Text direkt aus den Lesepuffern eines Channels, ohne Reader-Kette dazwischen. Pro Thread gibt es einen
+ * CharsetDecoder und einen CharBuffer, die immer wieder verwendet werden.<br/>
+ * Die meisten Dateien sind fast nur ASCII: bei ISO-8859-1 (und allen Zeichensätzen, in denen jedes Byte genau ein
+ * Zeichen ist) wird gar nicht dekodiert, bei ASCII-kompatiblen wie UTF-8 nur die Zeilen bzw. Puffer, in denen
+ * wirklich ein Byte über 127 vorkommt. Der Rest wird direkt aus den Bytes zum String.<br/>
+ * <br/>
+ * Fehlerhafte Bytefolgen ergeben wie bei Files.newBufferedReader eine CharacterCodingException (eine
+ * IOException).
+ *
+ * @author diwh
+ */
+public final class TextDecoder {
+
+    /**
+     * Größe der Lesepuffer
+     */
+    public static final int PUFFERGROESSE = 64 * 1024;
+
+    private static final int EIN_BYTE_PRO_ZEICHEN = 1;
+    private static final int ASCII_KOMPATIBEL = 2;
+
+    /**
+     * Größere Lese- und Zeichenpuffer (wegen sehr langer Zeilen) werden nach dem Lesen nicht aufgehoben.
+     */
+    private static final int MAX_BEHALTEN = 1024 * 1024;
+
+    private static final ConcurrentHashMap<Charset, Integer> EIGENSCHAFTEN = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Werkzeug> WERKZEUG = ThreadLocal.withInitial(Werkzeug::new);
+
+    /**
+     * Was ein Thread zum Dekodieren wiederverwendet.
+     */
+    private static final class Werkzeug {
+        private Charset charset;
+        private CharsetDecoder decoder;
+        private CharBuffer zeichen = CharBuffer.allocate(1024);
+        private byte[] lesepuffer = new byte[PUFFERGROESSE];
+
+        private CharsetDecoder decoder(Charset cs) {
+            if (!cs.equals(this.charset)) {
+                this.decoder = cs.newDecoder(); // wirft bei fehlerhaften Bytes, wie Files.newBufferedReader
+                this.charset = cs;
+            }
+            return this.decoder.reset();
+        }
+
+        private CharBuffer zeichen(int benoetigt) {
+            if (benoetigt > MAX_BEHALTEN) { // nur für diesen einen Aufruf, sonst bliebe er ewig am Thread hängen
+                return CharBuffer.allocate(benoetigt);
+            }
+            if (this.zeichen.capacity() < benoetigt) {
+                int neu = Math.min(MAX_BEHALTEN, Math.max(benoetigt, this.zeichen.capacity() * 2));
+                this.zeichen = CharBuffer.allocate(neu);
+            }
+            this.zeichen.clear();
+            return this.zeichen;
+        }
+
+        /**
+         * Der Lesepuffer wird ausgeliehen, damit ein Handler, der seinerseits liest, ihn nicht überschreibt.
+         */
+        private byte[] leiheLesepuffer() {
+            byte[] puffer = this.lesepuffer;
+            this.lesepuffer = null;
+            return puffer != null ? puffer : new byte[PUFFERGROESSE];
+        }
+
+        private void gibLesepufferZurueck(byte[] puffer) {
+            if (puffer.length <= MAX_BEHALTEN) {
+                this.lesepuffer = puffer;
+            }
+        }
+    }
+
+    private TextDecoder() {
+        super();
+    }
+
+    /**
+     * @param charset - das Charset
+     * @return - true, wenn jeder Bytewert genau das gleichnamige Zeichen ist (ISO-8859-1)
+     */
+    public static boolean istEinByteProZeichen(Charset charset) {
+        return (eigenschaften(charset) & EIN_BYTE_PRO_ZEICHEN) != 0;
+    }
+
+    /**
+     * @param charset - das Charset
+     * @return - true, wenn die Bytes 0 bis 127 genau die ASCII-Zeichen sind (UTF-8, ISO-8859-x, windows-125x, ...)
+     */
+    public static boolean istAsciiKompatibel(Charset charset) {
+        return (eigenschaften(charset) & ASCII_KOMPATIBEL) != 0;
+    }
+
+    private static int eigenschaften(Charset charset) {
+        Integer e = EIGENSCHAFTEN.get(charset);
+        if (e == null) {
+            int wert = istJedesByteEinZeichen(charset, 256) ? EIN_BYTE_PRO_ZEICHEN | ASCII_KOMPATIBEL
+                : istJedesByteEinZeichen(charset, 128) ? ASCII_KOMPATIBEL : 0;
+            e = Integer.valueOf(wert);
+            EIGENSCHAFTEN.put(charset, e);
+        }
+        return e.intValue();
+    }
+
+    /**
+     * @return - true, wenn die ersten <i>anzahl</i> Bytewerte genau die gleichnamigen Zeichen ergeben
+     */
+    private static boolean istJedesByteEinZeichen(Charset charset, int anzahl) {
+        byte[] bytes = new byte[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            bytes[i] = (byte) i;
+        }
+        String s = new String(bytes, charset);
+        if (s.length() != anzahl) {
+            return false;
+        }
+        for (int i = 0; i < anzahl; i++) {
+            if (s.charAt(i) != (char) i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param daten - die Bytes
+     * @param offset - ab hier
+     * @param laenge - so viele
+     * @return - true, wenn kein Byte über 127 ist
+     */
+    static boolean istNurAscii(byte[] daten, int offset, int laenge) {
+        for (int i = offset; i < offset + laenge; i++) {
+            if (daten[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dekodiert einen Bytebereich zu einem String; reine ASCII-Bereiche (bzw. alles bei ISO-8859-1) werden direkt
+     * übernommen.
+     *
+     * @param daten - die Bytes
+     * @param offset - ab hier
+     * @param laenge - so viele
+     * @param charset - das Encoding
+     * @return - der Text
+     * @throws CharacterCodingException - bei fehlerhaften Bytefolgen
+     */
+    public static String dekodiere(byte[] daten, int offset, int laenge, Charset charset)
+        throws CharacterCodingException {
+        int e = eigenschaften(charset);
+        if ((e & EIN_BYTE_PRO_ZEICHEN) != 0 || ((e & ASCII_KOMPATIBEL) != 0 && istNurAscii(daten, offset, laenge))) {
+            return new String(daten, offset, laenge, StandardCharsets.ISO_8859_1);
+        }
+        Werkzeug werkzeug = WERKZEUG.get();
+        CharsetDecoder decoder = werkzeug.decoder(charset);
+        CharBuffer zeichen = werkzeug.zeichen((int) Math.ceil(laenge * (double) decoder.maxCharsPerByte()) + 1);
+        ByteBuffer bytes = ByteBuffer.wrap(daten, offset, laenge);
+        pruefe(decoder.decode(bytes, zeichen, true));
+        pruefe(decoder.flush(zeichen));
+        return new String(zeichen.array(), 0, zeichen.position());
+    }
+
+    /**
+     * Liest einen Channel der Reihe nach und liefert die Zeilen; Zeilenenden wie bei BufferedReader.readLine()
+     * ('\n', "\r\n" und ein einzelnes '\r'). Der Channel wird nicht geschlossen.<br/>
+     * Geht nur mit Zeichensätzen, in denen '\n' und '\r' je ein Byte sind (also nicht mit UTF-16).
+     *
+     * @param channel - zum Lesen geöffnet, wird ab seiner aktuellen Position gelesen
+     * @param charset - das Encoding
+     * @param handler - bekommt jede Zeile, liefert false, wenn er keine mehr braucht
+     * @return - die Anzahl der gelieferten Zeilen
+     * @throws IOException - Fehler, CharacterCodingException bei fehlerhaften Bytefolgen
+     */
+    public static long zeilen(ReadableByteChannel channel, Charset charset, LineHandler handler) throws IOException {
+        if (!ParallelLineReader.istZeilenumbruchEinByte(charset)) {
+            throw new IllegalArgumentException("Zeilenweises Dekodieren geht nicht mit dem Charset " + charset.name());
+        }
+        Werkzeug werkzeug = WERKZEUG.get();
+        byte[] puffer = werkzeug.leiheLesepuffer();
+        try {
+            long anzahl = 0;
+            ByteBuffer buffer = ByteBuffer.wrap(puffer);
+            int start = 0; // Anfang der aktuellen Zeile
+            int suchAb = 0;
+            int ende = 0; // gültige Daten im Puffer
+            boolean eof = false;
+            boolean crAmEnde = false; // die letzte Zeile endete mit '\r', ein '\n' danach gehört noch dazu
+            while (true) {
+                if (crAmEnde && start < ende) {
+                    crAmEnde = false;
+                    if (puffer[start] == '\n') {
+                        start++;
+                        suchAb = start;
+                    }
+                }
+                int i = sucheZeilenende(puffer, suchAb, ende);
+                if (i < ende) {
+                    anzahl++;
+                    String zeile = dekodiere(puffer, start, i - start, charset);
+                    if (puffer[i] == '\r') {
+                        if (i + 1 < ende) {
+                            start = puffer[i + 1] == '\n' ? i + 2 : i + 1;
+                        } else {
+                            start = i + 1;
+                            crAmEnde = true; // ob ein '\n' folgt, sagt erst der nächste Puffer
+                        }
+                    } else {
+                        start = i + 1;
+                    }
+                    suchAb = start;
+                    if (!handler.zeile(zeile)) {
+                        return anzahl;
+                    }
+                    continue;
+                }
+                if (eof) {
+                    if (start < ende) {
+                        anzahl++;
+                        handler.zeile(dekodiere(puffer, start, ende - start, charset));
+                    }
+                    return anzahl;
+                }
+                // nachladen: angefangene Zeile an den Pufferanfang schieben, bei Bedarf Puffer vergrößern
+                suchAb = i - start;
+                if (start > 0) {
+                    System.arraycopy(puffer, start, puffer, 0, ende - start);
+                    ende = ende - start;
+                    start = 0;
+                } else if (ende == puffer.length) {
+                    puffer = Arrays.copyOf(puffer, puffer.length * 2);
+                    buffer = ByteBuffer.wrap(puffer);
+                }
+                buffer.limit(puffer.length);
+                buffer.position(ende);
+                int gelesen = channel.read(buffer);
+                if (gelesen < 0) {
+                    eof = true;
+                } else {
+                    ende = ende + gelesen;
+                }
+            }
+        } finally {
+            werkzeug.gibLesepufferZurueck(puffer);
+        }
+    }
+
+    /**
+     * @return - Index des ersten '\n' oder '\r' ab <i>von</i>, oder <i>bis</i>, wenn es keines gibt
+     */
+    private static int sucheZeilenende(byte[] puffer, int von, int bis) {
+        for (int i = von; i < bis; i++) {
+            byte b = puffer[i];
+            if (b <= '\r' && (b == '\n' || b == '\r')) {
+                return i;
+            }
+        }
+        return bis;
+    }
+
+    /**
+     * Dekodiert einen ganzen Channel Puffer für Puffer in einen StringBuilder, der gleich auf die erwartete Länge
+     * angelegt wird. Es gibt also nie die ganze Datei als byte[] und zusätzlich als Zeichen: bei fast reinem
+     * ASCII/Latin-1-Text belegt das Ergebnis ab Java 9 ein Byte pro Zeichen, statt Bytes plus String wie bei
+     * new String(Files.readAllBytes(p), charset).
+     *
+     * @param channel - zum Lesen geöffnet, wird bis zum Ende gelesen, aber nicht geschlossen
+     * @param groesse - die erwartete Anzahl Bytes (z.B. Dateigröße), nur für die Anfangskapazität
+     * @param charset - das Encoding
+     * @return - der Text
+     * @throws IOException - Fehler, CharacterCodingException bei fehlerhaften Bytefolgen
+     */
+    public static StringBuilder dekodiereGanz(ReadableByteChannel channel, long groesse, Charset charset)
+        throws IOException {
+        Werkzeug werkzeug = WERKZEUG.get();
+        CharsetDecoder decoder = werkzeug.decoder(charset);
+        double zeichenProByte = Math.min(1.0, decoder.averageCharsPerByte());
+        StringBuilder ergebnis = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8,
+            groesse * zeichenProByte + 16));
+        byte[] puffer = werkzeug.leiheLesepuffer();
+        try {
+            int e = eigenschaften(charset);
+            ByteBuffer bytes = ByteBuffer.wrap(puffer);
+            CharBuffer zeichen = werkzeug.zeichen((int) Math.ceil(puffer.length * (double) decoder.maxCharsPerByte()));
+            boolean eof = false;
+            boolean benutzt = false; // ob der Decoder überhaupt gebraucht wurde
+            while (!eof) {
+                int offen = bytes.position(); // Rest eines Zeichens vom letzten Puffer
+                eof = channel.read(bytes) < 0;
+                bytes.flip();
+                int rest = bytes.remaining();
+                if (offen == 0 && ((e & EIN_BYTE_PRO_ZEICHEN) != 0
+                    || ((e & ASCII_KOMPATIBEL) != 0 && istNurAscii(puffer, 0, rest)))) {
+                    ergebnis.append(new String(puffer, 0, rest, StandardCharsets.ISO_8859_1));
+                    bytes.position(rest);
+                } else {
+                    benutzt = true;
+                    pruefe(decoder.decode(bytes, zeichen, eof));
+                    zeichen.flip();
+                    ergebnis.append(zeichen);
+                    zeichen.clear();
+                }
+                bytes.compact(); // unvollständiges Zeichen am Pufferende für die nächste Runde aufheben
+            }
+            if (benutzt) {
+                bytes.flip(); // leer, der Decoder muss aber noch das Ende der Eingabe sehen
+                pruefe(decoder.decode(bytes, zeichen, true));
+                pruefe(decoder.flush(zeichen));
+                zeichen.flip();
+                ergebnis.append(zeichen);
+            }
+            return ergebnis;
+        } finally {
+            werkzeug.gibLesepufferZurueck(puffer);
+        }
+    }
+
+    private static void pruefe(CoderResult ergebnis) throws CharacterCodingException {
+        if (ergebnis.isError()) {
+            ergebnis.throwException();
+        }
+    }
+}
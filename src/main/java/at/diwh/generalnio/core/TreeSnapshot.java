@@ -0,0 +1,394 @@
+package at.diwh.generalnio.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
+
+/**
+ * Ein kompakter Schnappschuss eines Verzeichnisbaums auf der Platte (relativer Pfad, Größe, Änderungsdatum und
+ * optional der FileKey) und der Vergleich eines frischen Durchlaufs mit so einem Schnappschuss.<br/>
+ * <br/>
+ * Der Trick: Sowohl der Schnappschuss als auch der frische Durchlauf sind in derselben Reihenfolge sortiert (in jedem
+ * Verzeichnis nach Namen, Verzeichnisinhalt direkt nach dem Verzeichnis). Damit lassen sich beide wie zwei sortierte
+ * Listen im Gleichschritt vergleichen, ohne dass einer von beiden komplett im Speicher liegen muss; auch Millionen von
+ * Dateien brauchen nur so viel Speicher wie das größte einzelne Verzeichnis.<br/>
+ * <br/>
+ * Typischer nächtlicher Ablauf: <i>vergleiche(verzeichnis, gestern, heute, consumer)</i>, danach heute zu gestern
+ * umbenennen.
+ * 
+ * @author diwh
+ */
+public final class TreeSnapshot {
+
+    private static final long MAGIC = 0x474E494F534E4150L; // "GNIOSNAP"
+    private static final int VERSION = 2; // 2: Änderungsdatum als Varint-Differenz zum vorhergehenden Eintrag
+    private static final int FLAG_VERZEICHNIS = 1;
+    private static final int FLAG_FILEKEY = 2;
+    private static final int ENDE = 0xFF;
+    private static final int PUFFER = 64 * 1024;
+
+    /**
+     * Eine Änderung zwischen Schnappschuss und aktuellem Stand.
+     */
+    public static final class Aenderung {
+
+        /**
+         * Art der Änderung.
+         */
+        public enum Art {
+            /** gibt es jetzt, im Schnappschuss nicht */
+            NEU,
+            /** Größe, Änderungsdatum, FileKey oder Typ sind anders */
+            GEAENDERT,
+            /** war im Schnappschuss, gibt es jetzt nicht mehr */
+            GELOESCHT
+        }
+
+        private final Art art;
+        private final Path pfad;
+        private final String relativerPfad;
+        private final boolean verzeichnis;
+
+        Aenderung(Art art, Path pfad, String relativerPfad, boolean verzeichnis) {
+            super();
+            this.art = art;
+            this.pfad = pfad;
+            this.relativerPfad = relativerPfad;
+            this.verzeichnis = verzeichnis;
+        }
+
+        @SuppressWarnings("javadoc")
+        public Art getArt() {
+            return this.art;
+        }
+
+        /**
+         * @return der vollständige Path, aufgelöst gegen das Verzeichnis des Vergleichs
+         */
+        public Path getPfad() {
+            return this.pfad;
+        }
+
+        /**
+         * @return der Pfad relativ zum Verzeichnis, immer mit '/' getrennt
+         */
+        public String getRelativerPfad() {
+            return this.relativerPfad;
+        }
+
+        /**
+         * @return true, wenn der Eintrag (jetzt bzw. bei GELOESCHT damals) ein Verzeichnis ist
+         */
+        public boolean istVerzeichnis() {
+            return this.verzeichnis;
+        }
+
+        @Override
+        public String toString() {
+            return this.art + " " + this.relativerPfad;
+        }
+    }
+
+    private TreeSnapshot() {
+        super();
+    }
+
+    /**
+     * Durchläuft den Baum und schreibt einen Schnappschuss.
+     * 
+     * @param verzeichnis - String, der Ausgangspunkt, z.B. "c:/temp"
+     * @param snapshotDatei - die Datei, in die geschrieben wird; wird überschrieben
+     * @param mitFileKey - true: auch den FileKey (z.B. Inode) speichern, damit ersetzte Dateien gleicher Größe und
+     *            gleichen Datums auffallen
+     * @return - die Anzahl der geschriebenen Einträge
+     * @throws IOException - Fehler
+     */
+    public static long schreibe(String verzeichnis, String snapshotDatei, boolean mitFileKey) throws IOException {
+        Path wurzel = Paths.get(verzeichnis);
+        long anzahl = 0;
+        try (FileTreeIterator baum = new FileTreeIterator(wurzel, Integer.MAX_VALUE, true);
+            Schreiber schreiber = new Schreiber(Paths.get(snapshotDatei), mitFileKey)) {
+            baum.next(); // der Ausgangspunkt selbst kommt nicht in den Schnappschuss
+            while (baum.hasNext()) {
+                schreiber.schreibe(Eintrag.von(wurzel, baum.next()));
+                anzahl++;
+            }
+            schreiber.abschliessen();
+        }
+        return anzahl;
+    }
+
+    /**
+     * Vergleicht den aktuellen Stand des Baums mit einem Schnappschuss und meldet jede Änderung an den Consumer, in
+     * sortierter Reihenfolge. Bei Verzeichnissen werden nur NEU und GELOESCHT gemeldet, nicht ihr Änderungsdatum.
+     * 
+     * @param verzeichnis - String, der Ausgangspunkt, z.B. "c:/temp"
+     * @param snapshotDatei - der alte Schnappschuss
+     * @param neueSnapshotDatei - wenn nicht null, wird der aktuelle Stand gleich als neuer Schnappschuss hierher
+     *            geschrieben, ohne den Baum ein zweites Mal zu durchlaufen; FileKeys werden gespeichert, wenn der alte
+     *            Schnappschuss welche hat
+     * @param consumer - bekommt jede Änderung
+     * @throws IOException - Fehler, auch wenn die Snapshot-Datei kaputt ist
+     */
+    public static void vergleiche(String verzeichnis, String snapshotDatei, String neueSnapshotDatei,
+        Consumer<Aenderung> consumer) throws IOException {
+        Path wurzel = Paths.get(verzeichnis);
+        try (Leser leser = new Leser(Paths.get(snapshotDatei));
+            FileTreeIterator baum = new FileTreeIterator(wurzel, Integer.MAX_VALUE, true);
+            Schreiber schreiber = neueSnapshotDatei == null ? null
+                : new Schreiber(Paths.get(neueSnapshotDatei), leser.mitFileKey)) {
+            baum.next(); // der Ausgangspunkt selbst
+            Eintrag alt = leser.lies();
+            Eintrag neu = baum.hasNext() ? Eintrag.von(wurzel, baum.next()) : null;
+            while (alt != null || neu != null) {
+                int vergleich;
+                if (alt == null) {
+                    vergleich = 1;
+                } else if (neu == null) {
+                    vergleich = -1;
+                } else {
+                    vergleich = vergleichePfade(alt.pfad, neu.pfad);
+                }
+                if (vergleich < 0) {
+                    consumer.accept(new Aenderung(Aenderung.Art.GELOESCHT, aufloesen(wurzel, alt.pfad), alt.pfad,
+                        alt.verzeichnis));
+                } else if (vergleich > 0) {
+                    consumer.accept(new Aenderung(Aenderung.Art.NEU, aufloesen(wurzel, neu.pfad), neu.pfad,
+                        neu.verzeichnis));
+                } else if (istGeaendert(alt, neu)) {
+                    consumer.accept(new Aenderung(Aenderung.Art.GEAENDERT, aufloesen(wurzel, neu.pfad), neu.pfad,
+                        neu.verzeichnis));
+                }
+                if (vergleich >= 0) {
+                    if (schreiber != null) {
+                        schreiber.schreibe(neu);
+                    }
+                    neu = baum.hasNext() ? Eintrag.von(wurzel, baum.next()) : null;
+                }
+                if (vergleich <= 0) {
+                    alt = leser.lies();
+                }
+            }
+            if (schreiber != null) {
+                schreiber.abschliessen();
+            }
+        }
+    }
+
+    /**
+     * Vergleicht zwei relative Pfade Komponente für Komponente; das ist genau die Reihenfolge, in der der sortierte
+     * Durchlauf die Einträge liefert. Weil '/' dabei kleiner als jedes andere Zeichen gilt, genügt ein Vergleich
+     * Zeichen für Zeichen.
+     */
+    static int vergleichePfade(String a, String b) {
+        int laenge = Math.min(a.length(), b.length());
+        for (int i = 0; i < laenge; i++) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(i);
+            if (ca != cb) {
+                if (ca == '/') {
+                    return -1;
+                }
+                if (cb == '/') {
+                    return 1;
+                }
+                return ca - cb;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    private static boolean istGeaendert(Eintrag alt, Eintrag neu) {
+        if (alt.verzeichnis != neu.verzeichnis) {
+            return true;
+        }
+        if (neu.verzeichnis) {
+            return false;
+        }
+        if (alt.groesse != neu.groesse || alt.geaendert != neu.geaendert) {
+            return true;
+        }
+        return alt.fileKey != null && neu.fileKey != null && !alt.fileKey.equals(neu.fileKey);
+    }
+
+    private static Path aufloesen(Path wurzel, String relativerPfad) {
+        return wurzel.resolve(relativerPfad.replace('/', File.separatorChar));
+    }
+
+    /**
+     * Ein Eintrag im Schnappschuss.
+     */
+    private static final class Eintrag {
+
+        private final String pfad;
+        private final boolean verzeichnis;
+        private final long groesse;
+        private final long geaendert;
+        private final String fileKey;
+
+        Eintrag(String pfad, boolean verzeichnis, long groesse, long geaendert, String fileKey) {
+            super();
+            this.pfad = pfad;
+            this.verzeichnis = verzeichnis;
+            this.groesse = groesse;
+            this.geaendert = geaendert;
+            this.fileKey = fileKey;
+        }
+
+        static Eintrag von(Path wurzel, PathEntry entry) {
+            BasicFileAttributes attrs = entry.getAttribute();
+            String relativ = wurzel.relativize(entry.getPath()).toString();
+            if (File.separatorChar != '/') {
+                relativ = relativ.replace(File.separatorChar, '/');
+            }
+            Object key = attrs.fileKey();
+            return new Eintrag(relativ, attrs.isDirectory(), attrs.isDirectory() ? 0 : attrs.size(),
+                attrs.lastModifiedTime().toMillis(), key == null ? null : key.toString());
+        }
+    }
+
+    /**
+     * Schreibt Einträge mit Präfixkompression: von jedem Pfad wird nur der Teil gespeichert, der sich vom
+     * vorhergehenden unterscheidet; Zahlen als Varint, das Änderungsdatum als Differenz zum vorhergehenden Eintrag
+     * (ZigZag, damit auch ältere Dateien kurz bleiben). Dateien aus einem Verzeichnis sind oft zur selben Zeit
+     * entstanden, die Differenz braucht dann nur ein paar Bytes statt acht.
+     */
+    private static final class Schreiber implements Closeable {
+
+        private final DataOutputStream out;
+        private final boolean mitFileKey;
+        private String vorheriger = "";
+        private long vorherigeZeit;
+
+        Schreiber(Path datei, boolean mitFileKey) throws IOException {
+            super();
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(datei), PUFFER));
+            this.mitFileKey = mitFileKey;
+            this.out.writeLong(MAGIC);
+            this.out.writeInt(VERSION);
+            this.out.writeBoolean(mitFileKey);
+        }
+
+        void schreibe(Eintrag eintrag) throws IOException {
+            int gemeinsam = 0;
+            int max = Math.min(this.vorheriger.length(), eintrag.pfad.length());
+            while (gemeinsam < max && this.vorheriger.charAt(gemeinsam) == eintrag.pfad.charAt(gemeinsam)) {
+                gemeinsam++;
+            }
+            boolean keyDabei = this.mitFileKey && eintrag.fileKey != null;
+            this.out.writeByte((eintrag.verzeichnis ? FLAG_VERZEICHNIS : 0) | (keyDabei ? FLAG_FILEKEY : 0));
+            schreibeVarint(gemeinsam);
+            this.out.writeUTF(eintrag.pfad.substring(gemeinsam));
+            schreibeVarint(eintrag.groesse);
+            long differenz = eintrag.geaendert - this.vorherigeZeit;
+            schreibeVarint((differenz << 1) ^ (differenz >> 63));
+            if (keyDabei) {
+                this.out.writeUTF(eintrag.fileKey);
+            }
+            this.vorheriger = eintrag.pfad;
+            this.vorherigeZeit = eintrag.geaendert;
+        }
+
+        private void schreibeVarint(long wert) throws IOException {
+            long rest = wert;
+            while ((rest & ~0x7FL) != 0) {
+                this.out.writeByte((int) ((rest & 0x7F) | 0x80));
+                rest = rest >>> 7;
+            }
+            this.out.writeByte((int) rest);
+        }
+
+        /**
+         * Schreibt die Endemarke; ein Schnappschuss ohne Endemarke (z.B. nach einem Fehler beim Durchlauf) wird beim
+         * Lesen als unvollständig erkannt.
+         */
+        void abschliessen() throws IOException {
+            this.out.writeByte(ENDE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Liest einen Schnappschuss Eintrag für Eintrag.
+     */
+    private static final class Leser implements Closeable {
+
+        private final DataInputStream in;
+        private final boolean mitFileKey;
+        private String vorheriger = "";
+        private long vorherigeZeit;
+        private boolean fertig;
+
+        Leser(Path datei) throws IOException {
+            super();
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(datei), PUFFER));
+            try {
+                if (this.in.readLong() != MAGIC || this.in.readInt() != VERSION) {
+                    throw new IOException("Keine Snapshot-Datei oder falsche Version: " + datei);
+                }
+                this.mitFileKey = this.in.readBoolean();
+            } catch (IOException e) {
+                this.in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return der nächste Eintrag oder null am Ende
+         */
+        Eintrag lies() throws IOException {
+            if (this.fertig) {
+                return null;
+            }
+            try {
+                int flags = this.in.readUnsignedByte();
+                if (flags == ENDE) {
+                    this.fertig = true;
+                    return null;
+                }
+                int gemeinsam = (int) liesVarint();
+                String pfad = this.vorheriger.substring(0, gemeinsam) + this.in.readUTF();
+                long groesse = liesVarint();
+                long differenz = liesVarint();
+                long geaendert = this.vorherigeZeit + ((differenz >>> 1) ^ -(differenz & 1));
+                String fileKey = (flags & FLAG_FILEKEY) != 0 ? this.in.readUTF() : null;
+                this.vorheriger = pfad;
+                this.vorherigeZeit = geaendert;
+                return new Eintrag(pfad, (flags & FLAG_VERZEICHNIS) != 0, groesse, geaendert, fileKey);
+            } catch (EOFException e) {
+                throw new IOException("Snapshot-Datei ist unvollständig", e);
+            }
+        }
+
+        private long liesVarint() throws IOException {
+            long wert = 0;
+            int verschiebung = 0;
+            int b;
+            do {
+                b = this.in.readUnsignedByte();
+                wert = wert | ((long) (b & 0x7F) << verschiebung);
+                verschiebung = verschiebung + 7;
+            } while ((b & 0x80) != 0);
+            return wert;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+}
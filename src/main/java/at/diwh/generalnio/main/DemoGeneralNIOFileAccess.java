@@ -1,18 +1,27 @@
 package at.diwh.generalnio.main;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
+import at.diwh.generalnio.consumer.FixedWidthToCsvConsumer;
 import at.diwh.generalnio.consumer.FullBinaryReadConsumer;
 import at.diwh.generalnio.consumer.FullTextualReadConsumer;
 import at.diwh.generalnio.consumer.ReadNxLinesTextConsumer;
 import at.diwh.generalnio.consumer.TransformTxtToCsvConsumer;
+import at.diwh.generalnio.core.ContentSearch;
+import at.diwh.generalnio.core.FileQuery;
 import at.diwh.generalnio.core.GeneralNIOFileAccess;
+import at.diwh.generalnio.core.IoMetrics;
+import at.diwh.generalnio.core.Pipeline;
+import at.diwh.generalnio.core.ResourceCache;
 
 /**
  * Dies ist ein Versuch, eine generelle File-Access-Klasse zu bauen; 
@@ -115,12 +124,34 @@ public class DemoGeneralNIOFileAccess {
         GeneralNIOFileAccess.leseFile(fileLocation, null, StandardCharsets.UTF_8, 1, showStringOnConsole);
         GeneralNIOFileAccess.leseFile(fileLocation, null, StandardCharsets.UTF_8, 1, countLines);
         System.out.println("Das File " + fileLocation + " hat " + zaehler.getZaehler().intValue() + " Zeilen.");
+        // dasselbe ohne einen String pro Zeile: scanneZeilen sucht die Zeilenumbrüche direkt in den Bytes, die Zeile
+        // wird nie dekodiert, weil der Zähler sie gar nicht anschaut
+        long[] anzahlZeilen = new long[1];
+        GeneralNIOFileAccess.scanneZeilen(fileLocation, null, StandardCharsets.UTF_8, zeile -> anzahlZeilen[0]++);
+        System.out.println("Gezählt mit scanneZeilen: " + anzahlZeilen[0] + " Zeilen.");
+        // leseZeilen kennt den Typ schon beim Aufruf (kein Consumer<T>, kein Cast) und hört auf, sobald der Handler
+        // false liefert, hier nach der ersten leeren Zeile
+        long bisLeer = GeneralNIOFileAccess.leseZeilen(fileLocation, null, StandardCharsets.UTF_8,
+            zeile -> !zeile.isEmpty());
+        System.out.println("Gelesen mit leseZeilen bis zur ersten leeren Zeile: " + bisLeer + " Zeilen.");
+        // leseZeichen dekodiert die ganze Datei direkt in einen StringBuilder, ohne sie vorher als byte[] zu lesen
+        CharSequence ganzerText = GeneralNIOFileAccess.leseZeichen(fileLocation, null, StandardCharsets.UTF_8);
+        System.out.println("Gelesen mit leseZeichen: " + ganzerText.length() + " Zeichen.");
         System.out.println();
 
         // Sample für Lesen vom Resource Path (Text) buffersize=1 für zeilenweises Lesen        
         System.out.println("[ 2 ]" + LINIE);
         GeneralNIOFileAccess.leseFile(classpathLocation, DemoGeneralNIOFileAccess.class, StandardCharsets.UTF_8, 1,
             showStringOnConsole);
+        // mit Resource-Cache: die Resource wird nur beim ersten Mal gelesen, danach kommt sie aus dem Speicher
+        GeneralNIOFileAccess.setResourceCache(new ResourceCache());
+        for (int i = 0; i < 3; i++) {
+            GeneralNIOFileAccess.leseFile(classpathLocation, DemoGeneralNIOFileAccess.class, StandardCharsets.UTF_8, 1,
+                countLines);
+        }
+        System.out.println("Resource-Cache: " + GeneralNIOFileAccess.getResourceCache().getTreffer() + " Treffer, "
+            + GeneralNIOFileAccess.getResourceCache().getFehlgriffe() + " Fehlgriffe");
+        GeneralNIOFileAccess.setResourceCache(null);
 
         // Sample für Lesen vom Filesystem (Binär)
         System.out.println("[ 3 ]" + LINIE);
@@ -134,8 +165,8 @@ public class DemoGeneralNIOFileAccess {
         /*
          * Hier folgt ein Beispiel für einen Consumer-Einsatz im Falle dass man nur eine bestimmte Anzahl an Zeilen
          * einer Datei lesen will (typ. CSV-Dateien, die in der ersten Zeile Header-Info enthalten und nur die will
-         * man). Es ist natürlich so, dass die Datei komplett "gelesen" wird, wenn man das so macht, nur werden die
-         * Zeilen, die mehr sind als die gewünschten nicht im Memory abgelegt.
+         * man). Da ReadNxLinesTextConsumer ein ShortCircuitingConsumer ist, hört leseFile nach den gewünschten Zeilen
+         * auf zu lesen, der Rest der Datei wird gar nicht mehr angefasst.
          */
         // wir initialisieren einen Consumer, der nur die erste Zeile zurück liefern soll
         ReadNxLinesTextConsumer<String> readNxLines = new ReadNxLinesTextConsumer<>(Integer.valueOf(1));
@@ -151,6 +182,22 @@ public class DemoGeneralNIOFileAccess {
             System.out.println(element);
         }
 
+        // Sample für paralleles zeilenweises Lesen: jeder Bereich der Datei bekommt seinen eigenen Consumer, am Ende
+        // werden die Consumer in Dateireihenfolge zusammengeführt
+        System.out.println("[ 6 ]" + LINIE);
+        ReadNxLinesTextConsumer<String> alleZeilen = GeneralNIOFileAccess.leseFileParallel("/testdata/demo.txt",
+            DemoGeneralNIOFileAccess.class, StandardCharsets.ISO_8859_1,
+            () -> new ReadNxLinesTextConsumer<>(Integer.valueOf(Integer.MAX_VALUE)), (links, rechts) -> {
+                links.getData().addAll(rechts.getData());
+                return links;
+            });
+        System.out.println("Parallel gelesene Zeilen: " + alleZeilen.getData().size());
+
+        // Sample für das Lesen eines Zeilenbereichs: beim ersten Aufruf entsteht irgendeinfile.txt.lidx, danach wird
+        // nicht mehr von vorne gelesen
+        System.out.println("[ 7 ]" + LINIE);
+        GeneralNIOFileAccess.leseZeilenbereich(fileLocation, StandardCharsets.UTF_8, 1, 2, showStringOnConsole);
+
 
         // Sample für das Schreiben eines Textes in ein File, overwrite
         System.out.println("(Schreibtest)" + LINIE);
@@ -229,6 +276,31 @@ public class DemoGeneralNIOFileAccess {
         }
         System.out.println();
         
+        // Sample für eine zusammengesetzte Suche in einem einzigen Durchlauf
+        System.out.println("(Filesuche mit FileQuery)" + LINIE);
+        elementName = tempDirName;
+        System.out.println("Quellverezeichnis: " + elementName);
+        List<Path> treffer = new FileQuery().nurDateien().glob("*.{csv,txt}").groesserAls(0).maxTiefe(3)
+            .suche(elementName);
+        System.out.println("Suche nach *.csv oder *.txt, nicht leer, höchstens 3 Ebenen tief");
+        System.out.println("Dateien Anzahl Elemente: " + treffer.size());
+        for (Path element : treffer) {
+            System.out.println("[" + element + "]");
+        }
+        System.out.println();
+
+        // Sample für die Inhaltssuche: die Dateien werden parallel in den Bytes durchsucht, dekodiert wird nur die
+        // Zeile rund um einen Treffer
+        System.out.println("(Inhaltssuche mit ContentSearch)" + LINIE);
+        System.out.println("Suche nach \"dolor\" oder \"consequat\" in *.txt, höchstens 3 Ebenen tief");
+        List<ContentSearch.Treffer> fundstellen = new ContentSearch(StandardCharsets.UTF_8, "dolor", "consequat")
+            .dateien(new FileQuery().nurDateien().glob("*.txt").maxTiefe(3)).nurErsterTreffer().suche(elementName);
+        for (ContentSearch.Treffer fundstelle : fundstellen) {
+            System.out.println("[" + fundstelle.getPfad() + "] ab Byte " + fundstelle.getPosition() + ": "
+                + fundstelle.getZeile());
+        }
+        System.out.println();
+
         // Sample für den TransformTxtToCsvConsumer
         System.out.println("Sample für den TransformTxtToCsvConsumer" + LINIE);
         String ZEILENUMBRUCH = System.lineSeparator();
@@ -239,17 +311,48 @@ public class DemoGeneralNIOFileAccess {
         TransformTxtToCsvConsumer<String> consumer = new TransformTxtToCsvConsumer<>();
         GeneralNIOFileAccess.leseFile(inFileName, DemoGeneralNIOFileAccess.class, StandardCharsets.ISO_8859_1, 1,
             consumer);
-        StringBuilder sb = new StringBuilder();
-        for (String element : consumer.getData()) {
-            // System.out.println("Zeile: " + element);
-            if (!(element.replace(";", "").trim().isEmpty())) {
-                sb.append(element);
-                sb.append(ZEILENUMBRUCH);
-            }
-        }
-        System.out.println(sb.toString());
+        System.out.println("Gelesene CSV-Zeilen: " + consumer.getData().size());
         System.out.println("\nSchreibe Datei " + outFileName);
-        GeneralNIOFileAccess.schreibeFile(outFileName, sb.toString(), Boolean.FALSE, StandardCharsets.ISO_8859_1);
+        // statt alles in einem StringBuilder zu sammeln, geben wir die Zeilen als Stream an schreibeFile
+        GeneralNIOFileAccess.schreibeFile(outFileName,
+            consumer.getData().stream().filter(element -> !(element.replace(";", "").trim().isEmpty()))
+                .map(element -> element + ZEILENUMBRUCH),
+            Boolean.FALSE, StandardCharsets.ISO_8859_1);
+
+        // Sample für den FixedWidthToCsvConsumer: gleiches Ergebnis, aber die CSV-Zeilen gehen beim Lesen direkt in
+        // den Writer, das Layout kommt aus der ---- Zeile der Datei
+        System.out.println("Sample für den FixedWidthToCsvConsumer" + LINIE);
+        String streamFileName = TEMPDIR + "/demo_stream.csv";
+        try (Writer writer = Files.newBufferedWriter(Paths.get(streamFileName), StandardCharsets.ISO_8859_1)) {
+            FixedWidthToCsvConsumer<String> csvConsumer = new FixedWidthToCsvConsumer<>(writer, true, false);
+            GeneralNIOFileAccess.leseFile(inFileName, DemoGeneralNIOFileAccess.class, StandardCharsets.ISO_8859_1, 1,
+                csvConsumer);
+            System.out.println("Geschriebene CSV-Zeilen: " + csvConsumer.getAnzahlZeilen() + " nach "
+                + streamFileName);
+        }
+
+        // Sample für die Messung: dasselbe noch einmal mit IoMetrics, dann sieht man, wie viel Zeit auf das Lesen,
+        // das Dekodieren und den Consumer entfällt
+        System.out.println("Sample für IoMetrics" + LINIE);
+        IoMetrics metrics = new IoMetrics();
+        GeneralNIOFileAccess.setIoListener(metrics);
+        try (Writer writer = Files.newBufferedWriter(Paths.get(streamFileName), StandardCharsets.ISO_8859_1)) {
+            GeneralNIOFileAccess.leseFile(inFileName, DemoGeneralNIOFileAccess.class, StandardCharsets.ISO_8859_1, 1,
+                new FixedWidthToCsvConsumer<String>(writer, true, false));
+        } finally {
+            GeneralNIOFileAccess.setIoListener(null);
+        }
+        System.out.println(metrics);
+
+        // Sample für die Pipeline: lesen, umwandeln und schreiben laufen gleichzeitig, dazwischen liegen begrenzte
+        // Queues, es ist also nie die ganze Datei im Speicher
+        System.out.println("Sample für die Pipeline" + LINIE);
+        String pipelineFileName = TEMPDIR + "/demo_pipeline.csv";
+        Pipeline.ausFile(inFileName, DemoGeneralNIOFileAccess.class, StandardCharsets.ISO_8859_1)
+            .stufe(FixedWidthToCsvConsumer.alsStufe(";", true), 16)
+            .entkoppeln(16)
+            .schreibeNach(pipelineFileName, Boolean.FALSE, StandardCharsets.ISO_8859_1, ZEILENUMBRUCH);
+        System.out.println("Geschrieben nach " + pipelineFileName);
 
     }
 }